@@ -0,0 +1,44 @@
+package io.jenkins.plugins.playwright_e2e;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@code @JmhBenchmark} under benchmarks/ with the GC profiler, so each path reports its throughput and
+ * allocation rate. Only run by the {@code benchmark} Maven profile; {@code -Dbenchmark.include=<regex>} selects
+ * benchmarks.
+ */
+public class BenchmarkRunner {
+    @Test
+    public void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        String include = System.getProperty("benchmark.include", "");
+        if (include.isEmpty()) {
+            new BenchmarkFinder(getClass()).findBenchmarks(options);
+        } else {
+            options.include(include);
+        }
+        new Runner(options.build()).run();
+    }
+}
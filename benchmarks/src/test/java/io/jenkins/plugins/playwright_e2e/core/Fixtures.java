@@ -0,0 +1,179 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Synthetic results folders shaped like the ones main_logic.py publishes: manifest.json per build, result.json per
+ * scenario (steps, fail reasons and metrics spans included) and page-like PNG screenshots.
+ */
+final class Fixtures {
+    static final int JOBS = 10;
+    static final int SCENARIOS_PER_BUILD = 5;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Fixtures() {
+    }
+
+    static String job(int i) {
+        return "bench-job-" + (i % JOBS);
+    }
+
+    /**
+     * Writes {@code builds} build folders spread over {@link #JOBS} jobs, each with a manifest; with
+     * {@code withResults} every scenario also gets its result.json.
+     */
+    static void writeBuilds(File root, int builds, boolean withResults) throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < builds; i++) {
+            String dirName = job(i) + "_" + (i / JOBS + 1);
+            File dir = new File(root, dirName);
+            Files.createDirectories(dir.toPath());
+            ObjectNode manifest = manifest(dirName, random);
+            MAPPER.writeValue(new File(dir, BuildManifest.FILE_NAME), manifest);
+            if (withResults) {
+                for (int s = 1; s <= SCENARIOS_PER_BUILD; s++) {
+                    File scenarioDir = new File(dir, String.valueOf(s));
+                    Files.createDirectories(scenarioDir.toPath());
+                    Files.write(new File(scenarioDir, "result.json").toPath(), resultJson(s, random.nextInt(10) > 0, random));
+                }
+            }
+        }
+    }
+
+    private static ObjectNode manifest(String build, Random random) {
+        ObjectNode manifest = MAPPER.createObjectNode();
+        manifest.put("version", 1);
+        manifest.put("build", build);
+        manifest.put("start", "2026-01-01T00:00:00");
+        manifest.put("duration_ms", 60_000 + random.nextInt(60_000));
+        ArrayNode scenarios = manifest.putArray("scenarios");
+        int passed = 0;
+        for (int s = 1; s <= SCENARIOS_PER_BUILD; s++) {
+            boolean status = random.nextInt(10) > 0;
+            passed += status ? 1 : 0;
+            ObjectNode scenario = scenarios.addObject();
+            scenario.put("index", s);
+            scenario.put("title", "Scenario " + s + ": log in and check the dashboard");
+            scenario.put("status", status);
+            scenario.put("duration", 5 + random.nextDouble() * 30);
+            ArrayNode screenshots = scenario.putArray("screenshots");
+            for (int k = 0; k < 8; k++) {
+                screenshots.add(blobName(random));
+            }
+        }
+        manifest.put("total", SCENARIOS_PER_BUILD);
+        manifest.put("passed", passed);
+        manifest.put("failed", SCENARIOS_PER_BUILD - passed);
+        return manifest;
+    }
+
+    /**
+     * A result.json of about 6 KB: 12 steps, 8 screenshots and the metrics spans of the run.
+     */
+    static byte[] resultJson(int index, boolean status, Random random) throws IOException {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("title", "Scenario " + index + ": log in and check the dashboard");
+        result.put("status", status);
+        result.put("duration", 5 + random.nextDouble() * 30);
+        result.put("feedback", "All steps were executed against the staging environment. The dashboard loaded with"
+                + " the expected widgets after logging in and the navigation menu responded to every click.");
+        if (status) {
+            result.putNull("fail");
+        } else {
+            ObjectNode fail = result.putArray("fail").addObject();
+            fail.put("num", 7);
+            fail.put("message", "Element 'Save' button was not found in the page snapshot after 3 attempts");
+        }
+        ArrayNode steps = result.putArray("steps");
+        for (int i = 1; i <= 12; i++) {
+            ObjectNode step = steps.addObject();
+            step.put("num", i);
+            step.put("action", "Click the '" + i + "' item in the navigation menu and wait for the page to load");
+            step.put("status", status || i != 7);
+            step.put("duration", random.nextDouble() * 3);
+            step.put("feedback", "The page showed the expected heading and the URL changed accordingly.");
+            step.putNull("fail");
+        }
+        ArrayNode screenshots = result.putArray("screenshots");
+        for (int k = 0; k < 8; k++) {
+            screenshots.add(blobName(random));
+        }
+        ObjectNode metrics = result.putObject("metrics");
+        ArrayNode spans = metrics.putArray("spans");
+        for (int i = 0; i < 36; i++) {
+            ObjectNode span = spans.addObject();
+            switch (i % 3) {
+                case 0:
+                    span.put("type", "llm");
+                    span.put("ms", 400 + random.nextDouble() * 1500);
+                    span.put("input_tokens", 1500 + random.nextInt(3000));
+                    span.put("output_tokens", 50 + random.nextInt(200));
+                    break;
+                case 1:
+                    span.put("type", "tool");
+                    span.put("tool", "browser_click");
+                    span.put("ms", 50 + random.nextDouble() * 400);
+                    span.put("error", false);
+                    break;
+                default:
+                    span.put("type", "screenshot");
+                    span.put("ms", 1 + random.nextDouble() * 5);
+                    break;
+            }
+        }
+        metrics.put("input_tokens", 36_000);
+        metrics.put("output_tokens", 1_800);
+        return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(result);
+    }
+
+    /**
+     * A 1280x720 PNG with page-like content (header, text lines, boxes), about the size of a real screenshot.
+     */
+    static byte[] screenshot(long seed) throws IOException {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 1280, 720);
+            g.setColor(new Color(0x1f3a5f));
+            g.fillRect(0, 0, 1280, 64);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+            for (int y = 100; y < 700; y += 22) {
+                g.setColor(new Color(random.nextInt(0x808080)));
+                g.drawString(Long.toHexString(random.nextLong()) + " lorem ipsum dolor sit amet " + random.nextInt(), 24, y);
+            }
+            for (int i = 0; i < 12; i++) {
+                g.setColor(new Color(random.nextInt(0xffffff)));
+                g.fillRect(700 + random.nextInt(400), 100 + random.nextInt(500), 40 + random.nextInt(150), 20 + random.nextInt(80));
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String blobName(Random random) {
+        StringBuilder name = new StringBuilder(68);
+        for (int i = 0; i < 4; i++) {
+            name.append(String.format("%016x", random.nextLong()));
+        }
+        return name.append(".png").toString();
+    }
+}
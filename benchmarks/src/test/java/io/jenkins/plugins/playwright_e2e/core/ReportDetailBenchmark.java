@@ -0,0 +1,50 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import io.jenkins.plugins.playwright_e2e.extensions.GlobalReportAction;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ReportDetail;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link GlobalReportAction#getReportDetail} over 1k/10k/50k result.json files read in random order, so the share
+ * served from {@link ReportDetailCache} shrinks as the folder count grows, and the bare parse of one result.json.
+ */
+@JmhBenchmark
+public class ReportDetailBenchmark {
+    public static class DetailState extends JmhBenchmarkState {
+        @Param({"1000", "10000", "50000"})
+        int scenarios;
+
+        GlobalReportAction action;
+        int builds;
+        byte[] resultJson;
+
+        @Override
+        public void setup() throws Exception {
+            builds = scenarios / Fixtures.SCENARIOS_PER_BUILD;
+            Fixtures.writeBuilds(ResultsLayout.rootDir(), builds, true);
+            action = new GlobalReportAction();
+            resultJson = Fixtures.resultJson(1, false, new Random(7));
+        }
+    }
+
+    @Benchmark
+    public ReportDetail getReportDetail(DetailState state) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(state.builds);
+        String build = Fixtures.job(i) + "_" + (i / Fixtures.JOBS + 1);
+        return state.action.getReportDetail(build, String.valueOf(1 + random.nextInt(Fixtures.SCENARIOS_PER_BUILD)));
+    }
+
+    @Benchmark
+    public ReportDetail parseResultJson(DetailState state) throws IOException {
+        return ReportDetailCache.parse(new ByteArrayInputStream(state.resultJson));
+    }
+}
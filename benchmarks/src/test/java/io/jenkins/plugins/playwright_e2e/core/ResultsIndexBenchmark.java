@@ -0,0 +1,60 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import io.jenkins.plugins.playwright_e2e.extensions.GlobalReportAction;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildPage;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The build list of the MCP Reports page: {@link GlobalReportAction#getBuilds()}, a page of one job, a cursor page of
+ * the API, and replaying the index log after a restart, over 1k/10k/50k build folders.
+ */
+@JmhBenchmark
+public class ResultsIndexBenchmark {
+    public static class IndexState extends JmhBenchmarkState {
+        @Param({"1000", "10000", "50000"})
+        int builds;
+
+        GlobalReportAction action;
+        File root;
+
+        @Override
+        public void setup() throws Exception {
+            root = ResultsLayout.rootDir();
+            Fixtures.writeBuilds(root, builds, false);
+            action = new GlobalReportAction();
+            // First use scans the folders once and writes the log
+            ResultsIndex.get().all();
+        }
+    }
+
+    @Benchmark
+    public List<BuildEntry> getBuilds(IndexState state) {
+        return state.action.getBuilds();
+    }
+
+    @Benchmark
+    public BuildPage buildPageOfJob(IndexState state) {
+        return state.action.getBuildPage(Fixtures.job(3), "5");
+    }
+
+    @Benchmark
+    public List<BuildEntry> cursorPage(IndexState state) {
+        List<BuildEntry> all = state.action.getBuilds();
+        BuildEntry after = all.get(all.size() / 2);
+        return ResultsIndex.get().after(null, after.getNumber(), after.getDirName(), 50);
+    }
+
+    @Benchmark
+    public ResultsIndex replayLog(IndexState state) {
+        ResultsIndex index = new ResultsIndex(state.root);
+        index.load();
+        return index;
+    }
+}
@@ -0,0 +1,55 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * The screenshot gallery of a report: the cached thumbnail lookup behind /mcp-reports/thumbnail, and generating a
+ * thumbnail from a page-sized PNG. Screenshots are streamed from disk since the data URI inlining was removed, so
+ * the thumbnail is the only per-image work left on the controller.
+ */
+@JmhBenchmark
+public class ScreenshotBenchmark {
+    private static final String BUILD = "bench-job-0_1";
+    private static final String SCENARIO = "1";
+
+    public static class ScreenshotState extends JmhBenchmarkState {
+        File screenshot;
+
+        @Override
+        public void setup() throws Exception {
+            File dir = new File(new File(ResultsLayout.rootDir(), BUILD), SCENARIO);
+            Files.createDirectories(dir.toPath());
+            screenshot = new File(dir, "step_1.png");
+            Files.write(screenshot.toPath(), Fixtures.screenshot(1));
+            Thumbnails.get(screenshot, BUILD, SCENARIO);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Uncached {
+        @Setup(Level.Invocation)
+        public void clear() {
+            Thumbnails.delete(BUILD);
+        }
+    }
+
+    @Benchmark
+    public File cachedThumbnail(ScreenshotState state) throws IOException {
+        return Thumbnails.get(state.screenshot, BUILD, SCENARIO);
+    }
+
+    @Benchmark
+    public File generateThumbnail(ScreenshotState state, Uncached uncached) throws IOException {
+        return Thumbnails.get(state.screenshot, BUILD, SCENARIO);
+    }
+}
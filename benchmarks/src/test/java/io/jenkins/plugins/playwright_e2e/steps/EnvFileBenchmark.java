@@ -0,0 +1,47 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Parsing the .env Secret File of a step ({@link CoreLogicStepExecution#parseEnvFile}) with comments, blank lines
+ * and quoted values.
+ */
+@JmhBenchmark
+public class EnvFileBenchmark {
+    @State(Scope.Benchmark)
+    public static class EnvState {
+        @Param({"10", "100", "1000"})
+        int variables;
+
+        byte[] content;
+
+        @Setup
+        public void setup() {
+            StringBuilder env = new StringBuilder();
+            for (int i = 0; i < variables; i++) {
+                if (i % 10 == 0) {
+                    env.append("# section ").append(i / 10).append('\n').append('\n');
+                }
+                env.append("VARIABLE_").append(i).append(" = ");
+                env.append(i % 3 == 0 ? "\"quoted value " + i + "\"" : "sk-" + Integer.toHexString(i * 7919) + "abcdef0123456789");
+                env.append('\n');
+            }
+            content = env.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parseEnvFile(EnvState state) throws IOException {
+        return CoreLogicStepExecution.parseEnvFile(new ByteArrayInputStream(state.content));
+    }
+}
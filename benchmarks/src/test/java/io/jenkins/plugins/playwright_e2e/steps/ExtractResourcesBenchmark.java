@@ -0,0 +1,58 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * {@link CoreLogicStepExecution#extractResources} into a local folder: the per-build check against the stamp of the
+ * previous extraction, and a full extraction of runtime-resources.tar.gz (built into target/classes by the
+ * package-runtime-resources execution).
+ */
+@JmhBenchmark
+public class ExtractResourcesBenchmark {
+    @State(Scope.Thread)
+    public static class Workspace {
+        FilePath resources;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException, InterruptedException {
+            resources = new FilePath(Files.createTempDirectory("extract-resources").toFile()).child("resources");
+            CoreLogicStepExecution.extractResources(resources, TaskListener.NULL);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, InterruptedException {
+            resources.getParent().deleteRecursive();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Stale {
+        @Setup(Level.Invocation)
+        public void clearStamp(Workspace workspace) throws IOException, InterruptedException {
+            workspace.resources.deleteContents();
+        }
+    }
+
+    @Benchmark
+    public FilePath upToDate(Workspace workspace) throws IOException, InterruptedException {
+        CoreLogicStepExecution.extractResources(workspace.resources, TaskListener.NULL);
+        return workspace.resources;
+    }
+
+    @Benchmark
+    public FilePath fullExtraction(Workspace workspace, Stale stale) throws IOException, InterruptedException {
+        CoreLogicStepExecution.extractResources(workspace.resources, TaskListener.NULL);
+        return workspace.resources;
+    }
+}
@@ -1,30 +1,269 @@
 package io.jenkins.plugins.playwright_e2e.actions;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.AbortException;
 import hudson.model.Run;
 import org.kohsuke.stapler.DataBoundConstructor;
 import jenkins.model.RunAction2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
 
 public class BuildReportAction implements RunAction2 {
+    /** Status while the runner is still executing */
+    public static final String RUNNING = "RUNNING";
+    /** Guards find-or-create of the single action per run when shards finish in parallel branches */
+    private static final Object SHARD_LOCK = new Object();
+
     @SuppressFBWarnings("URF_UNREAD_FIELD")
     private transient Run<?,?> run;
     private final String scriptPath;
-    private final String status;
+    private String status;
     private final long timestamp;
+    /** Lets a step find its action again after a controller restart; null for actions saved by older versions */
+    private final String id;
+    /** Status per shard index; null for unsharded runs */
+    private Map<Integer, String> shardStatuses;
+    /** Created for the shards of {@link #scriptPath}, which share this action */
+    private boolean sharded;
+    private boolean merged;
+    /** Scenarios announced by run_started events (summed over shards) */
+    private int total;
+    /** Live per-scenario progress by global scenario index, from the runner's event stream */
+    private Map<Integer, ScenarioProgress> scenarios;
 
     @DataBoundConstructor
     public BuildReportAction(String scriptPath, String status) {
         this.scriptPath = scriptPath;
         this.status     = status;
         this.timestamp  = System.currentTimeMillis();
+        this.id         = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Looks up the action a step started, e.g. when the step resumes after a controller restart.
+     *
+     * @return the action, or null if it is not attached to the run
+     */
+    public static BuildReportAction find(Run<?,?> run, String id) {
+        for (BuildReportAction action : run.getActions(BuildReportAction.class)) {
+            if (action.id != null && action.id.equals(id)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Attaches the action that receives live progress before the runner starts. The shards of one scenario file
+     * share a single action; every unsharded invocation gets its own.
+     */
+    public static BuildReportAction start(Run<?,?> run, String scriptPath, boolean sharded) throws IOException {
+        BuildReportAction action;
+        synchronized (SHARD_LOCK) {
+            action = sharded ? shardGroup(run, scriptPath, RUNNING) : new BuildReportAction(scriptPath, RUNNING);
+            if (!sharded) {
+                run.addAction(action);
+            }
+        }
+        run.save();
+        return action;
+    }
+
+    /**
+     * The action shared by the shards of {@code scriptPath}, created with {@code initialStatus} on first use. Never
+     * an unsharded run's action, nor the group of another scenario file. Callers hold {@link #SHARD_LOCK}.
+     */
+    private static BuildReportAction shardGroup(Run<?,?> run, String scriptPath, String initialStatus) {
+        for (BuildReportAction action : run.getActions(BuildReportAction.class)) {
+            if ((action.sharded || action.shardStatuses != null) && Objects.equals(action.scriptPath, scriptPath)) {
+                return action;
+            }
+        }
+        BuildReportAction action = new BuildReportAction(scriptPath, initialStatus);
+        action.sharded = true;
+        run.addAction(action);
+        return action;
+    }
+
+    /**
+     * Sets the final status of an unsharded run.
+     */
+    public void finish(Run<?,?> run, String finalStatus) throws IOException {
+        synchronized (this) {
+            status = finalStatus;
+            if (scenarios != null) {
+                // Scenarios cut off by a crash or abort never reported scenario_finished
+                scenarios.values().stream().filter(ScenarioProgress::isRunning).forEach(p -> p.finished(false, p.getElapsedMs()));
+            }
+        }
+        run.save();
+    }
+
+    /**
+     * Records the outcome of one shard on the action shared by the shards of {@code scriptPath}, creating it on first
+     * use. The group stays {@link #RUNNING} until all {@code shardCount} shards have reported or the merge finalizes it.
+     */
+    public static BuildReportAction recordShard(Run<?,?> run, String scriptPath, int shardIndex, int shardCount, String shardStatus) throws IOException {
+        BuildReportAction action;
+        synchronized (SHARD_LOCK) {
+            action = shardGroup(run, scriptPath, RUNNING);
+            action.putShard(shardIndex, shardCount, shardStatus);
+        }
+        run.save();
+        return action;
+    }
+
+    /**
+     * Finalizes a sharded run after the merge stage. The run fails if any shard failed,
+     * fewer than {@code expectedShards} shards reported (when given) or the merge itself failed.
+     * Without a {@code scriptPath} the run's only shard group is finalized.
+     *
+     * @throws AbortException if no {@code scriptPath} is given and the run has shard groups of several scenario files
+     */
+    public static BuildReportAction recordMerge(Run<?,?> run, String scriptPath, int expectedShards, boolean mergeSucceeded) throws IOException {
+        BuildReportAction action;
+        synchronized (SHARD_LOCK) {
+            action = scriptPath == null || scriptPath.isEmpty() ? onlyShardGroup(run) : null;
+            if (action == null) {
+                action = shardGroup(run, scriptPath, "FAIL");
+            }
+            action.finishMerge(expectedShards, mergeSucceeded);
+        }
+        run.save();
+        return action;
+    }
+
+    /**
+     * The run's single shard group, or null if it has none.
+     *
+     * @throws AbortException if it has shard groups of several scenario files
+     */
+    private static BuildReportAction onlyShardGroup(Run<?,?> run) throws AbortException {
+        BuildReportAction group = null;
+        for (BuildReportAction action : run.getActions(BuildReportAction.class)) {
+            if (action.sharded || action.shardStatuses != null) {
+                if (group != null) {
+                    throw new AbortException("This build ran shards of several scenario files ("
+                            + group.scriptPath + ", " + action.scriptPath + "); set scriptPath on playwrightE2EMerge.");
+                }
+                group = action;
+            }
+        }
+        return group;
+    }
+
+    private synchronized void putShard(int shardIndex, int shardCount, String shardStatus) {
+        if (shardStatuses == null) {
+            shardStatuses = new TreeMap<>();
+        }
+        shardStatuses.put(shardIndex, shardStatus);
+        if (merged) {
+            return;
+        }
+        // Siblings may still be running; the status is final once all have reported or the merge ran
+        if (shardCount > 0 && shardStatuses.size() >= shardCount) {
+            status = shardStatuses.containsValue("FAIL") ? "FAIL" : "SUCCESS";
+        } else {
+            status = RUNNING;
+        }
+    }
+
+    private synchronized void finishMerge(int expectedShards, boolean mergeSucceeded) {
+        int reported = shardStatuses != null ? shardStatuses.size() : 0;
+        boolean complete = expectedShards <= 0 || reported >= expectedShards;
+        if (!mergeSucceeded || !complete || reported == 0 || shardStatuses.containsValue("FAIL")) {
+            status = "FAIL";
+        } else {
+            status = "SUCCESS";
+        }
+        merged = true;
+    }
+
+    // ── Live progress, applied by the step while it tails the runner's events ──
+
+    public synchronized void runStarted(int scenarioCount) {
+        total += scenarioCount;
+    }
+
+    public synchronized void scenarioStarted(int index, String title, long ts) {
+        scenario(index).started(title, ts);
+    }
+
+    public synchronized void scenarioFinished(int index, boolean passed, long durationMs) {
+        scenario(index).finished(passed, durationMs);
+    }
+
+    public synchronized void stepResult(int index, boolean passed) {
+        scenario(index).step(passed);
+    }
+
+    public synchronized void screenshotSaved(int index) {
+        scenario(index).screenshot();
+    }
+
+    public synchronized void llmCall(int index, long ms, long inputTokens, long outputTokens) {
+        scenario(index).llmCall(ms, inputTokens, outputTokens);
+    }
+
+    public synchronized void toolCall(int index, long ms) {
+        scenario(index).toolCall(ms);
+    }
+
+    private ScenarioProgress scenario(int index) {
+        if (scenarios == null) {
+            scenarios = new TreeMap<>();
+        }
+        return scenarios.computeIfAbsent(index, ScenarioProgress::new);
+    }
+
+    public synchronized int getTotal() {
+        return Math.max(total, scenarios != null ? scenarios.size() : 0);
+    }
+
+    public synchronized List<ScenarioProgress> getScenarios() {
+        return scenarios != null ? new ArrayList<>(scenarios.values()) : Collections.emptyList();
+    }
+
+    public synchronized int getFinished() {
+        return count(ScenarioProgress.PASSED) + count(ScenarioProgress.FAILED);
+    }
+
+    public synchronized int getPassed() {
+        return count(ScenarioProgress.PASSED);
+    }
+
+    public synchronized int getFailed() {
+        return count(ScenarioProgress.FAILED);
+    }
+
+    public synchronized boolean isRunning() {
+        return RUNNING.equals(status);
+    }
+
+    private int count(String scenarioStatus) {
+        if (scenarios == null) {
+            return 0;
+        }
+        return (int) scenarios.values().stream().filter(p -> scenarioStatus.equals(p.getStatus())).count();
+    }
+
+    public String getId() {
+        return id;
     }
 
     public String getScriptPath() {
         return scriptPath;
     }
 
-    public String getStatus() {
+    public synchronized String getStatus() {
         return status;
     }
 
@@ -32,6 +271,14 @@ public class BuildReportAction implements RunAction2 {
         return new Date(timestamp);
     }
 
+    public synchronized Map<Integer, String> getShardStatuses() {
+        return shardStatuses != null ? Collections.unmodifiableMap(new TreeMap<>(shardStatuses)) : Collections.emptyMap();
+    }
+
+    public synchronized boolean isMerged() {
+        return merged;
+    }
+
     @Override
     public String getIconFileName() {
         return null; // hidden in UI
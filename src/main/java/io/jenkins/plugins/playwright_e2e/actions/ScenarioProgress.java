@@ -0,0 +1,94 @@
+package io.jenkins.plugins.playwright_e2e.actions;
+
+/**
+ * Live state of one scenario, fed by the runner's event stream. Instances are guarded by the owning
+ * {@link BuildReportAction}.
+ */
+public class ScenarioProgress {
+    public static final String RUNNING = "RUNNING";
+    public static final String PASSED = "PASSED";
+    public static final String FAILED = "FAILED";
+
+    private final int index;
+    private String title;
+    private String status = RUNNING;
+    private long startedAt;
+    private long durationMs;
+    private int stepsPassed;
+    private int stepsFailed;
+    private int screenshots;
+    private int llmCalls;
+    private long llmMs;
+    private long inputTokens;
+    private long outputTokens;
+    private int toolCalls;
+    private long toolMs;
+
+    ScenarioProgress(int index) {
+        this.index = index;
+    }
+
+    void started(String title, long ts) {
+        this.title = title;
+        this.startedAt = ts;
+        this.status = RUNNING;
+    }
+
+    void finished(boolean passed, long durationMs) {
+        this.status = passed ? PASSED : FAILED;
+        this.durationMs = durationMs;
+    }
+
+    void step(boolean passed) {
+        if (passed) {
+            stepsPassed++;
+        } else {
+            stepsFailed++;
+        }
+    }
+
+    void screenshot() {
+        screenshots++;
+    }
+
+    void llmCall(long ms, long inputTokens, long outputTokens) {
+        llmCalls++;
+        llmMs += ms;
+        this.inputTokens += inputTokens;
+        this.outputTokens += outputTokens;
+    }
+
+    void toolCall(long ms) {
+        toolCalls++;
+        toolMs += ms;
+    }
+
+    public int getIndex() { return index; }
+    public String getTitle() { return title; }
+    public String getStatus() { return status; }
+    public long getStartedAt() { return startedAt; }
+    public long getDurationMs() { return durationMs; }
+    public int getStepsPassed() { return stepsPassed; }
+    public int getStepsFailed() { return stepsFailed; }
+    public int getScreenshots() { return screenshots; }
+    public int getLlmCalls() { return llmCalls; }
+    public long getLlmMs() { return llmMs; }
+    public long getInputTokens() { return inputTokens; }
+    public long getOutputTokens() { return outputTokens; }
+    public int getToolCalls() { return toolCalls; }
+    public long getToolMs() { return toolMs; }
+
+    /**
+     * Elapsed time so far for running scenarios, the final duration otherwise.
+     */
+    public long getElapsedMs() {
+        if (RUNNING.equals(status) && startedAt > 0) {
+            return Math.max(0, System.currentTimeMillis() - startedAt);
+        }
+        return durationMs;
+    }
+
+    public boolean isRunning() {
+        return RUNNING.equals(status);
+    }
+}
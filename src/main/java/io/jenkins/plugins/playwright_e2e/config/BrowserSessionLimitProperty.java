@@ -0,0 +1,57 @@
+package io.jenkins.plugins.playwright_e2e.config;
+
+import hudson.Extension;
+import hudson.model.Node;
+import hudson.slaves.NodeProperty;
+import hudson.slaves.NodePropertyDescriptor;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Per-node override of the concurrent browser session limit in {@link PlaywrightE2EConfiguration}, set in the node's
+ * configuration (or under Manage Jenkins &gt; System for the built-in node). Only an explicit limit overrides: left
+ * empty, the node keeps following the global one.
+ */
+public class BrowserSessionLimitProperty extends NodeProperty<Node> {
+    /** Null to inherit the global limit, 0 for no limit */
+    private Integer maxSessions;
+
+    @DataBoundConstructor
+    public BrowserSessionLimitProperty() {
+    }
+
+    public Integer getMaxSessions() {
+        return maxSessions;
+    }
+
+    @DataBoundSetter
+    public void setMaxSessions(Integer maxSessions) {
+        this.maxSessions = maxSessions == null || maxSessions < 0 ? null : maxSessions;
+    }
+
+    /**
+     * Concurrent browser sessions allowed on the node named {@code nodeName} ("" for the built-in node), 0 for no
+     * limit.
+     */
+    public static int maxSessions(String nodeName) {
+        Jenkins jenkins = Jenkins.get();
+        Node node = nodeName == null || nodeName.isEmpty() ? jenkins : jenkins.getNode(nodeName);
+        BrowserSessionLimitProperty property = node != null ? node.getNodeProperty(BrowserSessionLimitProperty.class) : null;
+        if (property != null && property.getMaxSessions() != null) {
+            return property.getMaxSessions();
+        }
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        return config != null ? config.getMaxBrowserSessionsPerNode() : 0;
+    }
+
+    @Extension
+    @Symbol("playwrightE2EBrowserSessions")
+    public static class DescriptorImpl extends NodePropertyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "Limit concurrent Playwright E2E browser sessions";
+        }
+    }
+}
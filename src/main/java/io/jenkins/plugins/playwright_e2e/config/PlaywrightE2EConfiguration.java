@@ -0,0 +1,226 @@
+package io.jenkins.plugins.playwright_e2e.config;
+
+import hudson.Extension;
+import jenkins.model.GlobalConfiguration;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Global settings of the Playwright E2E plugin (Manage Jenkins &gt; System).
+ */
+@Extension
+@Symbol("playwrightE2E")
+public class PlaywrightE2EConfiguration extends GlobalConfiguration {
+    public static final long DEFAULT_REPORT_CACHE_MAX_SIZE_MB = 64;
+    public static final int DEFAULT_COMPACT_RESULTS_AFTER_DAYS = 30;
+    public static final long DEFAULT_LLM_CACHE_MAX_SIZE_MB = 64;
+    public static final int DEFAULT_PYTHON_WORKER_POOL_SIZE = 2;
+    public static final int DEFAULT_PYTHON_WORKER_TIMEOUT_SECONDS = 120;
+    public static final int DEFAULT_PYTHON_WORKER_MAX_REQUESTS = 100;
+    public static final int DEFAULT_MCP_DAEMON_BROWSERS = 2;
+    public static final int DEFAULT_MCP_DAEMON_MAX_USES = 50;
+    public static final int DEFAULT_MCP_DAEMON_MAX_MEMORY_MB = 1024;
+    public static final int DEFAULT_MCP_DAEMON_IDLE_MINUTES = 30;
+    public static final int DEFAULT_SNAPSHOT_TOKEN_BUDGET = 4000;
+
+    /** Reuse .venv, node_modules and browsers across builds on the same node */
+    private boolean toolchainCacheEnabled = true;
+    /** Size cap of the toolchain cache per node; least recently used entries are evicted beyond it */
+    private long toolchainCacheMaxSizeMb = 20 * 1024;
+    /** Size cap of the per-node cache of LLM-parsed TypeScript steps and element resolutions, 0 disables it */
+    private long llmCacheMaxSizeMb = DEFAULT_LLM_CACHE_MAX_SIZE_MB;
+    /** Memory bound of the parsed result.json cache on the controller, 0 disables it */
+    private long reportCacheMaxSizeMb = DEFAULT_REPORT_CACHE_MAX_SIZE_MB;
+    /** Delete a build's results when the build itself is deleted or discarded */
+    private boolean deleteResultsOfDiscardedBuilds = true;
+    /** Pack published results older than this into a single archive, 0 disables compaction */
+    private int compactResultsAfterDays = DEFAULT_COMPACT_RESULTS_AFTER_DAYS;
+    /** Long-lived Python workers serving CoreLogic on the controller */
+    private int pythonWorkerPoolSize = DEFAULT_PYTHON_WORKER_POOL_SIZE;
+    /** A request running longer than this kills its worker */
+    private int pythonWorkerTimeoutSeconds = DEFAULT_PYTHON_WORKER_TIMEOUT_SECONDS;
+    /** Workers are replaced after serving this many requests */
+    private int pythonWorkerMaxRequests = DEFAULT_PYTHON_WORKER_MAX_REQUESTS;
+    /** Python runs use a warm MCP server and browser pool kept per node instead of starting their own */
+    private boolean mcpDaemonEnabled;
+    /** Browsers the daemon keeps launched */
+    private int mcpDaemonBrowsers = DEFAULT_MCP_DAEMON_BROWSERS;
+    /** A browser is replaced after this many sessions */
+    private int mcpDaemonMaxUses = DEFAULT_MCP_DAEMON_MAX_USES;
+    /** A browser is replaced once its processes use more memory than this, 0 disables the check */
+    private int mcpDaemonMaxMemoryMb = DEFAULT_MCP_DAEMON_MAX_MEMORY_MB;
+    /** The daemon exits after this long without sessions */
+    private int mcpDaemonIdleMinutes = DEFAULT_MCP_DAEMON_IDLE_MINUTES;
+    /** Estimated tokens a page snapshot may take in one LLM call, 0 = unlimited */
+    private int snapshotTokenBudget = DEFAULT_SNAPSHOT_TOKEN_BUDGET;
+    /** Concurrent browser sessions per node unless the node sets its own limit, 0 = unlimited */
+    private int maxBrowserSessionsPerNode;
+
+    public PlaywrightE2EConfiguration() {
+        load();
+    }
+
+    public static PlaywrightE2EConfiguration get() {
+        return GlobalConfiguration.all().get(PlaywrightE2EConfiguration.class);
+    }
+
+    public boolean isToolchainCacheEnabled() {
+        return toolchainCacheEnabled;
+    }
+
+    @DataBoundSetter
+    public void setToolchainCacheEnabled(boolean toolchainCacheEnabled) {
+        this.toolchainCacheEnabled = toolchainCacheEnabled;
+        save();
+    }
+
+    public long getToolchainCacheMaxSizeMb() {
+        return toolchainCacheMaxSizeMb;
+    }
+
+    @DataBoundSetter
+    public void setToolchainCacheMaxSizeMb(long toolchainCacheMaxSizeMb) {
+        this.toolchainCacheMaxSizeMb = Math.max(0, toolchainCacheMaxSizeMb);
+        save();
+    }
+
+    public long getLlmCacheMaxSizeMb() {
+        return llmCacheMaxSizeMb;
+    }
+
+    @DataBoundSetter
+    public void setLlmCacheMaxSizeMb(long llmCacheMaxSizeMb) {
+        this.llmCacheMaxSizeMb = Math.max(0, llmCacheMaxSizeMb);
+        save();
+    }
+
+    public long getReportCacheMaxSizeMb() {
+        return reportCacheMaxSizeMb;
+    }
+
+    @DataBoundSetter
+    public void setReportCacheMaxSizeMb(long reportCacheMaxSizeMb) {
+        this.reportCacheMaxSizeMb = Math.max(0, reportCacheMaxSizeMb);
+        save();
+    }
+
+    public boolean isDeleteResultsOfDiscardedBuilds() {
+        return deleteResultsOfDiscardedBuilds;
+    }
+
+    @DataBoundSetter
+    public void setDeleteResultsOfDiscardedBuilds(boolean deleteResultsOfDiscardedBuilds) {
+        this.deleteResultsOfDiscardedBuilds = deleteResultsOfDiscardedBuilds;
+        save();
+    }
+
+    public int getCompactResultsAfterDays() {
+        return compactResultsAfterDays;
+    }
+
+    @DataBoundSetter
+    public void setCompactResultsAfterDays(int compactResultsAfterDays) {
+        this.compactResultsAfterDays = Math.max(0, compactResultsAfterDays);
+        save();
+    }
+
+    public int getPythonWorkerPoolSize() {
+        return pythonWorkerPoolSize;
+    }
+
+    @DataBoundSetter
+    public void setPythonWorkerPoolSize(int pythonWorkerPoolSize) {
+        this.pythonWorkerPoolSize = Math.max(1, pythonWorkerPoolSize);
+        save();
+    }
+
+    public int getPythonWorkerTimeoutSeconds() {
+        return pythonWorkerTimeoutSeconds;
+    }
+
+    @DataBoundSetter
+    public void setPythonWorkerTimeoutSeconds(int pythonWorkerTimeoutSeconds) {
+        this.pythonWorkerTimeoutSeconds = Math.max(1, pythonWorkerTimeoutSeconds);
+        save();
+    }
+
+    public int getPythonWorkerMaxRequests() {
+        return pythonWorkerMaxRequests;
+    }
+
+    @DataBoundSetter
+    public void setPythonWorkerMaxRequests(int pythonWorkerMaxRequests) {
+        this.pythonWorkerMaxRequests = Math.max(1, pythonWorkerMaxRequests);
+        save();
+    }
+
+    public boolean isMcpDaemonEnabled() {
+        return mcpDaemonEnabled;
+    }
+
+    @DataBoundSetter
+    public void setMcpDaemonEnabled(boolean mcpDaemonEnabled) {
+        this.mcpDaemonEnabled = mcpDaemonEnabled;
+        save();
+    }
+
+    public int getMcpDaemonBrowsers() {
+        return mcpDaemonBrowsers;
+    }
+
+    @DataBoundSetter
+    public void setMcpDaemonBrowsers(int mcpDaemonBrowsers) {
+        this.mcpDaemonBrowsers = Math.max(1, mcpDaemonBrowsers);
+        save();
+    }
+
+    public int getMcpDaemonMaxUses() {
+        return mcpDaemonMaxUses;
+    }
+
+    @DataBoundSetter
+    public void setMcpDaemonMaxUses(int mcpDaemonMaxUses) {
+        this.mcpDaemonMaxUses = Math.max(1, mcpDaemonMaxUses);
+        save();
+    }
+
+    public int getMcpDaemonMaxMemoryMb() {
+        return mcpDaemonMaxMemoryMb;
+    }
+
+    @DataBoundSetter
+    public void setMcpDaemonMaxMemoryMb(int mcpDaemonMaxMemoryMb) {
+        this.mcpDaemonMaxMemoryMb = Math.max(0, mcpDaemonMaxMemoryMb);
+        save();
+    }
+
+    public int getMcpDaemonIdleMinutes() {
+        return mcpDaemonIdleMinutes;
+    }
+
+    @DataBoundSetter
+    public void setMcpDaemonIdleMinutes(int mcpDaemonIdleMinutes) {
+        this.mcpDaemonIdleMinutes = Math.max(1, mcpDaemonIdleMinutes);
+        save();
+    }
+
+    public int getSnapshotTokenBudget() {
+        return snapshotTokenBudget;
+    }
+
+    @DataBoundSetter
+    public void setSnapshotTokenBudget(int snapshotTokenBudget) {
+        this.snapshotTokenBudget = Math.max(0, snapshotTokenBudget);
+        save();
+    }
+
+    public int getMaxBrowserSessionsPerNode() {
+        return maxBrowserSessionsPerNode;
+    }
+
+    @DataBoundSetter
+    public void setMaxBrowserSessionsPerNode(int maxBrowserSessionsPerNode) {
+        this.maxBrowserSessionsPerNode = Math.max(0, maxBrowserSessionsPerNode);
+        save();
+    }
+}
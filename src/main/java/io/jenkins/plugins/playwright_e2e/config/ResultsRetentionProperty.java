@@ -0,0 +1,88 @@
+package io.jenkins.plugins.playwright_e2e.config;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Per-job override of the results retention settings in {@link PlaywrightE2EConfiguration}.
+ * <pre>
+ * properties([playwrightE2ERetention(deleteResultsOfDiscardedBuilds: false, compactAfterDays: 7)])
+ * </pre>
+ */
+public class ResultsRetentionProperty extends JobProperty<Job<?, ?>> {
+    private boolean deleteResultsOfDiscardedBuilds = true;
+    private int compactAfterDays = PlaywrightE2EConfiguration.DEFAULT_COMPACT_RESULTS_AFTER_DAYS;
+
+    @DataBoundConstructor
+    public ResultsRetentionProperty() {
+    }
+
+    public boolean isDeleteResultsOfDiscardedBuilds() {
+        return deleteResultsOfDiscardedBuilds;
+    }
+
+    @DataBoundSetter
+    public void setDeleteResultsOfDiscardedBuilds(boolean deleteResultsOfDiscardedBuilds) {
+        this.deleteResultsOfDiscardedBuilds = deleteResultsOfDiscardedBuilds;
+    }
+
+    public int getCompactAfterDays() {
+        return compactAfterDays;
+    }
+
+    @DataBoundSetter
+    public void setCompactAfterDays(int compactAfterDays) {
+        this.compactAfterDays = Math.max(0, compactAfterDays);
+    }
+
+    /**
+     * Whether the results of a deleted build of {@code job} are deleted too. {@code job} is null for results of a
+     * job that no longer exists, which follow the global setting.
+     */
+    public static boolean deleteResultsOfDiscardedBuilds(Job<?, ?> job) {
+        ResultsRetentionProperty property = job != null ? job.getProperty(ResultsRetentionProperty.class) : null;
+        if (property != null) {
+            return property.isDeleteResultsOfDiscardedBuilds();
+        }
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        return config == null || config.isDeleteResultsOfDiscardedBuilds();
+    }
+
+    /**
+     * Age in days after which results of {@code job} are compacted, 0 for never.
+     */
+    public static int compactAfterDays(Job<?, ?> job) {
+        ResultsRetentionProperty property = job != null ? job.getProperty(ResultsRetentionProperty.class) : null;
+        if (property != null) {
+            return property.getCompactAfterDays();
+        }
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        return config != null ? config.getCompactResultsAfterDays() : PlaywrightE2EConfiguration.DEFAULT_COMPACT_RESULTS_AFTER_DAYS;
+    }
+
+    @Extension
+    @Symbol("playwrightE2ERetention")
+    public static class DescriptorImpl extends JobPropertyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "Playwright E2E results retention";
+        }
+
+        @Override
+        public JobProperty<?> newInstance(StaplerRequest req, JSONObject formData) throws FormException {
+            // Only configured when the override block is checked
+            JSONObject block = formData != null ? formData.optJSONObject("overrideRetention") : null;
+            if (block == null || block.isNullObject()) {
+                return null;
+            }
+            return req.bindJSON(ResultsRetentionProperty.class, block);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import jenkins.util.Timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed screenshot store under {@code results/.blobs/<aa>/<sha256>.png}, written by results_store.py.
+ * <p>
+ * result.json and manifest.json reference screenshots by blob name, so identical screenshots across scenarios and
+ * builds are stored once. Blobs that no build references any more are removed by a mark-and-sweep
+ * {@link #gc() collection}, scheduled whenever build results are deleted. Blobs younger than {@link #GRACE_MILLIS}
+ * are never swept, because a running build writes its blobs before its results reference them.
+ */
+public final class BlobStore {
+    private static final Logger LOGGER = Logger.getLogger(BlobStore.class.getName());
+    static final String DIR_NAME = ".blobs";
+    private static final Pattern BLOB_NAME = Pattern.compile("^[0-9a-f]{64}\\.png$");
+    /** results_store.py refreshes the mtime of a reused blob, so this bounds the time between write and reference */
+    static final long GRACE_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** A collection is pending or running; further requests are coalesced into it */
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    private BlobStore() { }
+
+    public static File dir() {
+        return new File(ResultsLayout.rootDir(), DIR_NAME);
+    }
+
+    public static boolean isBlobName(String name) {
+        return name != null && BLOB_NAME.matcher(name).matches();
+    }
+
+    /**
+     * @return the blob file for a validated blob name, or null for names that are not blob references
+     */
+    public static File resolve(String name) {
+        if (!isBlobName(name)) {
+            return null;
+        }
+        return new File(new File(dir(), name.substring(0, 2)), name);
+    }
+
+    /**
+     * Schedules a collection on the Jenkins timer unless one is already pending.
+     */
+    public static void scheduleGc() {
+        if (!SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        Timer.get().schedule(() -> {
+            try {
+                gc();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Screenshot blob collection failed", e);
+            } finally {
+                SCHEDULED.set(false);
+            }
+        }, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Mark: every blob referenced by a manifest (or by result.json where there is no manifest yet, including staging
+     * folders of running builds). Sweep: every unreferenced blob older than the grace period.
+     *
+     * @return number of removed blobs
+     */
+    public static int gc() {
+        File root = ResultsLayout.rootDir();
+        File blobs = dir();
+        if (!blobs.isDirectory()) {
+            return 0;
+        }
+        Set<String> live = new HashSet<>();
+        File[] buildDirs = root.listFiles(File::isDirectory);
+        if (buildDirs != null) {
+            for (File buildDir : buildDirs) {
+                String name = buildDir.getName();
+                if (name.equals(".staging")) {
+                    File[] staged = buildDir.listFiles(File::isDirectory);
+                    if (staged != null) {
+                        for (File dir : staged) {
+                            markResults(dir, live);
+                        }
+                    }
+                } else if (!name.startsWith(".")) {
+                    markBuild(buildDir, live);
+                }
+            }
+        }
+
+        long cutoff = System.currentTimeMillis() - GRACE_MILLIS;
+        int removed = 0;
+        File[] prefixes = blobs.listFiles(File::isDirectory);
+        if (prefixes == null) {
+            return 0;
+        }
+        for (File prefix : prefixes) {
+            File[] files = prefix.listFiles(File::isFile);
+            if (files == null) {
+                continue;
+            }
+            for (File blob : files) {
+                if (live.contains(blob.getName()) || blob.lastModified() > cutoff) {
+                    continue;
+                }
+                if (blob.delete()) {
+                    removed++;
+                    Thumbnails.deleteBlob(blob.getName());
+                }
+            }
+            String[] left = prefix.list();
+            if (left != null && left.length == 0) {
+                prefix.delete();
+            }
+        }
+        LOGGER.log(Level.INFO, "Screenshot blob collection removed {0} blob(s), {1} referenced",
+                new Object[]{removed, live.size()});
+        return removed;
+    }
+
+    private static void markBuild(File buildDir, Set<String> live) {
+        try {
+            BuildManifest manifest = BuildManifest.read(buildDir);
+            if (manifest != null) {
+                for (BuildManifest.ScenarioSummary scenario : manifest.getScenarios()) {
+                    mark(scenario.getScreenshots(), live);
+                }
+                return;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unreadable manifest in " + buildDir + ", reading result.json files", e);
+        }
+        markResults(buildDir, live);
+    }
+
+    private static void markResults(File dir, Set<String> live) {
+        File[] scenarioDirs = dir.listFiles(f -> f.isDirectory() && f.getName().matches("\\d+"));
+        if (scenarioDirs == null) {
+            return;
+        }
+        for (File scenarioDir : scenarioDirs) {
+            File result = new File(scenarioDir, "result.json");
+            if (!result.isFile()) {
+                continue;
+            }
+            try {
+                for (JsonNode shot : MAPPER.readTree(result).path("screenshots")) {
+                    if (isBlobName(shot.asText())) {
+                        live.add(shot.asText());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Unreadable result.json: " + result, e);
+            }
+        }
+    }
+
+    private static void mark(Iterable<String> names, Set<String> live) {
+        for (String name : names) {
+            if (isBlobName(name)) {
+                live.add(name);
+            }
+        }
+    }
+}
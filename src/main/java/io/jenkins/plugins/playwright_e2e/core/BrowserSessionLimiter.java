@@ -0,0 +1,213 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.model.Run;
+import io.jenkins.plugins.playwright_e2e.config.BrowserSessionLimitProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Caps the browser sessions running at the same time on each node ({@link BrowserSessionLimitProperty#maxSessions}).
+ * <p>
+ * Steps poll {@link #tryAcquire} until it grants their sessions, so waiting holds no thread. Each node has a strict
+ * first-come, first-served queue: only the step at its head is admitted, and only once its sessions fit, so a large
+ * step is not starved by smaller ones arriving later. A step asking for more sessions than the limit runs alone
+ * with the whole limit. Waiting steps that stop polling leave the queue after {@link #WAITER_TIMEOUT_MILLIS}, and
+ * while a step is blocked, sessions of builds that are no longer running are reclaimed (at most every
+ * {@link #RECLAIM_INTERVAL_MILLIS} per node), so a lost release cannot block a node for good.
+ * <p>
+ * The state lives in controller memory. After a restart, steps whose runner is already running register their
+ * sessions again through {@link #hold} and steps still waiting queue up again.
+ */
+public final class BrowserSessionLimiter {
+    private static final Logger LOGGER = Logger.getLogger(BrowserSessionLimiter.class.getName());
+    static final long WAITER_TIMEOUT_MILLIS = 60_000;
+    static final long RECLAIM_INTERVAL_MILLIS = 30_000;
+
+    private static final BrowserSessionLimiter INSTANCE = new BrowserSessionLimiter();
+
+    private final Map<String, NodeSessions> nodes = new HashMap<>();
+
+    private BrowserSessionLimiter() {
+    }
+
+    public static BrowserSessionLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Grants {@code sessions} on {@code node} to {@code ticket} if it is first in line and they fit, and queues it
+     * otherwise. Calling it again for a granted ticket grants it again without taking more sessions.
+     *
+     * @param runId {@link Run#getExternalizableId()} of the requesting build
+     */
+    public Status tryAcquire(String node, String ticket, String runId, int sessions) {
+        int limit = BrowserSessionLimitProperty.maxSessions(node);
+        Status status = attempt(node, ticket, runId, sessions, limit);
+        if (status.isGranted()) {
+            return status;
+        }
+        Map<String, String> holders = holdersToCheck(node);
+        if (holders.isEmpty()) {
+            return status;
+        }
+        // Looked up outside the monitor: this may load builds from disk
+        Set<String> dead = new HashSet<>();
+        for (Map.Entry<String, String> holder : holders.entrySet()) {
+            Run<?, ?> run = holder.getValue() != null ? Run.fromExternalizableId(holder.getValue()) : null;
+            if (run == null || !run.isBuilding()) {
+                dead.add(holder.getKey());
+            }
+        }
+        if (dead.isEmpty()) {
+            return status;
+        }
+        reclaim(node, dead);
+        return attempt(node, ticket, runId, sessions, limit);
+    }
+
+    private synchronized Status attempt(String node, String ticket, String runId, int sessions, int limit) {
+        NodeSessions state = nodes.computeIfAbsent(node, n -> new NodeSessions());
+        long now = System.currentTimeMillis();
+        state.queue.removeIf(w -> now - w.lastPoll > WAITER_TIMEOUT_MILLIS);
+        Holder holder = state.holders.get(ticket);
+        if (holder != null) {
+            return new Status(true, 0, state.inUse(), limit);
+        }
+        Waiter waiter = null;
+        for (Waiter w : state.queue) {
+            if (w.ticket.equals(ticket)) {
+                waiter = w;
+                break;
+            }
+        }
+        if (waiter == null) {
+            waiter = new Waiter(ticket);
+            state.queue.add(waiter);
+        }
+        waiter.lastPoll = now;
+        int needed = limit > 0 ? Math.min(Math.max(1, sessions), limit) : Math.max(1, sessions);
+        if (state.queue.get(0) == waiter && (limit <= 0 || state.inUse() + needed <= limit)) {
+            state.queue.remove(0);
+            state.holders.put(ticket, new Holder(runId, needed));
+            return new Status(true, 0, state.inUse(), limit);
+        }
+        return new Status(false, state.queue.indexOf(waiter) + 1, state.inUse(), limit);
+    }
+
+    /**
+     * Ticket and run id of every holder on {@code node}, once per {@link #RECLAIM_INTERVAL_MILLIS}; empty otherwise.
+     */
+    private synchronized Map<String, String> holdersToCheck(String node) {
+        NodeSessions state = nodes.get(node);
+        long now = System.currentTimeMillis();
+        if (state == null || state.holders.isEmpty() || now - state.lastReclaim < RECLAIM_INTERVAL_MILLIS) {
+            return Map.of();
+        }
+        state.lastReclaim = now;
+        Map<String, String> holders = new HashMap<>();
+        state.holders.forEach((ticket, holder) -> holders.put(ticket, holder.runId));
+        return holders;
+    }
+
+    private synchronized void reclaim(String node, Set<String> tickets) {
+        NodeSessions state = nodes.get(node);
+        if (state == null) {
+            return;
+        }
+        for (String ticket : tickets) {
+            Holder holder = state.holders.remove(ticket);
+            if (holder != null) {
+                LOGGER.fine(() -> "Reclaiming browser sessions of " + holder.runId + ", which is no longer running");
+            }
+        }
+    }
+
+    /**
+     * Registers sessions already in use, for a runner that was started before a controller restart. The limit is
+     * not checked: the browsers are running anyway.
+     */
+    public synchronized void hold(String node, String ticket, String runId, int sessions) {
+        NodeSessions state = nodes.computeIfAbsent(node, n -> new NodeSessions());
+        state.queue.removeIf(w -> w.ticket.equals(ticket));
+        state.holders.putIfAbsent(ticket, new Holder(runId, Math.max(1, sessions)));
+    }
+
+    /**
+     * Gives back the sessions of {@code ticket}, or takes it out of the queue if it was still waiting.
+     */
+    public synchronized void release(String ticket) {
+        for (Iterator<NodeSessions> it = nodes.values().iterator(); it.hasNext(); ) {
+            NodeSessions state = it.next();
+            state.holders.remove(ticket);
+            state.queue.removeIf(w -> w.ticket.equals(ticket));
+            if (state.holders.isEmpty() && state.queue.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Result of {@link #tryAcquire}.
+     */
+    public static final class Status {
+        private final boolean granted;
+        private final int position;
+        private final int inUse;
+        private final int limit;
+
+        Status(boolean granted, int position, int inUse, int limit) {
+            this.granted = granted;
+            this.position = position;
+            this.inUse = inUse;
+            this.limit = limit;
+        }
+
+        public boolean isGranted() { return granted; }
+        /** 1-based position in the node's queue, 0 once granted */
+        public int getPosition() { return position; }
+        /** Sessions in use on the node, including this ticket's once granted */
+        public int getInUse() { return inUse; }
+        /** The node's limit, 0 for none */
+        public int getLimit() { return limit; }
+    }
+
+    private static final class NodeSessions {
+        final Map<String, Holder> holders = new HashMap<>();
+        final List<Waiter> queue = new ArrayList<>();
+        long lastReclaim;
+
+        int inUse() {
+            int sum = 0;
+            for (Holder holder : holders.values()) {
+                sum += holder.sessions;
+            }
+            return sum;
+        }
+    }
+
+    private static final class Holder {
+        final String runId;
+        final int sessions;
+
+        Holder(String runId, int sessions) {
+            this.runId = runId;
+            this.sessions = sessions;
+        }
+    }
+
+    private static final class Waiter {
+        final String ticket;
+        long lastPoll;
+
+        Waiter(String ticket) {
+            this.ticket = ticket;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile estimate with the P² algorithm (Jain &amp; Chlamtac, 1985): five markers whose heights are adjusted
+ * with a piecewise-parabolic formula as observations arrive, so the estimate needs constant memory and never revisits
+ * past observations. Exact for the first five observations.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class P2Quantile {
+    private double p;
+    private long count;
+    /** Marker heights; the first {@code count} entries hold the raw observations until there are five */
+    private double[] q = new double[5];
+    /** Actual marker positions (1-based) */
+    private double[] n = new double[5];
+
+    /** For Jackson */
+    P2Quantile() {
+    }
+
+    public P2Quantile(double p) {
+        this.p = p;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void add(double x) {
+        if (count < 5) {
+            q[(int) count++] = x;
+            if (count == 5) {
+                Arrays.sort(q);
+                for (int i = 0; i < 5; i++) {
+                    n[i] = i + 1;
+                }
+            }
+            return;
+        }
+        int k;
+        if (x < q[0]) {
+            q[0] = x;
+            k = 0;
+        } else if (x >= q[4]) {
+            q[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= q[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++) {
+            n[i]++;
+        }
+        count++;
+        double[] desired = {
+                1,
+                1 + (count - 1) * p / 2,
+                1 + (count - 1) * p,
+                1 + (count - 1) * (1 + p) / 2,
+                count,
+        };
+        for (int i = 1; i <= 3; i++) {
+            double d = desired[i] - n[i];
+            if (d >= 1 && n[i + 1] - n[i] > 1 || d <= -1 && n[i - 1] - n[i] < -1) {
+                int s = d >= 0 ? 1 : -1;
+                double candidate = parabolic(i, s);
+                q[i] = q[i - 1] < candidate && candidate < q[i + 1] ? candidate : linear(i, s);
+                n[i] += s;
+            }
+        }
+    }
+
+    /**
+     * @return the current estimate, 0 without observations
+     */
+    public double estimate() {
+        if (count == 0) {
+            return 0;
+        }
+        if (count < 5) {
+            double[] seen = Arrays.copyOf(q, (int) count);
+            Arrays.sort(seen);
+            int rank = (int) Math.max(1, Math.ceil(p * seen.length));
+            return seen[rank - 1];
+        }
+        return q[2];
+    }
+
+    private double parabolic(int i, int s) {
+        return q[i] + s / (n[i + 1] - n[i - 1])
+                * ((n[i] - n[i - 1] + s) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+                + (n[i + 1] - n[i] - s) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+    }
+
+    private double linear(int i, int s) {
+        return q[i] + s * (q[i + s] - q[i]) / (n[i + s] - n[i]);
+    }
+}
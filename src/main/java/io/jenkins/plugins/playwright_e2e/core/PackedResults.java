@@ -0,0 +1,188 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.Util;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compacted build folders: everything except manifest.json is packed into one {@code results.zip} with uncompressed
+ * (STORED) entries. The zip central directory is the offset index, so a single entry is served with positioned reads
+ * straight out of the archive, and a stored entry can be skipped into without inflating anything.
+ * manifest.json stays next to the archive so the index, the summary views and blob collection work unchanged.
+ */
+public final class PackedResults {
+    private static final Logger LOGGER = Logger.getLogger(PackedResults.class.getName());
+    public static final String FILE_NAME = "results.zip";
+
+    private PackedResults() { }
+
+    public static boolean isPacked(File buildDir) {
+        return new File(buildDir, FILE_NAME).isFile();
+    }
+
+    /**
+     * Looks up a file of a packed build folder.
+     *
+     * @param path path relative to the build folder, with '/' separators
+     * @return the entry, or null if the build is not packed or has no such file
+     */
+    public static Entry find(File buildDir, String path) throws IOException {
+        File archive = new File(buildDir, FILE_NAME);
+        if (!archive.isFile()) {
+            return null;
+        }
+        try (ZipFile zip = new ZipFile(archive)) {
+            ZipEntry entry = zip.getEntry(path);
+            if (entry == null || entry.isDirectory()) {
+                return null;
+            }
+            return new Entry(archive, path, entry.getSize(), archive.lastModified());
+        }
+    }
+
+    /**
+     * Packs a published build folder in place. Builds without manifest.json (legacy or unmerged) are left alone.
+     *
+     * @return true if the folder was packed
+     */
+    public static boolean pack(File buildDir) throws IOException {
+        if (!new File(buildDir, BuildManifest.FILE_NAME).isFile() || isPacked(buildDir)) {
+            return false;
+        }
+        List<String> names = new ArrayList<>();
+        collect(buildDir, "", names);
+
+        Path tmp = Files.createTempFile(buildDir.toPath(), FILE_NAME, ".tmp");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(tmp))) {
+                out.setMethod(ZipOutputStream.STORED);
+                for (String name : names) {
+                    File file = new File(buildDir, name);
+                    ZipEntry entry = new ZipEntry(name);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.length());
+                    entry.setCompressedSize(file.length());
+                    entry.setCrc(crc(file));
+                    entry.setTime(file.lastModified());
+                    out.putNextEntry(entry);
+                    Files.copy(file.toPath(), out);
+                    out.closeEntry();
+                }
+            }
+            Files.move(tmp, new File(buildDir, FILE_NAME).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        // Readers fall back to the archive once the loose files are gone
+        File[] children = buildDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                String name = child.getName();
+                if (!name.equals(FILE_NAME) && !name.equals(BuildManifest.FILE_NAME)) {
+                    Util.deleteRecursive(child);
+                }
+            }
+        }
+        LOGGER.log(Level.FINE, "Packed {0} file(s) of {1}", new Object[]{names.size(), buildDir});
+        return true;
+    }
+
+    private static void collect(File dir, String prefix, List<String> names) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String name = prefix + child.getName();
+            if (child.isDirectory()) {
+                collect(child, name + "/", names);
+            } else if (!name.equals(BuildManifest.FILE_NAME) && !child.getName().contains(".tmp")) {
+                names.add(name);
+            }
+        }
+    }
+
+    private static long crc(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * One file inside a packed build folder. The archive is never modified after packing, so its mtime is a stable
+     * validator for every entry.
+     */
+    public static final class Entry {
+        private final File archive;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+
+        Entry(File archive, String name, long size, long lastModified) {
+            this.archive = archive;
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getName() { return name; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+
+        /**
+         * Cache key that is distinct from any loose file path.
+         */
+        public String getKey() {
+            return archive.getAbsolutePath() + "!/" + name;
+        }
+
+        /**
+         * Opens the entry; closing the stream closes the archive.
+         */
+        public InputStream open() throws IOException {
+            ZipFile zip = new ZipFile(archive);
+            try {
+                ZipEntry entry = zip.getEntry(name);
+                if (entry == null) {
+                    throw new FileNotFoundException(getKey());
+                }
+                return new FilterInputStream(zip.getInputStream(entry)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            zip.close();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hudson.PluginWrapper;
+import hudson.init.Terminator;
+import io.jenkins.plugins.playwright_e2e.config.PlaywrightE2EConfiguration;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of long-lived Python workers (python/worker.py) behind {@link CoreLogic#process}, so a request no longer pays
+ * for interpreter startup and imports.
+ * <p>
+ * Workers are started on demand up to {@link PlaywrightE2EConfiguration#getPythonWorkerPoolSize()} and speak
+ * length-prefixed JSON over stdin/stdout, while their stderr is drained continuously into the debug log and logged
+ * as a warning along with any request that fails or times out. A worker idle for
+ * longer than {@link #HEALTH_CHECK_IDLE_MILLIS} is pinged before it is handed out, a request running past the
+ * configured timeout kills its worker, and workers are replaced after the configured number of requests so leaks in
+ * the handler script stay bounded. The scripts are extracted once per plugin version under
+ * {@code JENKINS_HOME/cache/playwright-e2e}.
+ */
+public final class PythonWorkerPool {
+    private static final Logger log = LoggerFactory.getLogger(PythonWorkerPool.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String WORKER_SCRIPT = "worker.py";
+    static final String HANDLER_SCRIPT = "test-core-logic.py";
+    private static final String CACHE_DIR = "cache/playwright-e2e";
+    private static final long HEALTH_CHECK_IDLE_MILLIS = 60_000;
+    private static final long PING_TIMEOUT_MILLIS = 5_000;
+    private static final int MAX_MESSAGE_BYTES = 64 * 1024 * 1024;
+    /** Stderr kept per request, so a failing one can be logged with what the script printed */
+    private static final int MAX_STDERR_CHARS = 64 * 1024;
+
+    private static final PythonWorkerPool INSTANCE = new PythonWorkerPool();
+
+    /** Most recently used first, so the warmest workers serve the requests */
+    private final Deque<Worker> idle = new ArrayDeque<>();
+    /** Live workers, idle or busy */
+    private int started;
+    private Path scriptsDir;
+    private boolean closed;
+
+    private PythonWorkerPool() {
+    }
+
+    public static PythonWorkerPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs one request on a pooled worker, waiting for a free one if all are busy.
+     *
+     * @param env environment variables set in the worker before the request
+     * @return the handler's result
+     * @throws IOException if the handler failed, or the worker crashed or timed out (it is then discarded)
+     */
+    public String process(String input, Map<String, String> env) throws IOException, InterruptedException {
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        Worker worker = borrow(config.getPythonWorkerPoolSize());
+        ObjectNode request = MAPPER.createObjectNode();
+        request.put("op", "process");
+        request.put("input", input);
+        request.set("env", MAPPER.valueToTree(env));
+        JsonNode response;
+        try {
+            response = worker.call(request, TimeUnit.SECONDS.toMillis(config.getPythonWorkerTimeoutSeconds()));
+        } catch (IOException e) {
+            release(worker, false);
+            log.warn("Python worker {} failed:\n{}", worker.pid(), worker.awaitStderr());
+            throw e;
+        }
+        // Only requests served count toward recycling, not the health-check pings of an idle worker
+        worker.requests++;
+        release(worker, worker.requests < config.getPythonWorkerMaxRequests());
+        if (!response.path("ok").asBoolean(false)) {
+            log.warn("Python error:\n{}{}", worker.takeStderr(), response.path("trace").asText(""));
+            throw new IOException("Python error: " + response.path("error").asText(""));
+        }
+        return response.path("result").asText("");
+    }
+
+    private Worker borrow(int poolSize) throws IOException, InterruptedException {
+        while (true) {
+            Worker worker;
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new IOException("Python worker pool is shut down");
+                    }
+                    worker = idle.pollFirst();
+                    if (worker != null || started < Math.max(1, poolSize)) {
+                        break;
+                    }
+                    wait();
+                }
+                if (worker == null) {
+                    started++;
+                }
+            }
+            if (worker == null) {
+                try {
+                    return Worker.start(scripts());
+                } catch (IOException e) {
+                    release(null, false);
+                    throw e;
+                }
+            }
+            if (worker.isHealthy()) {
+                return worker;
+            }
+            log.debug("Replacing unhealthy Python worker {}", worker.pid());
+            release(worker, false);
+        }
+    }
+
+    private synchronized void release(Worker worker, boolean keep) {
+        int poolSize = Math.max(1, PlaywrightE2EConfiguration.get().getPythonWorkerPoolSize());
+        if (worker != null && keep && !closed && started <= poolSize && worker.process.isAlive()) {
+            worker.lastUsed = System.currentTimeMillis();
+            idle.addFirst(worker);
+        } else {
+            started--;
+            if (worker != null) {
+                worker.close();
+            }
+        }
+        notifyAll();
+    }
+
+    @Terminator
+    public static void shutdown() {
+        synchronized (INSTANCE) {
+            INSTANCE.closed = true;
+            // Busy workers are closed when they are released
+            for (Worker worker : INSTANCE.idle) {
+                worker.close();
+                INSTANCE.started--;
+            }
+            INSTANCE.idle.clear();
+            INSTANCE.notifyAll();
+        }
+    }
+
+    private synchronized Path scripts() throws IOException {
+        if (scriptsDir == null) {
+            scriptsDir = extractScripts();
+        }
+        return scriptsDir;
+    }
+
+    /**
+     * Extracts the worker and handler scripts into a folder named after the plugin version, once: later starts reuse
+     * it, and folders of other versions are removed. Snapshot builds are extracted again on every start.
+     */
+    private static Path extractScripts() throws IOException {
+        PluginWrapper plugin = Jenkins.get().getPluginManager().whichPlugin(PythonWorkerPool.class);
+        String version = plugin != null ? plugin.getVersion() : "dev";
+        boolean reuse = plugin != null && !version.contains("SNAPSHOT");
+        Path cache = Jenkins.get().getRootDir().toPath().resolve(CACHE_DIR);
+        String name = "python-" + version.replaceAll("[^A-Za-z0-9._-]", "_");
+        Path dir = cache.resolve(name);
+        Files.createDirectories(dir);
+        ClassLoader cl = PythonWorkerPool.class.getClassLoader();
+        for (String script : new String[] {WORKER_SCRIPT, HANDLER_SCRIPT}) {
+            Path target = dir.resolve(script);
+            if (reuse && Files.isRegularFile(target)) {
+                continue;
+            }
+            try (InputStream in = cl.getResourceAsStream("python/" + script)) {
+                if (in == null) {
+                    throw new IOException("python/" + script + " not found in classpath");
+                }
+                Path tmp = Files.createTempFile(dir, script, ".tmp");
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        try (DirectoryStream<Path> others = Files.newDirectoryStream(cache, "python-*")) {
+            for (Path other : others) {
+                if (!other.getFileName().toString().equals(name)) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(other)) {
+                        for (Path file : files) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                    Files.deleteIfExists(other);
+                }
+            }
+        }
+        return dir;
+    }
+
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private long sequence;
+        /** {@code process} requests served */
+        private int requests;
+        private long lastUsed = System.currentTimeMillis();
+        private volatile boolean timedOut;
+        private final Thread drain;
+        /** What the script printed to stderr since the current request was sent */
+        private final StringBuilder stderr = new StringBuilder();
+
+        private Worker(Process process) {
+            this.process = process;
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            // Drained as it is written: a chatty script must never block on a full stderr pipe
+            this.drain = new Thread(this::drainStderr, "Python worker " + process.pid() + " stderr");
+            drain.setDaemon(true);
+        }
+
+        static Worker start(Path scriptsDir) throws IOException {
+            ProcessBuilder pb = new ProcessBuilder("python", scriptsDir.resolve(WORKER_SCRIPT).toString(),
+                    scriptsDir.resolve(HANDLER_SCRIPT).toString());
+            pb.directory(scriptsDir.toFile());
+            Map<String, String> env = pb.environment();
+            env.put("PYTHONIOENCODING", "utf-8");
+            env.put("PYTHONUTF8", "1");
+            env.put("JENKINS_HOME", Jenkins.get().getRootDir().getAbsolutePath());
+            Worker worker = new Worker(pb.start());
+            worker.drain.start();
+            log.debug("Started Python worker {}", worker.pid());
+            return worker;
+        }
+
+        long pid() {
+            return process.pid();
+        }
+
+        /**
+         * Alive, and answering a ping if it was idle for a while.
+         */
+        boolean isHealthy() {
+            if (!process.isAlive()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - lastUsed < HEALTH_CHECK_IDLE_MILLIS) {
+                return true;
+            }
+            try {
+                ObjectNode ping = MAPPER.createObjectNode();
+                ping.put("op", "ping");
+                return call(ping, PING_TIMEOUT_MILLIS).path("ok").asBoolean(false);
+            } catch (IOException e) {
+                log.debug("Python worker {} failed its health check", pid(), e);
+                return false;
+            }
+        }
+
+        /**
+         * Sends one request and reads its response; the worker is killed if that takes longer than
+         * {@code timeoutMillis}, which also unblocks the read.
+         */
+        JsonNode call(ObjectNode request, long timeoutMillis) throws IOException {
+            long id = ++sequence;
+            request.put("id", id);
+            takeStderr();
+            ScheduledFuture<?> watchdog = Timer.get().schedule(() -> {
+                timedOut = true;
+                process.destroyForcibly();
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                byte[] body = MAPPER.writeValueAsBytes(request);
+                out.writeInt(body.length);
+                out.write(body);
+                out.flush();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_MESSAGE_BYTES) {
+                    throw new IOException("Invalid message length from Python worker " + pid() + ": " + length);
+                }
+                byte[] message = new byte[length];
+                in.readFully(message);
+                JsonNode response = MAPPER.readTree(message);
+                if (response.path("id").asLong(-1) != id) {
+                    throw new IOException("Python worker " + pid() + " answered out of sequence");
+                }
+                return response;
+            } catch (IOException e) {
+                if (timedOut) {
+                    throw new IOException("Python worker " + pid() + " timed out after " + timeoutMillis + " ms", e);
+                }
+                throw e;
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+
+        private void drainStderr() {
+            try (BufferedReader err = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = err.readLine()) != null) {
+                    log.debug("[python {}] {}", pid(), line);
+                    synchronized (stderr) {
+                        stderr.append(line).append('\n');
+                        if (stderr.length() > MAX_STDERR_CHARS) {
+                            stderr.delete(0, stderr.length() - MAX_STDERR_CHARS);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.trace("stderr of Python worker closed", e);
+            }
+        }
+
+        /**
+         * Returns and clears what the script printed to stderr during the current request.
+         */
+        String takeStderr() {
+            synchronized (stderr) {
+                String text = stderr.toString();
+                stderr.setLength(0);
+                return text;
+            }
+        }
+
+        /**
+         * {@link #takeStderr()} once the dead or dying worker's stderr has been drained to its end.
+         */
+        String awaitStderr() {
+            try {
+                drain.join(PING_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return takeStderr();
+        }
+
+        void close() {
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.FilePath;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScriptModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Store of recorded MCP tool calls of passed scenarios under {@code results/.recordings/<aa>/<sha256>.json}, written
+ * by replay.py and keyed by a hash of the scenario text.
+ * <p>
+ * Before a run the step copies the recordings of the scenarios it is about to run into the workspace in one
+ * transfer; the runner replays them instead of asking the LLM, records newly passed scenarios and marks recordings
+ * that no longer replay as stale. {@link ResultsPublisher} brings them back, which also refreshes the mtime of every
+ * recording in use, so {@link #prune} only removes recordings nobody ran for {@link #MAX_AGE_DAYS}.
+ */
+public final class Recordings {
+    static final String DIR_NAME = ".recordings";
+    private static final Pattern RECORDING_NAME = Pattern.compile("^[0-9a-f]{64}\\.json$");
+    static final long MAX_AGE_DAYS = 90;
+
+    private Recordings() { }
+
+    public static File dir() {
+        return new File(ResultsLayout.rootDir(), DIR_NAME);
+    }
+
+    /**
+     * Same key as {@code replay.scenario_key}: sha256 over the title and the steps joined by newlines.
+     */
+    static String key(ScriptModel.Scenario scenario) {
+        List<String> parts = new ArrayList<>();
+        parts.add(scenario.getTitle() != null ? scenario.getTitle() : "");
+        if (scenario.getSteps() != null) {
+            parts.addAll(scenario.getSteps());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String relativePath(String key) {
+        return key.substring(0, 2) + "/" + key + ".json";
+    }
+
+    /**
+     * Copies the recordings of the given scenarios that exist on the controller into the runner's output folder in
+     * a single transfer.
+     *
+     * @param localBase workspace directory passed to the runner as --output_dir
+     * @return number of copied recordings
+     */
+    public static int fetch(ScriptModel model, FilePath localBase) throws IOException, InterruptedException {
+        File dir = dir();
+        List<String> paths = new ArrayList<>();
+        for (ScriptModel.Scenario scenario : model.getScenarios()) {
+            String path = relativePath(key(scenario));
+            if (new File(dir, path).isFile() && !paths.contains(path)) {
+                paths.add(path);
+            }
+        }
+        if (paths.isEmpty()) {
+            return 0;
+        }
+        return new FilePath(dir).copyRecursiveTo(String.join(",", paths), localBase.child(DIR_NAME));
+    }
+
+    /**
+     * Moves recordings shipped back from a run into the store, replacing older versions.
+     *
+     * @return number of moved recordings
+     */
+    static int moveIn(File incoming) throws IOException {
+        File[] prefixes = incoming.listFiles(File::isDirectory);
+        if (prefixes == null) {
+            return 0;
+        }
+        int moved = 0;
+        long now = System.currentTimeMillis();
+        for (File prefix : prefixes) {
+            File[] files = prefix.listFiles(f -> f.isFile() && RECORDING_NAME.matcher(f.getName()).matches());
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                File target = new File(new File(dir(), file.getName().substring(0, 2)), file.getName());
+                Files.createDirectories(target.getParentFile().toPath());
+                Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                target.setLastModified(now);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Removes recordings that were not used for {@link #MAX_AGE_DAYS}, i.e. of scenarios that changed or were
+     * removed.
+     *
+     * @return number of removed recordings
+     */
+    static int prune() throws IOException {
+        File[] prefixes = dir().listFiles(File::isDirectory);
+        if (prefixes == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        int removed = 0;
+        for (File prefix : prefixes) {
+            File[] files = prefix.listFiles(f -> f.isFile() && f.lastModified() < cutoff);
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,169 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.jenkins.plugins.playwright_e2e.config.PlaywrightE2EConfiguration;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ReportDetail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller-side LRU cache of parsed result.json files.
+ * <p>
+ * Entries are keyed by path (or archive entry, see {@link PackedResults}) and validated against the file's mtime and size on every lookup, so a result that is
+ * republished (e.g. by a merge) is re-read. The total estimated size of the cached details is bounded by
+ * {@link PlaywrightE2EConfiguration#getReportCacheMaxSizeMb()}; the least recently used entries are evicted beyond it.
+ */
+public final class ReportDetailCache {
+    private static final ObjectReader READER = new ObjectMapper().readerFor(ReportDetail.class);
+    /** Rough per-entry overhead of the map node, key and detail object */
+    private static final long ENTRY_OVERHEAD = 512;
+
+    private static final ReportDetailCache INSTANCE = new ReportDetailCache();
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+
+    private ReportDetailCache() {
+    }
+
+    public static ReportDetailCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the parsed result.json, or null if the file does not exist.
+     * The returned detail is shared between requests and must not be modified.
+     */
+    public ReportDetail load(File resultFile) throws IOException {
+        String key = resultFile.getAbsolutePath();
+        long mtime = resultFile.lastModified();
+        if (mtime == 0L) {
+            invalidate(key);
+            return null;
+        }
+        return load(key, mtime, resultFile.length(), () -> Files.newInputStream(resultFile.toPath()));
+    }
+
+    /**
+     * Returns the parsed result.json of a packed build folder.
+     */
+    public ReportDetail load(PackedResults.Entry entry) throws IOException {
+        return load(entry.getKey(), entry.getLastModified(), entry.getSize(), entry::open);
+    }
+
+    private ReportDetail load(String key, long mtime, long size, Source source) throws IOException {
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.mtime == mtime && cached.size == size) {
+                return cached.detail;
+            }
+        }
+
+        ReportDetail detail;
+        try (InputStream in = source.open()) {
+            detail = parse(in);
+        }
+        long maxBytes = maxBytes();
+        if (maxBytes <= 0) {
+            return detail;
+        }
+        Entry entry = new Entry(mtime, size, detail, estimate(key, detail));
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+            evict(maxBytes);
+        }
+        return detail;
+    }
+
+    public synchronized void invalidate(String path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    /**
+     * Drops every cached result below {@code dir}, used when a build folder is deleted.
+     */
+    public synchronized void invalidateUnder(File dir) {
+        String prefix = dir.getAbsolutePath() + File.separator;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().startsWith(prefix)) {
+                weight -= e.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    private void evict(long maxBytes) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxBytes && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    private static long maxBytes() {
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        long mb = config != null ? config.getReportCacheMaxSizeMb() : PlaywrightE2EConfiguration.DEFAULT_REPORT_CACHE_MAX_SIZE_MB;
+        return mb * 1024 * 1024;
+    }
+
+    /**
+     * Binds result.json straight into {@link ReportDetail} without an intermediate tree.
+     */
+    static ReportDetail parse(InputStream in) throws IOException {
+        ReportDetail detail = READER.readValue(in);
+        List<String> screenshots = detail.getScreenshots();
+        detail.setScreenshots(screenshots != null
+                ? Collections.unmodifiableList(new ArrayList<>(screenshots))
+                : Collections.emptyList());
+        return detail;
+    }
+
+    private static long estimate(String key, ReportDetail detail) {
+        long chars = key.length() + length(detail.getTitle()) + length(detail.getFeedback()) + length(detail.getFail());
+        for (String screenshot : detail.getScreenshots()) {
+            chars += length(screenshot) + 16;
+        }
+        return ENTRY_OVERHEAD + chars * 2;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    private interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private static final class Entry {
+        final long mtime;
+        final long size;
+        final ReportDetail detail;
+        final long weight;
+
+        Entry(long mtime, long size, ReportDetail detail, long weight) {
+            this.mtime = mtime;
+            this.size = size;
+            this.detail = detail;
+            this.weight = weight;
+        }
+    }
+}
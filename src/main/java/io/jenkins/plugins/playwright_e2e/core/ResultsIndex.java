@@ -0,0 +1,329 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildPage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, in-memory index of the build folders in JENKINS_HOME/results.
+ * <p>
+ * The index is an append-only log ({@code .index.ndjson}) of build entries and tombstones: publishing a run appends
+ * one line, and the log is replayed (and compacted) the first time the index is used after startup. If the log does
+ * not exist yet it is rebuilt once by scanning the results folder. Reads are served from sorted snapshots, so a page
+ * of the build list costs O(page size).
+ */
+public final class ResultsIndex {
+    private static final Logger LOGGER = Logger.getLogger(ResultsIndex.class.getName());
+    static final String INDEX_FILE = ".index.ndjson";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Comparator<BuildEntry> ORDER = Comparator.comparingInt(BuildEntry::getNumber).reversed()
+            .thenComparing(BuildEntry::getDirName);
+
+    private static volatile ResultsIndex instance;
+
+    private final File rootDir;
+    private final File logFile;
+    private final Map<String, BuildEntry> entries = new HashMap<>();
+    /** Sorted snapshots, replaced on every change */
+    private volatile List<BuildEntry> all = Collections.emptyList();
+    private volatile Map<String, List<BuildEntry>> byJob = Collections.emptyMap();
+    /** Time of the last change, used for HTTP validators; starts at the log's mtime after a restart */
+    private volatile long lastModified;
+
+    ResultsIndex(File rootDir) {
+        this.rootDir = rootDir;
+        this.logFile = new File(rootDir, INDEX_FILE);
+    }
+
+    public static ResultsIndex get() {
+        File root = ResultsLayout.rootDir();
+        ResultsIndex current = instance;
+        if (current == null || !current.rootDir.equals(root)) {
+            synchronized (ResultsIndex.class) {
+                current = instance;
+                if (current == null || !current.rootDir.equals(root)) {
+                    current = new ResultsIndex(root);
+                    current.load();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Re-reads the summary of one build folder and records it. Called when a run publishes its results; a complete
+     * build (one with a manifest) is also folded into {@link ScenarioStats}.
+     */
+    public void update(String dirName) {
+        File dir = new File(rootDir, dirName);
+        if (!dir.isDirectory()) {
+            remove(dirName);
+            return;
+        }
+        BuildEntry entry = summarize(dir);
+        synchronized (this) {
+            entries.put(dirName, entry);
+            append(MAPPER.valueToTree(entry));
+            refreshSnapshots();
+        }
+        if (new File(dir, BuildManifest.FILE_NAME).isFile()) {
+            try {
+                ScenarioStats.get().record(entry, BuildManifest.read(dir));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to update scenario statistics of " + dirName, e);
+            }
+        }
+    }
+
+    public void remove(String dirName) {
+        ReportDetailCache.get().invalidateUnder(new File(rootDir, dirName));
+        Thumbnails.delete(dirName);
+        synchronized (this) {
+            if (entries.remove(dirName) == null) {
+                return;
+            }
+            ObjectNode tombstone = MAPPER.createObjectNode();
+            tombstone.put("dirName", dirName);
+            tombstone.put("deleted", true);
+            append(tombstone);
+            refreshSnapshots();
+        }
+    }
+
+    public List<BuildEntry> all() {
+        return all;
+    }
+
+    public BuildEntry find(String dirName) {
+        synchronized (this) {
+            return entries.get(dirName);
+        }
+    }
+
+    /**
+     * Job names (as used in folder names) that have at least one indexed build, sorted.
+     */
+    public List<String> jobs() {
+        return new ArrayList<>(new TreeSet<>(byJob.keySet()));
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Cursor-based slice of the build list: up to {@code limit} entries that sort strictly after the entry
+     * identified by ({@code afterNumber}, {@code afterDirName}), or from the start when {@code afterDirName} is null.
+     */
+    public List<BuildEntry> after(String job, int afterNumber, String afterDirName, int limit) {
+        List<BuildEntry> source = job != null && !job.isEmpty() ? byJob.getOrDefault(job, Collections.emptyList()) : all;
+        int from = 0;
+        if (afterDirName != null) {
+            BuildEntry probe = new BuildEntry(afterDirName, afterNumber, null, null);
+            int pos = Collections.binarySearch(source, probe, ORDER);
+            from = pos >= 0 ? pos + 1 : -pos - 1;
+        }
+        int to = Math.min(source.size(), from + Math.max(0, limit));
+        return new ArrayList<>(source.subList(Math.min(from, to), to));
+    }
+
+    /**
+     * @param job  job filter, null or empty for all jobs
+     * @param page 1-based page number, clamped into range
+     */
+    public BuildPage page(String job, int page, int pageSize) {
+        boolean filtered = job != null && !job.isEmpty();
+        List<BuildEntry> source = filtered ? byJob.getOrDefault(job, Collections.emptyList()) : all;
+        int size = Math.max(1, pageSize);
+        int pageCount = Math.max(1, (source.size() + size - 1) / size);
+        int current = Math.min(Math.max(1, page), pageCount);
+        int from = Math.min((current - 1) * size, source.size());
+        int to = Math.min(from + size, source.size());
+        return new BuildPage(new ArrayList<>(source.subList(from, to)), filtered ? job : null, current, size, source.size());
+    }
+
+    synchronized void load() {
+        if (!logFile.isFile()) {
+            rebuild();
+            return;
+        }
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                try {
+                    JsonNode node = MAPPER.readTree(line);
+                    String dirName = node.path("dirName").asText(null);
+                    if (dirName == null) {
+                        continue;
+                    }
+                    if (node.path("deleted").asBoolean(false)) {
+                        entries.remove(dirName);
+                    } else {
+                        entries.put(dirName, MAPPER.treeToValue(node, BuildEntry.class));
+                    }
+                } catch (IOException e) {
+                    // A torn last line after a crash: skip it, the next update rewrites the entry
+                    LOGGER.log(Level.FINE, "Skipping unreadable index line", e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read results index, rebuilding it", e);
+            entries.clear();
+            rebuild();
+            return;
+        }
+        // Folders removed while the controller was down
+        entries.values().removeIf(e -> !new File(rootDir, e.getDirName()).isDirectory());
+        if (lines > entries.size() * 2 + 100) {
+            compact();
+        }
+        refreshSnapshots();
+        // Keep validators stable across restarts while nothing was published
+        lastModified = logFile.lastModified();
+    }
+
+    private void rebuild() {
+        File[] dirs = rootDir.listFiles(f -> f.isDirectory() && !f.getName().startsWith("."));
+        if (dirs != null) {
+            for (File dir : dirs) {
+                entries.put(dir.getName(), summarize(dir));
+            }
+        }
+        LOGGER.log(Level.INFO, "Rebuilt results index with {0} build(s)", entries.size());
+        compact();
+        refreshSnapshots();
+    }
+
+    /**
+     * Rewrites the log with one line per live entry.
+     */
+    private void compact() {
+        if (!rootDir.isDirectory()) {
+            return;
+        }
+        Path tmp = new File(rootDir, INDEX_FILE + ".tmp").toPath();
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (BuildEntry entry : entries.values()) {
+                    writer.write(MAPPER.writeValueAsString(entry));
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write results index", e);
+        }
+    }
+
+    private void append(JsonNode node) {
+        try {
+            Files.createDirectories(rootDir.toPath());
+            Files.write(logFile.toPath(),
+                    (MAPPER.writeValueAsString(node) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to append to results index", e);
+        }
+    }
+
+    private void refreshSnapshots() {
+        List<BuildEntry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(ORDER);
+        Map<String, List<BuildEntry>> jobs = new LinkedHashMap<>();
+        for (BuildEntry entry : sorted) {
+            jobs.computeIfAbsent(entry.getJob(), k -> new ArrayList<>()).add(entry);
+        }
+        all = Collections.unmodifiableList(sorted);
+        byJob = Collections.unmodifiableMap(jobs);
+        lastModified = System.currentTimeMillis();
+    }
+
+    /**
+     * Builds the index entry of one build folder from its manifest.json (a single small read).
+     * Use the number after the last '_' as the build number and the part before it as the job.
+     */
+    static BuildEntry summarize(File dir) {
+        String name = dir.getName();
+        String numPart = name;
+        String job = name;
+        int idx = name.lastIndexOf('_');
+        if (idx >= 0 && idx < name.length() - 1) {
+            numPart = name.substring(idx + 1);
+            job = name.substring(0, idx);
+        }
+        int buildNum;
+        try {
+            buildNum = Integer.parseInt(numPart);
+        } catch (NumberFormatException e) {
+            buildNum = -1;
+        }
+        File manifestFile = new File(dir, BuildManifest.FILE_NAME);
+        if (manifestFile.isFile()) {
+            try {
+                BuildManifest manifest = BuildManifest.read(dir);
+                return new BuildEntry(name, buildNum, "Build " + numPart, new Date(manifestFile.lastModified()),
+                        job, manifest.getPassed(), manifest.getFailed());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unreadable manifest: " + manifestFile, e);
+            }
+        }
+
+        // Results published before manifests existed (or an unmerged sharded build):
+        // report.html determines the 'when' date, falling back to the directory's last modified time
+        File reportHtmlFile = new File(dir, "report.html");
+        Date when = new Date(reportHtmlFile.exists() ? reportHtmlFile.lastModified() : dir.lastModified());
+
+        int passed = 0;
+        int failed = 0;
+        File[] scenarioDirs = dir.listFiles(f -> f.isDirectory() && f.getName().matches("\\d+"));
+        if (scenarioDirs != null) {
+            for (File scenarioDir : scenarioDirs) {
+                File result = new File(scenarioDir, "result.json");
+                if (!result.isFile()) {
+                    continue;
+                }
+                try {
+                    if (MAPPER.readTree(result).path("status").asBoolean(false)) {
+                        passed++;
+                    } else {
+                        failed++;
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Unreadable result.json: " + result, e);
+                    failed++;
+                }
+            }
+        }
+        return new BuildEntry(name, buildNum, "Build " + numPart, when, job, passed, failed);
+    }
+}
@@ -0,0 +1,31 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+
+/**
+ * Naming rules for the JENKINS_HOME/results store shared by the step, the runner and the report views.
+ */
+public final class ResultsLayout {
+    private ResultsLayout() { }
+
+    /**
+     * JENKINS_HOME/results
+     */
+    public static File rootDir() {
+        return new File(Jenkins.get().getRootDir(), "results");
+    }
+
+    /**
+     * Folder name of a build's results, as main_logic.py creates it: JOB_NAME (with '/' replaced by '_') + '_' + build number.
+     */
+    public static String buildDirName(Run<?, ?> run) {
+        return run.getParent().getFullName().replace("/", "_") + "_" + run.getNumber();
+    }
+
+    public static File buildDir(Run<?, ?> run) {
+        return new File(rootDir(), buildDirName(run));
+    }
+}
@@ -0,0 +1,201 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DirScanner;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Brings results written by the runner into the workspace over to JENKINS_HOME/results on the controller.
+ * <p>
+ * The runner publishes into a workspace-local copy of the results layout ({@code <folder>/} plus {@code .blobs/}
+ * and {@code .recordings/}), which starts out empty on every run. Screenshots the controller's blob store already
+ * holds are dropped from it first, so a screenshot repeated across scenarios and builds crosses the channel only
+ * once. {@link FilePath#copyRecursiveTo} streams the rest as one gzipped tar over the remoting channel into a private
+ * staging folder on the controller, from where it is moved into place with renames. A shard slice adds its scenario
+ * folders to the shared build folder, one rename each. A full run's build folder appears with a single rename; when
+ * the same folder is published again, the old one is first renamed aside, so until the second rename the build
+ * folder is missing, and a crash in between leaves the new results in {@code .staging}.
+ */
+public final class ResultsPublisher {
+    private ResultsPublisher() { }
+
+    /**
+     * @param localBase workspace directory passed to the runner as --output_dir
+     * @param dirName   build folder name, see {@link ResultsLayout#buildDirName}
+     * @param slice     true for a shard slice, false for a complete run
+     * @return number of transferred files
+     */
+    public static int publish(FilePath localBase, String dirName, boolean slice, TaskListener listener)
+            throws IOException, InterruptedException {
+        if (!localBase.child(dirName).exists()) {
+            listener.getLogger().println("▶ No results to publish in " + localBase.getRemote());
+            return 0;
+        }
+        File root = ResultsLayout.rootDir();
+        File incoming = new File(root, ".staging" + File.separator + dirName + ".transfer." + UUID.randomUUID());
+        Files.createDirectories(incoming.toPath());
+        try {
+            int known = dropKnownBlobs(localBase.child(BlobStore.DIR_NAME));
+            // Default excludes off: the blob store and the recordings are dot-folders
+            int count = localBase.copyRecursiveTo(
+                    new DirScanner.Glob(dirName + "/**," + BlobStore.DIR_NAME + "/**," + Recordings.DIR_NAME + "/**",
+                            null, false),
+                    new FilePath(incoming), dirName);
+            int blobs = moveBlobs(new File(incoming, BlobStore.DIR_NAME));
+            Recordings.moveIn(new File(incoming, Recordings.DIR_NAME));
+            File source = new File(incoming, dirName);
+            File target = new File(root, dirName);
+            if (slice) {
+                moveChildren(source, target);
+            } else {
+                replace(source, target, incoming);
+            }
+            listener.getLogger().println("▶ Published " + count + " file(s) (" + blobs + " new screenshot(s), "
+                    + known + " already stored) to " + target.getAbsolutePath());
+            return count;
+        } finally {
+            Util.deleteRecursive(incoming);
+        }
+    }
+
+    /**
+     * Copies single files (e.g. report.html and manifest.json after a merge) from the workspace into a build folder,
+     * each via a temporary file and a rename, in the given order.
+     */
+    public static void publishFiles(FilePath localDir, String dirName, String... names)
+            throws IOException, InterruptedException {
+        File target = new File(ResultsLayout.rootDir(), dirName);
+        Files.createDirectories(target.toPath());
+        for (String name : names) {
+            FilePath source = localDir.child(name);
+            if (!source.exists()) {
+                continue;
+            }
+            File tmp = new File(target, name + ".tmp." + UUID.randomUUID());
+            try {
+                source.copyTo(new FilePath(tmp));
+                Files.move(tmp.toPath(), new File(target, name).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    /**
+     * Adds new blobs to the store; blobs already present only get their mtime refreshed for the collection grace
+     * period.
+     *
+     * @return number of new blobs
+     */
+    private static int moveBlobs(File incomingBlobs) throws IOException {
+        File[] prefixes = incomingBlobs.listFiles(File::isDirectory);
+        if (prefixes == null) {
+            return 0;
+        }
+        int added = 0;
+        long now = System.currentTimeMillis();
+        for (File prefix : prefixes) {
+            File[] files = prefix.listFiles(File::isFile);
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                File blob = BlobStore.resolve(file.getName());
+                if (blob == null) {
+                    continue;
+                }
+                if (blob.isFile()) {
+                    blob.setLastModified(now);
+                    continue;
+                }
+                Files.createDirectories(blob.getParentFile().toPath());
+                Files.move(file.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                blob.setLastModified(now);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes the screenshots the controller already stores from the workspace copy so they are not transferred, and
+     * refreshes their mtime for the collection grace period as {@link #moveBlobs} does for transferred duplicates.
+     *
+     * @return number of screenshots dropped
+     */
+    private static int dropKnownBlobs(FilePath localBlobs) throws IOException, InterruptedException {
+        if (!localBlobs.isDirectory()) {
+            return 0;
+        }
+        List<String> known = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (FilePath file : localBlobs.list("*/*", null, false)) {
+            File blob = BlobStore.resolve(file.getName());
+            if (blob != null && blob.isFile()) {
+                blob.setLastModified(now);
+                known.add(file.getParent().getName() + "/" + file.getName());
+            }
+        }
+        if (!known.isEmpty()) {
+            localBlobs.act(new DeleteFiles(known));
+        }
+        return known.size();
+    }
+
+    private static void replace(File source, File target, File incoming) throws IOException {
+        if (target.exists()) {
+            // Same build number published again (e.g. re-run after the build was deleted)
+            File old = new File(incoming, ".old");
+            Files.move(target.toPath(), old.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void moveChildren(File source, File target) throws IOException {
+        Files.createDirectories(target.toPath());
+        File[] children = source.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            File dst = new File(target, child.getName());
+            if (dst.isDirectory()) {
+                Util.deleteRecursive(dst);
+            }
+            // Each rename is atomic; the manifest written by the merge step makes them visible
+            Files.move(child.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Deletes the given relative paths in one round trip.
+     */
+    private static final class DeleteFiles extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> paths;
+
+        DeleteFiles(List<String> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public Void invoke(File dir, VirtualChannel channel) throws IOException {
+            for (String path : paths) {
+                Files.deleteIfExists(new File(dir, path).toPath());
+            }
+            return null;
+        }
+    }
+}
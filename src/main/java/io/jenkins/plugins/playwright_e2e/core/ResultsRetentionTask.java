@@ -0,0 +1,114 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.playwright_e2e.config.ResultsRetentionProperty;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the results retention settings to JENKINS_HOME/results a few times a day:
+ * <ul>
+ *   <li>deletes folders of builds that no longer exist (discarded while the controller was down, or whose job was
+ *   deleted), as {@link ResultsRunListener} does for builds deleted while it is running;</li>
+ *   <li>packs published results older than the compaction age into {@link PackedResults};</li>
+ *   <li>removes tool call {@link Recordings} that were not used for a long time.</li>
+ * </ul>
+ */
+@Extension
+public class ResultsRetentionTask extends AsyncPeriodicWork {
+
+    public ResultsRetentionTask() {
+        super("Playwright E2E results retention");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.HOURS.toMillis(6);
+    }
+
+    @Override
+    public long getInitialDelay() {
+        return TimeUnit.MINUTES.toMillis(15);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        File root = ResultsLayout.rootDir();
+        File[] dirs = root.listFiles(f -> f.isDirectory() && !f.getName().startsWith("."));
+        if (dirs == null) {
+            return;
+        }
+        // Folder names use the job's full name with '/' replaced by '_', which is not always reversible
+        Map<String, List<Job<?, ?>>> jobs = new HashMap<>();
+        for (Job<?, ?> job : Jenkins.get().getAllItems(Job.class)) {
+            jobs.computeIfAbsent(job.getFullName().replace("/", "_"), k -> new ArrayList<>()).add(job);
+        }
+
+        int deleted = 0;
+        int packed = 0;
+        long now = System.currentTimeMillis();
+        for (File dir : dirs) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            String name = dir.getName();
+            int sep = name.lastIndexOf('_');
+            if (sep <= 0) {
+                continue;
+            }
+            int number;
+            try {
+                number = Integer.parseInt(name.substring(sep + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            List<Job<?, ?>> candidates = jobs.getOrDefault(name.substring(0, sep), List.of());
+            if (candidates.size() > 1) {
+                // Ambiguous name, never delete on a guess
+                continue;
+            }
+            Job<?, ?> job = candidates.isEmpty() ? null : candidates.get(0);
+
+            if (job == null || job.getBuildByNumber(number) == null) {
+                if (ResultsRetentionProperty.deleteResultsOfDiscardedBuilds(job)) {
+                    Util.deleteRecursive(dir);
+                    ResultsIndex.get().remove(name);
+                    deleted++;
+                }
+                continue;
+            }
+
+            int days = ResultsRetentionProperty.compactAfterDays(job);
+            File manifest = new File(dir, BuildManifest.FILE_NAME);
+            if (days > 0 && manifest.isFile() && now - manifest.lastModified() > TimeUnit.DAYS.toMillis(days)) {
+                try {
+                    if (PackedResults.pack(dir)) {
+                        ReportDetailCache.get().invalidateUnder(dir);
+                        Thumbnails.delete(name);
+                        packed++;
+                    }
+                } catch (IOException e) {
+                    listener.error("Failed to compact " + dir + ": " + e);
+                }
+            }
+        }
+        if (deleted > 0) {
+            BlobStore.gc();
+        }
+        int recordings = Recordings.prune();
+        listener.getLogger().printf("Deleted results of %d discarded build(s), compacted %d build(s), removed %d unused recording(s)%n",
+                deleted, packed, recordings);
+    }
+}
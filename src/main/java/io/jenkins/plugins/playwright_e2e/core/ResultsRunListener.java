@@ -0,0 +1,41 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import io.jenkins.plugins.playwright_e2e.config.ResultsRetentionProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ties the results store to the build lifecycle: when a build is deleted (by hand or by its build discarder), its
+ * results folder is removed (unless the retention settings keep it) and the screenshot blobs it referenced become
+ * eligible for collection.
+ */
+@Extension
+public class ResultsRunListener extends RunListener<Run<?, ?>> {
+    private static final Logger LOGGER = Logger.getLogger(ResultsRunListener.class.getName());
+
+    @Override
+    public void onDeleted(Run<?, ?> run) {
+        if (!ResultsRetentionProperty.deleteResultsOfDiscardedBuilds(run.getParent())) {
+            return;
+        }
+        File dir = ResultsLayout.buildDir(run);
+        if (!dir.exists()) {
+            return;
+        }
+        try {
+            Util.deleteRecursive(dir);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete results of " + run, e);
+            return;
+        }
+        ResultsIndex.get().remove(dir.getName());
+        BlobStore.scheduleGc();
+    }
+}
@@ -0,0 +1,224 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScenarioTrend;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Running per-scenario statistics of each job across its builds, stored in JENKINS_HOME/results/.stats/&lt;job&gt;.json.
+ * <p>
+ * Scenarios are keyed by title. Every published manifest is folded in once: run and pass counts, a flip count (the
+ * status differs from the scenario's previous build) and P² estimates of the p50/p95 duration, all time and per
+ * calendar month (the last {@link #MAX_MONTHS} months are kept). History is never rescanned, so the cost of a publish
+ * and of the trend view does not grow with the number of builds.
+ */
+public final class ScenarioStats {
+    private static final Logger LOGGER = Logger.getLogger(ScenarioStats.class.getName());
+    static final String STATS_DIR = ".stats";
+    private static final int MAX_MONTHS = 24;
+    /** Build numbers remembered per job so a republished build is not counted twice */
+    private static final int MAX_APPLIED = 1000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ScenarioStats INSTANCE = new ScenarioStats();
+
+    /** Loaded stats by file */
+    private final Map<File, JobStats> cache = new HashMap<>();
+
+    private ScenarioStats() {
+    }
+
+    public static ScenarioStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Folds the scenarios of a published build into its job's statistics. Builds already recorded are skipped.
+     */
+    public void record(BuildEntry entry, BuildManifest manifest) {
+        if (entry.getJob() == null || entry.getNumber() < 0 || manifest.getScenarios().isEmpty()) {
+            return;
+        }
+        Date when = entry.getWhen() != null ? entry.getWhen() : new Date();
+        String month = YearMonth.from(when.toInstant().atZone(ZoneId.systemDefault())).toString();
+        File file = file(entry.getJob());
+        synchronized (this) {
+            JobStats stats = load(file);
+            if (!stats.apply(entry.getNumber())) {
+                return;
+            }
+            for (BuildManifest.ScenarioSummary scenario : manifest.getScenarios()) {
+                String title = scenario.getTitle() != null ? scenario.getTitle() : "#" + scenario.getIndex();
+                stats.scenarios.computeIfAbsent(title, k -> new Scenario())
+                        .add(entry.getNumber(), month, scenario.isStatus(), scenario.getDuration() * 1000);
+            }
+            save(file, stats);
+        }
+    }
+
+    /**
+     * Statistics of every scenario of a job, by title.
+     */
+    public List<ScenarioTrend> trends(String job) {
+        if (job == null || job.isEmpty()) {
+            return Collections.emptyList();
+        }
+        YearMonth now = YearMonth.now();
+        String current = now.toString();
+        String previous = now.minusMonths(1).toString();
+        List<ScenarioTrend> trends = new ArrayList<>();
+        synchronized (this) {
+            JobStats stats = load(file(job));
+            for (Map.Entry<String, Scenario> e : stats.scenarios.entrySet()) {
+                Scenario s = e.getValue();
+                Map<String, ScenarioTrend.Period> months = new LinkedHashMap<>();
+                for (Map.Entry<String, Counts> m : s.months.descendingMap().entrySet()) {
+                    months.put(m.getKey(), m.getValue().toPeriod());
+                }
+                trends.add(new ScenarioTrend(e.getKey(), s.lastStatus, s.lastBuild, s.total.toPeriod(),
+                        months.getOrDefault(current, Counts.EMPTY), months.getOrDefault(previous, Counts.EMPTY), months));
+            }
+        }
+        return trends;
+    }
+
+    /**
+     * Time the job's statistics last changed, 0 if there are none; used for HTTP validators.
+     */
+    public long lastModified(String job) {
+        return job != null && !job.isEmpty() ? file(job).lastModified() : 0L;
+    }
+
+    private static File file(String job) {
+        return new File(new File(ResultsLayout.rootDir(), STATS_DIR), job + ".json");
+    }
+
+    private JobStats load(File file) {
+        JobStats stats = cache.get(file);
+        if (stats != null) {
+            return stats;
+        }
+        stats = new JobStats();
+        if (file.isFile()) {
+            try {
+                stats = MAPPER.readValue(file, JobStats.class);
+            } catch (IOException e) {
+                // Starting over loses history but never blocks publishing
+                LOGGER.log(Level.WARNING, "Unreadable scenario statistics, starting over: " + file, e);
+            }
+        }
+        cache.put(file, stats);
+        return stats;
+    }
+
+    private static void save(File file, JobStats stats) {
+        try {
+            Path dir = Files.createDirectories(file.getParentFile().toPath());
+            Path tmp = Files.createTempFile(dir, file.getName(), ".tmp");
+            MAPPER.writeValue(tmp.toFile(), stats);
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write scenario statistics: " + file, e);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+            getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+    static final class JobStats {
+        private int version = 1;
+        private TreeSet<Integer> applied = new TreeSet<>();
+        private TreeMap<String, Scenario> scenarios = new TreeMap<>();
+
+        /**
+         * @return false if the build was recorded before
+         */
+        boolean apply(int number) {
+            if (!applied.add(number)) {
+                return false;
+            }
+            while (applied.size() > MAX_APPLIED) {
+                applied.pollFirst();
+            }
+            return true;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+            getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+    static final class Scenario {
+        private Boolean lastStatus;
+        private int lastBuild;
+        private Counts total = new Counts();
+        /** By yyyy-MM */
+        private TreeMap<String, Counts> months = new TreeMap<>();
+
+        void add(int build, String month, boolean passed, double durationMs) {
+            // A build published out of order is counted, but does not flip the status of a newer one
+            boolean flip = false;
+            if (build > lastBuild) {
+                flip = lastStatus != null && lastStatus != passed;
+                lastStatus = passed;
+                lastBuild = build;
+            }
+            total.add(passed, flip, durationMs);
+            months.computeIfAbsent(month, k -> new Counts()).add(passed, flip, durationMs);
+            while (months.size() > MAX_MONTHS) {
+                months.pollFirstEntry();
+            }
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+            getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+    static final class Counts {
+        static final ScenarioTrend.Period EMPTY = new ScenarioTrend.Period(0, 0, 0, 0, 0);
+
+        private long runs;
+        private long passed;
+        private long flips;
+        private P2Quantile p50 = new P2Quantile(0.5);
+        private P2Quantile p95 = new P2Quantile(0.95);
+
+        void add(boolean pass, boolean flip, double durationMs) {
+            runs++;
+            if (pass) {
+                passed++;
+            }
+            if (flip) {
+                flips++;
+            }
+            p50.add(durationMs);
+            p95.add(durationMs);
+        }
+
+        ScenarioTrend.Period toPeriod() {
+            return new ScenarioTrend.Period(runs, passed, flips,
+                    Math.round(p50.estimate() * 10) / 10.0, Math.round(p95.estimate() * 10) / 10.0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import hudson.Util;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On-demand thumbnails of report screenshots, cached on disk under {@code results/.thumbnails/<build>/<scenario>}
+ * (or {@code results/.thumbnails/.blobs} for screenshots in the {@link BlobStore}).
+ * A thumbnail is regenerated only when the source screenshot is newer than it.
+ */
+public final class Thumbnails {
+    private static final Logger LOGGER = Logger.getLogger(Thumbnails.class.getName());
+    static final String DIR_NAME = ".thumbnails";
+    /** Width of generated thumbnails; the height keeps the aspect ratio */
+    public static final int WIDTH = 320;
+
+    /** One generation per target file at a time */
+    private static final ConcurrentHashMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private Thumbnails() { }
+
+    public static File cacheDir() {
+        return new File(ResultsLayout.rootDir(), DIR_NAME);
+    }
+
+    /**
+     * Returns the cached thumbnail of a screenshot stored in a scenario folder, generating it first if needed.
+     *
+     * @param build    build folder name, already validated by the caller
+     * @param scenario scenario index, already validated by the caller
+     */
+    public static File get(File source, String build, String scenario) throws IOException {
+        return get(source, new File(new File(new File(cacheDir(), build), scenario), source.getName() + "-" + WIDTH + ".jpg"));
+    }
+
+    /**
+     * Returns the cached thumbnail of a blob; like the blob itself it is shared by every build referencing it.
+     */
+    public static File getForBlob(File blob) throws IOException {
+        return get(blob, blobTarget(blob.getName()));
+    }
+
+    private static File get(File source, File target) throws IOException {
+        if (target.isFile() && target.lastModified() >= source.lastModified()) {
+            return target;
+        }
+        Object lock = LOCKS.computeIfAbsent(target.getPath(), k -> new Object());
+        try {
+            synchronized (lock) {
+                if (target.isFile() && target.lastModified() >= source.lastModified()) {
+                    return target;
+                }
+                write(source, target);
+                return target;
+            }
+        } finally {
+            LOCKS.remove(target.getPath(), lock);
+        }
+    }
+
+    /**
+     * Removes the cached thumbnail of a collected blob.
+     */
+    static void deleteBlob(String blobName) {
+        File target = blobTarget(blobName);
+        if (target.exists() && !target.delete()) {
+            LOGGER.log(Level.FINE, "Failed to delete thumbnail {0}", target);
+        }
+    }
+
+    private static File blobTarget(String blobName) {
+        return new File(new File(cacheDir(), BlobStore.DIR_NAME), blobName + "-" + WIDTH + ".jpg");
+    }
+
+    /**
+     * Removes the cached thumbnails of one build folder.
+     */
+    public static void delete(String build) {
+        File dir = new File(cacheDir(), build);
+        if (!dir.exists()) {
+            return;
+        }
+        try {
+            Util.deleteRecursive(dir);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete thumbnails of " + build, e);
+        }
+    }
+
+    private static void write(File source, File target) throws IOException {
+        BufferedImage image = ImageIO.read(source);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + source);
+        }
+        int width = Math.min(WIDTH, image.getWidth());
+        int height = Math.max(1, (int) Math.round(image.getHeight() * (width / (double) image.getWidth())));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+
+        Files.createDirectories(target.getParentFile().toPath());
+        Path tmp = Files.createTempFile(target.getParentFile().toPath(), target.getName(), ".tmp");
+        try {
+            if (!ImageIO.write(scaled, "jpg", tmp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package io.jenkins.plugins.playwright_e2e.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-level cache of the Python/MCP toolchain that setup.sh produces (.venv, mcp/node_modules, Playwright browsers).
+ * <p>
+ * Entries live under {@code <node root>/playwright-e2e/toolchains/<key>} where the key hashes uv.lock,
+ * mcp/package-lock.json and the Playwright version. setup.sh runs inside the entry itself because the venv
+ * contains absolute paths; workspaces then only get symlinks to it. The caller runs setup.sh itself, between
+ * {@link #beginBuild} and {@link #endBuild}, so no thread waits for it or for another build's lock.
+ * <p>
+ * Entries are evicted least recently used first once the cache grows beyond the configured size. A step holds a
+ * lease on the entry it uses by touching {@code .last-used} every {@link #LEASE_RENEW_MILLIS} while its runner is
+ * running ({@link #renewLease}), so an entry is never evicted from under a suite that is still running, however
+ * long it takes. A lease not renewed for {@link #LEASE_EXPIRY_MS} is stale.
+ */
+public class ToolchainCache {
+    private static final String COMPLETE_MARKER = ".complete";
+    private static final String LAST_USED_MARKER = ".last-used";
+    private static final String SIZE_FILE = ".size";
+    /** A lock older than this is considered left behind by a crashed build */
+    private static final long STALE_LOCK_MS = TimeUnit.MINUTES.toMillis(60);
+    /** How often a step using an entry renews its lease */
+    public static final long LEASE_RENEW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /** A lease not renewed for this long belongs to a build that is gone; a restart or reconnect fits in easily */
+    private static final long LEASE_EXPIRY_MS = TimeUnit.MINUTES.toMillis(15);
+
+    private final FilePath root;
+    private final long maxSizeBytes;
+
+    private ToolchainCache(FilePath root, long maxSizeBytes) {
+        this.root = root;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Cache of the node that owns the given workspace, or null when the node cannot be resolved.
+     */
+    public static ToolchainCache forWorkspace(FilePath workspace, long maxSizeMb) {
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath nodeRoot = node != null ? node.getRootPath() : null;
+        if (nodeRoot == null) {
+            return null;
+        }
+        return new ToolchainCache(nodeRoot.child("playwright-e2e/toolchains"), maxSizeMb * 1024 * 1024);
+    }
+
+    /**
+     * Key of the toolchain the extracted resources in {@code pythonDir} need.
+     */
+    public String key(FilePath pythonDir) throws IOException, InterruptedException {
+        return computeKey(pythonDir);
+    }
+
+    /**
+     * Directory of entry {@code key}, for {@link #renewLease}.
+     */
+    public FilePath entry(String key) {
+        return root.child(key);
+    }
+
+    /**
+     * Keeps {@code entry} from being evicted for another {@link #LEASE_EXPIRY_MS}.
+     */
+    public static void renewLease(FilePath entry) throws IOException, InterruptedException {
+        entry.child(LAST_USED_MARKER).touch(System.currentTimeMillis());
+    }
+
+    /**
+     * Links the complete entry {@code key} into {@code pythonDir} and takes a lease on it.
+     *
+     * @return environment variables the runner needs to find the cached toolchain, or null on a cache miss
+     */
+    public Map<String, String> use(String key, FilePath pythonDir, TaskListener listener) throws IOException, InterruptedException {
+        FilePath entry = root.child(key);
+        if (!entry.child(COMPLETE_MARKER).exists()) {
+            return null;
+        }
+        listener.getLogger().println("▶ Toolchain cache hit: " + entry.getRemote());
+        renewLease(entry);
+        link(pythonDir.child(".venv"), entry.child(".venv"), listener);
+        link(pythonDir.child("mcp/node_modules"), entry.child("mcp/node_modules"), listener);
+        return setupEnv(entry);
+    }
+
+    /**
+     * Takes the build lock of entry {@code key} and prepares it for setup.sh, which the caller runs in the returned
+     * directory with {@link #setupEnv} and reports through {@link #endBuild}. Never waits: while another build holds
+     * the lock, the caller checks again later.
+     *
+     * @return the entry to run setup.sh in, or null if another build is populating it or just completed it
+     */
+    public FilePath beginBuild(String key, FilePath pythonDir, TaskListener listener) throws IOException, InterruptedException {
+        FilePath entry = root.child(key);
+        root.mkdirs();
+        if (!root.child(key + ".lock").act(new TryLock(STALE_LOCK_MS))) {
+            return null;
+        }
+        if (entry.child(COMPLETE_MARKER).exists()) {
+            root.child(key + ".lock").deleteRecursive();
+            return null;
+        }
+        listener.getLogger().println("▶ Toolchain cache miss, running setup.sh in " + entry.getRemote());
+        // Start from a clean entry in case an earlier attempt was interrupted
+        entry.deleteRecursive();
+        entry.child("mcp").mkdirs();
+        for (String file : new String[] {"setup.sh", "pyproject.toml", "uv.lock", "mcp/package.json", "mcp/package-lock.json"}) {
+            FilePath src = pythonDir.child(file);
+            if (src.exists()) {
+                src.copyTo(entry.child(file));
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Environment setup.sh and the runner need to use the browsers of {@code entry}.
+     */
+    public static Map<String, String> setupEnv(FilePath entry) {
+        Map<String, String> env = new HashMap<>();
+        env.put("PLAYWRIGHT_BROWSERS_PATH", entry.child(".playwright-browsers").getRemote());
+        return env;
+    }
+
+    /**
+     * Completes the entry taken with {@link #beginBuild} once setup.sh exited, and releases its lock. A failed entry
+     * stays incomplete and is rebuilt by the next build.
+     */
+    public void endBuild(String key, boolean success, TaskListener listener) throws IOException, InterruptedException {
+        FilePath entry = root.child(key);
+        try {
+            if (success) {
+                long size = entry.act(new DirectorySize());
+                entry.child(SIZE_FILE).write(Long.toString(size), StandardCharsets.UTF_8.name());
+                entry.child(COMPLETE_MARKER).touch(System.currentTimeMillis());
+                listener.getLogger().println("▶ Toolchain cached (" + (size / (1024 * 1024)) + " MB)");
+            }
+        } finally {
+            root.child(key + ".lock").deleteRecursive();
+        }
+        if (success) {
+            evict(key, listener);
+        }
+    }
+
+    /**
+     * Removes least recently used complete entries until the cache fits into the size cap.
+     */
+    private void evict(String keep, TaskListener listener) throws IOException, InterruptedException {
+        List<FilePath> entries = new ArrayList<>();
+        long total = 0;
+        for (FilePath dir : root.listDirectories()) {
+            if (dir.child(COMPLETE_MARKER).exists()) {
+                entries.add(dir);
+                total += sizeOf(dir);
+            }
+        }
+        if (total <= maxSizeBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(ToolchainCache::lastUsed));
+        long now = System.currentTimeMillis();
+        for (FilePath dir : entries) {
+            if (total <= maxSizeBytes) {
+                break;
+            }
+            if (dir.getName().equals(keep) || now - lastUsed(dir) < LEASE_EXPIRY_MS) {
+                continue;
+            }
+            long size = sizeOf(dir);
+            listener.getLogger().println("▶ Evicting toolchain cache entry " + dir.getName() + " (" + (size / (1024 * 1024)) + " MB)");
+            // Drop the marker first so a concurrent build never links a half-deleted entry
+            dir.child(COMPLETE_MARKER).delete();
+            dir.deleteRecursive();
+            total -= size;
+        }
+    }
+
+    private static long lastUsed(FilePath dir) {
+        try {
+            FilePath marker = dir.child(LAST_USED_MARKER);
+            return marker.exists() ? marker.lastModified() : dir.lastModified();
+        } catch (IOException | InterruptedException e) {
+            return 0L;
+        }
+    }
+
+    private static long sizeOf(FilePath dir) throws IOException, InterruptedException {
+        FilePath sizeFile = dir.child(SIZE_FILE);
+        if (!sizeFile.exists()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(sizeFile.readToString().trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static void link(FilePath link, FilePath target, TaskListener listener) throws IOException, InterruptedException {
+        // deleteRecursive removes a symlink itself, not its target
+        link.deleteRecursive();
+        link.getParent().mkdirs();
+        link.symlinkTo(target.getRemote(), listener);
+    }
+
+    /**
+     * Hash of everything that determines the toolchain content.
+     */
+    static String computeKey(FilePath pythonDir) throws IOException, InterruptedException {
+        StringBuilder material = new StringBuilder();
+        for (String file : new String[] {"uv.lock", "pyproject.toml", "setup.sh", "mcp/package-lock.json"}) {
+            FilePath f = pythonDir.child(file);
+            material.append(file).append('=').append(f.exists() ? f.digest() : "-").append('\n');
+        }
+        material.append("playwright=").append(playwrightVersion(pythonDir.child("mcp/package.json"))).append('\n');
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha.digest(material.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    private static String playwrightVersion(FilePath packageJson) throws IOException, InterruptedException {
+        if (!packageJson.exists()) {
+            return "-";
+        }
+        JsonNode deps = new ObjectMapper().readTree(packageJson.readToString()).path("dependencies");
+        return deps.path("playwright").asText("-");
+    }
+
+    /**
+     * Atomically creates the lock directory; breaks locks older than the stale threshold.
+     */
+    private static final class TryLock extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+        private final long staleMs;
+
+        TryLock(long staleMs) {
+            this.staleMs = staleMs;
+        }
+
+        @Override
+        public Boolean invoke(File f, VirtualChannel channel) {
+            if (f.mkdir()) {
+                return true;
+            }
+            if (f.isDirectory() && System.currentTimeMillis() - f.lastModified() > staleMs && f.delete()) {
+                return f.mkdir();
+            }
+            return false;
+        }
+    }
+
+    private static final class DirectorySize extends MasterToSlaveFileCallable<Long> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Long invoke(File f, VirtualChannel channel) throws IOException {
+            long[] total = {0L};
+            Files.walkFileTree(f.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    total[0] += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return total[0];
+        }
+    }
+}
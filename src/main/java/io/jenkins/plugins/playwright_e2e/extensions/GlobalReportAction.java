@@ -4,8 +4,17 @@ import hudson.Extension;
 import hudson.FilePath;
 import hudson.model.DirectoryBrowserSupport;
 import hudson.model.RootAction;
+import io.jenkins.plugins.playwright_e2e.core.BlobStore;
+import io.jenkins.plugins.playwright_e2e.core.PackedResults;
+import io.jenkins.plugins.playwright_e2e.core.ReportDetailCache;
+import io.jenkins.plugins.playwright_e2e.core.ResultsIndex;
+import io.jenkins.plugins.playwright_e2e.core.ScenarioStats;
+import io.jenkins.plugins.playwright_e2e.core.Thumbnails;
 import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildPage;
 import io.jenkins.plugins.playwright_e2e.extensions.dto.ReportDetail;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScenarioTrend;
 import jenkins.model.Jenkins;
 import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.QueryParameter;
@@ -18,62 +27,58 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.Base64;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import net.sf.json.JSONObject;
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
 @Extension
 public class GlobalReportAction implements RootAction {
     private static final Logger LOGGER = Logger.getLogger(GlobalReportAction.class.getName());
+    private static final int PAGE_SIZE = 50;
 
     @Override public String getIconFileName() { return "clipboard.png"; }
     @Override public String getDisplayName()    { return "MCP Reports"; }
     @Override public String getUrlName()        { return "mcp-reports"; }
 
     /**
-     * Scan build folders in the 'results' directory.
-     * Use the number after the last '_' as the build number.
+     * All indexed build folders, newest build number first.
+     * Served from {@link ResultsIndex}, the results folder is not scanned per request.
      */
     public List<BuildEntry> getBuilds() {
-        File rootDir = new File(Jenkins.get().getRootDir(), "results");
-        if (!rootDir.isDirectory()) {
-            return Collections.emptyList();
-        }
-        File[] dirs = rootDir.listFiles(File::isDirectory);
-        if (dirs == null) {
-            return Collections.emptyList();
-        }
-        List<BuildEntry> list = new ArrayList<>();
-        for (File dir : dirs) {
-            String name = dir.getName();
-            String numPart = name;
-            int idx = name.lastIndexOf('_');
-            if (idx >= 0 && idx < name.length() - 1) {
-                numPart = name.substring(idx + 1);
-            }
-            int buildNum;
+        return ResultsIndex.get().all();
+    }
+
+    /**
+     * One page of the build list, optionally restricted to a single job.
+     * Parameters come straight from the query string of index.jelly.
+     */
+    public BuildPage getBuildPage(String job, String page) {
+        int pageNumber = 1;
+        if (page != null) {
             try {
-                buildNum = Integer.parseInt(numPart);
+                pageNumber = Integer.parseInt(page);
             } catch (NumberFormatException e) {
-                buildNum = -1;
+                LOGGER.log(Level.FINE, "Invalid page parameter: {0}", page);
             }
-            // Check for report.html to determine the 'when' date
-            File reportHtmlFile = new File(dir, "report.html");
-            Date when;
-            if (reportHtmlFile.exists()) {
-                when = new Date(reportHtmlFile.lastModified());
-            } else {
-                // Fallback to directory's last modified time if report.html is not found
-                when = new Date(dir.lastModified());
-                LOGGER.log(Level.INFO, "report.html not found in {0}. Using directory modification time for 'when'.", dir.getAbsolutePath());
-            }
-            list.add(new BuildEntry(name, buildNum, "Build " + numPart, when));
         }
-        list.sort(Comparator.comparingInt(BuildEntry::getNumber).reversed());
-        return list;
+        return ResultsIndex.get().page(job, pageNumber, PAGE_SIZE);
+    }
+
+    /**
+     * Job names available for the build list filter.
+     */
+    public List<String> getJobs() {
+        return ResultsIndex.get().jobs();
+    }
+
+    /**
+     * JSON API for builds, scenarios and scenario details.
+     * URL: /mcp-reports/api/{builds,scenarios,scenario,trends}
+     */
+    public ReportsApi getApi() {
+        return new ReportsApi(this);
     }
 
     /**
@@ -84,34 +89,120 @@ public class GlobalReportAction implements RootAction {
         // 'build' is JOB_NAME_BUILDNUMBER, 'scenario' is the scenario index (e.g., "1", "2")
         String base = Jenkins.get().getRootDir().getAbsolutePath();
         String path = String.join(File.separator, base, "results", build, scenario, "result.json");
-        LOGGER.log(Level.INFO, "Attempting to read report detail from: {0}", path);
+        LOGGER.log(Level.FINE, "Attempting to read report detail from: {0}", path);
         if (!Files.exists(Paths.get(path))) {
+            // Compacted build: read the entry out of results.zip
+            PackedResults.Entry packed = scenario != null && scenario.matches("^\\d+$")
+                    ? PackedResults.find(new File(base, "results" + File.separator + build), scenario + "/result.json")
+                    : null;
+            if (packed != null) {
+                return ReportDetailCache.get().load(packed);
+            }
             LOGGER.log(Level.WARNING, "result.json not found at: {0}", path);
             return null;
         }
-        String content = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
-        JSONObject obj = JSONObject.fromObject(content);
-        ReportDetail d = new ReportDetail();
-        d.setTitle(obj.optString("title"));
-        d.setStatus(obj.optBoolean("status"));
-        d.setDuration(obj.optDouble("duration"));
-        d.setFeedback(obj.optString("feedback"));
-        d.setFail(obj.optString("fail", null));
-        d.setScreenshots(new ArrayList<>());
-        obj.optJSONArray("screenshots").forEach(o -> d.getScreenshots().add(o.toString()));
-        return d;
+        // Cached by path + mtime + size
+        return ReportDetailCache.get().load(new File(path));
+    }
+
+    /**
+     * Manifest of an indexed build for timings.jelly, or null for unknown folder names.
+     */
+    public BuildManifest getIndexedManifest(String build) throws IOException {
+        BuildEntry entry = build != null ? ResultsIndex.get().find(build) : null;
+        return entry != null ? readManifest(entry.getDirName()) : null;
+    }
+
+    /**
+     * Summary of a published build (scenario count, pass/fail, durations, screenshots) from its manifest.json.
+     * Returns null while the build is still running or for results published before manifests existed.
+     *
+     * @param dirName folder name of an indexed build, never raw request input
+     */
+    private static BuildManifest readManifest(String dirName) throws IOException {
+        File buildDir = new File(Jenkins.get().getRootDir(), "results" + File.separator + dirName);
+        return BuildManifest.read(buildDir);
+    }
+
+    /**
+     * Manifests of the latest {@code count} published builds of the same job as {@code build}, newest first, for the
+     * timing trend of timings.jelly.
+     */
+    public List<BuildManifest> getTimingTrend(String build, int count) throws IOException {
+        BuildEntry entry = build != null ? ResultsIndex.get().find(build) : null;
+        if (entry == null || entry.getJob() == null) {
+            return Collections.emptyList();
+        }
+        List<BuildManifest> trend = new ArrayList<>();
+        for (BuildEntry other : ResultsIndex.get().after(entry.getJob(), 0, null, count)) {
+            BuildManifest manifest = readManifest(other.getDirName());
+            if (manifest != null) {
+                trend.add(manifest);
+            }
+        }
+        return trend;
+    }
+
+    /**
+     * Cross-build statistics of every scenario of a job for trends.jelly and the trends API, from
+     * {@link ScenarioStats}.
+     *
+     * @param sort "flips" (default), "slower" (p95 change since last month), "passRate" (lowest first) or "title"
+     */
+    public List<ScenarioTrend> getTrends(String job, String sort) {
+        if (job == null || !ResultsIndex.get().jobs().contains(job)) {
+            return Collections.emptyList();
+        }
+        List<ScenarioTrend> trends = ScenarioStats.get().trends(job);
+        Comparator<ScenarioTrend> order;
+        if ("slower".equals(sort)) {
+            order = Comparator.comparing((ScenarioTrend t) -> t.getP95Change() != null ? t.getP95Change() : Double.NEGATIVE_INFINITY)
+                    .reversed();
+        } else if ("passRate".equals(sort)) {
+            order = Comparator.comparingDouble(t -> t.getTotal().getPassRate());
+        } else if ("title".equals(sort)) {
+            order = Comparator.comparing(ScenarioTrend::getTitle);
+        } else {
+            order = Comparator.comparingLong((ScenarioTrend t) -> t.getCurrent().getFlips())
+                    .thenComparingLong(t -> t.getTotal().getFlips()).reversed();
+        }
+        trends.sort(order.thenComparing(ScenarioTrend::getTitle));
+        return trends;
+    }
+
+    /**
+     * Measured timings and token usage of each job's latest build in Prometheus text format.
+     * URL: /mcp-reports/metrics
+     */
+    @GET
+    public void doMetrics(StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        byte[] body = PrometheusMetrics.render().getBytes(StandardCharsets.UTF_8);
+        rsp.setContentType(PrometheusMetrics.CONTENT_TYPE);
+        rsp.setHeader("Cache-Control", "no-cache");
+        rsp.setContentLength(body.length);
+        rsp.getOutputStream().write(body);
     }
 
     /**
      * List of scenarios per build.
      */
-    public List<String> getScenarios(@QueryParameter String build) {
+    public List<String> getScenarios(@QueryParameter String build) throws IOException {
         // 'build' parameter is the folder name like "JOB_NAME_BUILDNUMBER"
         File buildDir = new File(Jenkins.get().getRootDir(), "results" + File.separator + build);
         if (!buildDir.isDirectory()) {
             LOGGER.log(Level.WARNING, "Build directory not found or not a directory: {0}", buildDir.getAbsolutePath());
             return Collections.emptyList();
         }
+        BuildManifest manifest = BuildManifest.read(buildDir);
+        if (manifest != null) {
+            List<String> list = new ArrayList<>();
+            for (BuildManifest.ScenarioSummary scenario : manifest.getScenarios()) {
+                list.add(String.valueOf(scenario.getIndex()));
+            }
+            return list;
+        }
+        // Legacy results without manifest.json
         // List subdirectories that are named with numbers (scenario indexes)
         File[] scenarioDirs = buildDir.listFiles(pathname -> pathname.isDirectory() && pathname.getName().matches("\\d+"));
         if (scenarioDirs == null) {
@@ -127,24 +218,6 @@ public class GlobalReportAction implements RootAction {
         return list;
     }
 
-    /**
-     * Return screenshot as base64 data URI.
-     */
-    public String getScreenshotDataUri(@QueryParameter String build,
-                                       @QueryParameter String scenario,
-                                       @QueryParameter String file) throws IOException {
-        // 'build' is JOB_NAME_BUILDNUMBER, 'scenario' is the scenario index (e.g., "1"), 'file' is the image filename (e.g., "1.png")
-        String base = Jenkins.get().getRootDir().getAbsolutePath();
-        String imgPath = String.join(File.separator, base, "results", build, scenario, "screenshots", file);
-        LOGGER.log(Level.INFO, "Attempting to read screenshot from: {0}", imgPath);
-        if (!Files.exists(Paths.get(imgPath))) {
-            LOGGER.log(Level.WARNING, "Screenshot not found at: {0}", imgPath);
-            return "";
-        }
-        byte[] bytes = Files.readAllBytes(Paths.get(imgPath));
-        return "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes);
-    }
-    
     /**
      * Stapler endpoint that serves the report.html file directly.
      * URL: /jenkins/mcp-reports/report?build=<buildFolderName>
@@ -161,13 +234,19 @@ public class GlobalReportAction implements RootAction {
                 new Object[]{html.getAbsolutePath(), html.exists(), html.canRead()});
         // ─────────────────────────────────────────────
         if (!html.exists()) {
+            PackedResults.Entry packed = build != null && build.matches("^[a-zA-Z0-9_\\-]+$")
+                    ? PackedResults.find(html.getParentFile(), "report.html")
+                    : null;
+            if (packed != null) {
+                return new StreamedFileResponse(StreamedFileResponse.Source.of(packed), "text/html;charset=UTF-8", "no-cache");
+            }
             return HttpResponses.error(404, "report.html not found for build: " + build);
         }
         return HttpResponses.staticResource(html);
     }
 
     /**
-     * Serves screenshot images.
+     * Serves screenshot images, streamed with immutable cache headers and Range support.
      * URL: /mcp-reports/screenshot?build={build}&scenario={scenario}&file={file}
      */
     @GET // Explicitly mark as GET handler
@@ -177,10 +256,49 @@ public class GlobalReportAction implements RootAction {
             @QueryParameter("file") String fileName
     ) throws IOException {
         Jenkins.get().checkPermission(Jenkins.READ); // Permission Check
+        StreamedFileResponse.Source img = resolveScreenshot(build, scenario, fileName);
+        return new StreamedFileResponse(img, "image/png", StreamedFileResponse.IMMUTABLE);
+    }
+
+    /**
+     * Serves a scaled-down copy of a screenshot for the report gallery, generated once and cached on disk.
+     * URL: /mcp-reports/thumbnail?build={build}&scenario={scenario}&file={file}
+     */
+    @GET
+    public HttpResponse doThumbnail(
+            @QueryParameter("build") String build,
+            @QueryParameter("scenario") String scenario,
+            @QueryParameter("file") String fileName
+    ) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        StreamedFileResponse.Source source = resolveScreenshot(build, scenario, fileName);
+        File img = source.getFile();
+        if (img == null) {
+            // Legacy screenshot inside a compacted build: not worth unpacking, serve it as is
+            return new StreamedFileResponse(source, "image/png", StreamedFileResponse.IMMUTABLE);
+        }
+        File thumbnail;
+        try {
+            thumbnail = BlobStore.isBlobName(img.getName())
+                    ? Thumbnails.getForBlob(img)
+                    : Thumbnails.get(img, build, scenario);
+        } catch (IOException e) {
+            // Not decodable as an image: fall back to the original
+            LOGGER.log(Level.WARNING, "Failed to create thumbnail of " + img, e);
+            return new StreamedFileResponse(img, "image/png");
+        }
+        return new StreamedFileResponse(thumbnail, "image/jpeg");
+    }
+
+    /**
+     * Validates the screenshot parameters and returns the screenshot (a blob, a loose file or an archive entry).
+     * Invalid or unknown screenshots are answered with an error response.
+     */
+    private StreamedFileResponse.Source resolveScreenshot(String build, String scenario, String fileName) throws IOException {
         // Path Traversal Vulnerability Check for fileName
         if (fileName == null || fileName.contains("..") || fileName.contains("/") || fileName.contains("\\")) {
             LOGGER.log(Level.WARNING, "Invalid characters in screenshot fileName: {0}", fileName);
-            return HttpResponses.error(400, "Invalid screenshot file name.");
+            throw HttpResponses.error(400, "Invalid screenshot file name.");
         }
 
         // Basic validation for build and scenario parameters (alphanumeric, underscore, hyphen)
@@ -188,13 +306,24 @@ public class GlobalReportAction implements RootAction {
         String safePattern = "^[a-zA-Z0-9_\\-]+$";
         if (build == null || !build.matches(safePattern)) {
             LOGGER.log(Level.WARNING, "Invalid characters in build parameter: {0}", build);
-            return HttpResponses.error(400, "Invalid build parameter.");
+            throw HttpResponses.error(400, "Invalid build parameter.");
         }
         if (scenario == null || !scenario.matches("^\\d+$")) { // Scenario should be a number
             LOGGER.log(Level.WARNING, "Invalid characters in scenario parameter: {0}", scenario);
-            return HttpResponses.error(400, "Invalid scenario parameter.");
+            throw HttpResponses.error(400, "Invalid scenario parameter.");
         }
 
+        // Screenshots in the content-addressed store are referenced as <sha256>.png
+        File blob = BlobStore.resolve(fileName);
+        if (blob != null) {
+            if (!blob.isFile()) {
+                LOGGER.log(Level.WARNING, "Screenshot blob not found: {0}", blob.getAbsolutePath());
+                throw HttpResponses.error(404, "Screenshot not found");
+            }
+            return StreamedFileResponse.Source.of(blob);
+        }
+
+        // Legacy results: <build>/<scenario>/screenshots/<n>.png
         File jenkinsRoot = Jenkins.get().getRootDir();
         File expectedScreenshotsDir = new File(jenkinsRoot, "results/" + build + "/" + scenario + "/screenshots");
         File img = new File(expectedScreenshotsDir, fileName);
@@ -202,15 +331,19 @@ public class GlobalReportAction implements RootAction {
         // Verify that the canonical path of the image is within the expected screenshots directory
         if (!img.getCanonicalPath().startsWith(expectedScreenshotsDir.getCanonicalPath() + File.separator)) {
             LOGGER.log(Level.SEVERE, "Path traversal attempt detected for screenshot: {0}", img.getPath());
-            return HttpResponses.error(403, "Access to the requested screenshot is forbidden.");
+            throw HttpResponses.error(403, "Access to the requested screenshot is forbidden.");
         }
 
         if (!img.isFile()) {
+            PackedResults.Entry packed = PackedResults.find(new File(jenkinsRoot, "results/" + build),
+                    scenario + "/screenshots/" + fileName);
+            if (packed != null) {
+                return StreamedFileResponse.Source.of(packed);
+            }
             LOGGER.log(Level.WARNING, "Screenshot not found or not a file: {0}", img.getAbsolutePath());
-            return HttpResponses.error(404, "Screenshot not found");
+            throw HttpResponses.error(404, "Screenshot not found");
         }
-        
-        LOGGER.log(Level.INFO, "Serving screenshot: {0}", img.getAbsolutePath());
-        return HttpResponses.staticResource(img);
+        LOGGER.log(Level.FINE, "Serving screenshot: {0}", img.getAbsolutePath());
+        return StreamedFileResponse.Source.of(img);
     }
 }
@@ -0,0 +1,117 @@
+package io.jenkins.plugins.playwright_e2e.extensions;
+
+import io.jenkins.plugins.playwright_e2e.core.ResultsIndex;
+import io.jenkins.plugins.playwright_e2e.core.ResultsLayout;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prometheus text exposition of the measured timings and token usage of each job's latest published build, read
+ * from its manifest.json (see python/metrics.py). Scraping it periodically gives the p50/p95 trend per step type
+ * across builds.
+ */
+final class PrometheusMetrics {
+    private static final Logger LOGGER = Logger.getLogger(PrometheusMetrics.class.getName());
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String TOOL_PREFIX = "tool:";
+
+    private PrometheusMetrics() {
+    }
+
+    static String render() {
+        StringBuilder steps = new StringBuilder();
+        StringBuilder tools = new StringBuilder();
+        StringBuilder tokens = new StringBuilder();
+        StringBuilder snapshots = new StringBuilder();
+        StringBuilder scenarios = new StringBuilder();
+        StringBuilder builds = new StringBuilder();
+        ResultsIndex index = ResultsIndex.get();
+        for (String job : index.jobs()) {
+            List<BuildEntry> latest = index.after(job, 0, null, 1);
+            if (latest.isEmpty()) {
+                continue;
+            }
+            BuildEntry entry = latest.get(0);
+            BuildManifest manifest;
+            try {
+                manifest = BuildManifest.read(new File(ResultsLayout.rootDir(), entry.getDirName()));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Skipping unreadable manifest of " + entry.getDirName(), e);
+                continue;
+            }
+            if (manifest == null) {
+                continue;
+            }
+            String jobLabel = "job=\"" + escape(job) + "\"";
+            sample(builds, "playwright_e2e_build_number", jobLabel, entry.getNumber());
+            sample(scenarios, "playwright_e2e_scenarios", jobLabel + ",status=\"passed\"", manifest.getPassed());
+            sample(scenarios, "playwright_e2e_scenarios", jobLabel + ",status=\"failed\"", manifest.getFailed());
+            for (Map.Entry<String, BuildManifest.StepTimings> timing : manifest.getTimings().entrySet()) {
+                String type = timing.getKey();
+                if (type.startsWith(TOOL_PREFIX)) {
+                    summary(tools, "playwright_e2e_tool_duration_seconds",
+                            jobLabel + ",tool=\"" + escape(type.substring(TOOL_PREFIX.length())) + "\"", timing.getValue());
+                } else {
+                    summary(steps, "playwright_e2e_step_duration_seconds",
+                            jobLabel + ",type=\"" + escape(type) + "\"", timing.getValue());
+                }
+            }
+            if (manifest.getTokens() != null) {
+                sample(tokens, "playwright_e2e_llm_tokens", jobLabel + ",direction=\"input\"", manifest.getTokens().getInput());
+                sample(tokens, "playwright_e2e_llm_tokens", jobLabel + ",direction=\"output\"", manifest.getTokens().getOutput());
+                if (manifest.getTokens().getSnapshotRaw() > 0) {
+                    sample(snapshots, "playwright_e2e_snapshot_tokens", jobLabel + ",stage=\"raw\"", manifest.getTokens().getSnapshotRaw());
+                    sample(snapshots, "playwright_e2e_snapshot_tokens", jobLabel + ",stage=\"sent\"", manifest.getTokens().getSnapshotSent());
+                }
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        family(out, "playwright_e2e_build_number", "gauge", "Number of the job's latest published build", builds);
+        family(out, "playwright_e2e_scenarios", "gauge", "Scenarios of the job's latest published build by status", scenarios);
+        family(out, "playwright_e2e_step_duration_seconds", "summary",
+                "Measured wall-clock time per step type (llm, tool, screenshot, snapshot, scenario) in the job's latest published build", steps);
+        family(out, "playwright_e2e_tool_duration_seconds", "summary",
+                "Measured wall-clock time per MCP tool in the job's latest published build", tools);
+        family(out, "playwright_e2e_llm_tokens", "gauge", "LLM tokens used by the job's latest published build", tokens);
+        family(out, "playwright_e2e_snapshot_tokens", "gauge",
+                "Estimated page snapshot tokens before (raw) and after (sent) compaction in the job's latest published build", snapshots);
+        return out.toString();
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help, StringBuilder samples) {
+        if (samples.length() == 0) {
+            return;
+        }
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(samples);
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, BuildManifest.StepTimings timings) {
+        sample(out, name, labels + ",quantile=\"0.5\"", timings.getP50Ms() / 1000);
+        sample(out, name, labels + ",quantile=\"0.95\"", timings.getP95Ms() / 1000);
+        sample(out, name + "_sum", labels, timings.getTotalMs() / 1000);
+        sample(out, name + "_count", labels, timings.getCount());
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append('{').append(labels).append("} ")
+                .append(value == Math.rint(value) && Math.abs(value) < 1e15
+                        ? Long.toString((long) value)
+                        : String.format(Locale.ROOT, "%.6f", value))
+                .append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
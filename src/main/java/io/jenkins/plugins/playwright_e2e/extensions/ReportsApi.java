@@ -0,0 +1,319 @@
+package io.jenkins.plugins.playwright_e2e.extensions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.plugins.playwright_e2e.core.PackedResults;
+import io.jenkins.plugins.playwright_e2e.core.ResultsIndex;
+import io.jenkins.plugins.playwright_e2e.core.ResultsLayout;
+import io.jenkins.plugins.playwright_e2e.core.ScenarioStats;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildEntry;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ReportDetail;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScenarioTrend;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.verb.GET;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JSON API of the MCP Reports page for dashboards and bots.
+ * <ul>
+ *   <li>/mcp-reports/api/builds?job=&amp;cursor=&amp;limit=&amp;fields=</li>
+ *   <li>/mcp-reports/api/scenarios?build=&amp;cursor=&amp;limit=&amp;fields=</li>
+ *   <li>/mcp-reports/api/scenario?build=&amp;scenario=&amp;fields=</li>
+ *   <li>/mcp-reports/api/trends?job=&amp;sort=&amp;limit=&amp;fields=</li>
+ * </ul>
+ * Every response carries an ETag and Last-Modified derived from the results it was built from (the index's last
+ * change, manifest.json, result.json loose or packed, or the job's scenario statistics), so unchanged polls are answered with 304 after at most
+ * a stat.
+ */
+public class ReportsApi {
+    private static final Logger LOGGER = Logger.getLogger(ReportsApi.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final String SAFE_PATTERN = "^[a-zA-Z0-9_\\-]+$";
+
+    private final GlobalReportAction owner;
+
+    ReportsApi(GlobalReportAction owner) {
+        this.owner = owner;
+    }
+
+    @GET
+    public void doBuilds(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        ResultsIndex index = ResultsIndex.get();
+        long lastModified = index.lastModified();
+        String etag = etag(lastModified, 0L, req.getQueryString());
+        if (notModified(req, rsp, etag, lastModified)) {
+            return;
+        }
+
+        String job = req.getParameter("job");
+        int limit = limit(req.getParameter("limit"));
+        int afterNumber = 0;
+        String afterDir = null;
+        String cursor = req.getParameter("cursor");
+        if (cursor != null && !cursor.isEmpty()) {
+            // cursor = base64url("<number>:<dirName>") of the last entry of the previous page
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = decoded.indexOf(':');
+                afterNumber = Integer.parseInt(decoded.substring(0, sep));
+                afterDir = decoded.substring(sep + 1);
+            } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+                rsp.sendError(400, "Invalid cursor.");
+                return;
+            }
+        }
+
+        // Fetch one extra entry to know whether there is a next page
+        List<BuildEntry> slice = index.after(job, afterNumber, afterDir, limit + 1);
+        boolean hasMore = slice.size() > limit;
+        if (hasMore) {
+            slice = slice.subList(0, limit);
+        }
+        Set<String> fields = fields(req.getParameter("fields"));
+        ObjectNode body = MAPPER.createObjectNode();
+        ArrayNode builds = body.putArray("builds");
+        for (BuildEntry entry : slice) {
+            ObjectNode node = MAPPER.createObjectNode();
+            node.put("dirName", entry.getDirName());
+            node.put("job", entry.getJob());
+            node.put("number", entry.getNumber());
+            node.put("displayName", entry.getDisplayName());
+            node.put("when", entry.getWhen() != null ? entry.getWhen().getTime() : 0L);
+            node.put("passed", entry.getPassed());
+            node.put("failed", entry.getFailed());
+            builds.add(select(node, fields));
+        }
+        if (hasMore) {
+            BuildEntry last = slice.get(slice.size() - 1);
+            body.put("nextCursor", Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getNumber() + ":" + last.getDirName()).getBytes(StandardCharsets.UTF_8)));
+        } else {
+            body.putNull("nextCursor");
+        }
+        write(rsp, body);
+    }
+
+    @GET
+    public void doScenarios(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        String build = req.getParameter("build");
+        if (build == null || !build.matches(SAFE_PATTERN)) {
+            rsp.sendError(400, "Invalid build parameter.");
+            return;
+        }
+        File manifestFile = new File(new File(ResultsLayout.rootDir(), build), BuildManifest.FILE_NAME);
+        if (!manifestFile.isFile()) {
+            rsp.sendError(404, "No published results for build: " + build);
+            return;
+        }
+        long lastModified = manifestFile.lastModified();
+        String etag = etag(lastModified, manifestFile.length(), req.getQueryString());
+        if (notModified(req, rsp, etag, lastModified)) {
+            return;
+        }
+
+        BuildManifest manifest = BuildManifest.read(manifestFile.getParentFile());
+        List<BuildManifest.ScenarioSummary> scenarios = manifest.getScenarios();
+        int limit = limit(req.getParameter("limit"));
+        int from = 0;
+        String cursor = req.getParameter("cursor");
+        if (cursor != null && !cursor.isEmpty()) {
+            // cursor = position of the first scenario of the page
+            try {
+                from = Math.max(0, Integer.parseInt(cursor));
+            } catch (NumberFormatException e) {
+                rsp.sendError(400, "Invalid cursor.");
+                return;
+            }
+        }
+        int to = Math.min(scenarios.size(), from + limit);
+        Set<String> fields = fields(req.getParameter("fields"));
+        ObjectNode body = MAPPER.createObjectNode();
+        body.put("build", build);
+        body.put("total", manifest.getTotal());
+        body.put("passed", manifest.getPassed());
+        body.put("failed", manifest.getFailed());
+        if (!manifest.getTimings().isEmpty()) {
+            body.set("timings", MAPPER.valueToTree(manifest.getTimings()));
+            body.set("tokens", MAPPER.valueToTree(manifest.getTokens()));
+        }
+        ArrayNode items = body.putArray("scenarios");
+        for (int i = Math.min(from, to); i < to; i++) {
+            items.add(select(MAPPER.valueToTree(scenarios.get(i)), fields));
+        }
+        if (to < scenarios.size()) {
+            body.put("nextCursor", String.valueOf(to));
+        } else {
+            body.putNull("nextCursor");
+        }
+        write(rsp, body);
+    }
+
+    @GET
+    public void doScenario(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        String build = req.getParameter("build");
+        String scenario = req.getParameter("scenario");
+        if (build == null || !build.matches(SAFE_PATTERN)) {
+            rsp.sendError(400, "Invalid build parameter.");
+            return;
+        }
+        if (scenario == null || !scenario.matches("^\\d+$")) {
+            rsp.sendError(400, "Invalid scenario parameter.");
+            return;
+        }
+        File buildDir = new File(ResultsLayout.rootDir(), build);
+        File resultFile = new File(new File(buildDir, scenario), "result.json");
+        long lastModified;
+        long length;
+        if (resultFile.isFile()) {
+            lastModified = resultFile.lastModified();
+            length = resultFile.length();
+        } else {
+            PackedResults.Entry packed = PackedResults.find(buildDir, scenario + "/result.json");
+            if (packed == null) {
+                rsp.sendError(404, "Scenario not found.");
+                return;
+            }
+            lastModified = packed.getLastModified();
+            length = packed.getSize();
+        }
+        String etag = etag(lastModified, length, req.getQueryString());
+        if (notModified(req, rsp, etag, lastModified)) {
+            return;
+        }
+
+        ReportDetail detail = owner.getReportDetail(build, scenario);
+        if (detail == null) {
+            rsp.sendError(404, "Scenario not found.");
+            return;
+        }
+        write(rsp, select(MAPPER.valueToTree(detail), fields(req.getParameter("fields"))));
+    }
+
+    @GET
+    public void doTrends(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        String job = req.getParameter("job");
+        // Only jobs known to the index, which also keeps the name safe as a file name
+        if (job == null || !ResultsIndex.get().jobs().contains(job)) {
+            rsp.sendError(404, "Unknown job: " + job);
+            return;
+        }
+        long lastModified = ScenarioStats.get().lastModified(job);
+        if (lastModified == 0) {
+            rsp.sendError(404, "No scenario statistics for job: " + job);
+            return;
+        }
+        String etag = etag(lastModified, 0L, req.getQueryString());
+        if (notModified(req, rsp, etag, lastModified)) {
+            return;
+        }
+
+        List<ScenarioTrend> trends = owner.getTrends(job, req.getParameter("sort"));
+        int limit = limit(req.getParameter("limit"));
+        Set<String> fields = fields(req.getParameter("fields"));
+        ObjectNode body = MAPPER.createObjectNode();
+        body.put("job", job);
+        body.put("total", trends.size());
+        ArrayNode items = body.putArray("scenarios");
+        for (ScenarioTrend trend : trends.subList(0, Math.min(limit, trends.size()))) {
+            items.add(select(MAPPER.valueToTree(trend), fields));
+        }
+        write(rsp, body);
+    }
+
+    private static String etag(long lastModified, long length, String query) {
+        String material = lastModified + ":" + length + ":" + (query != null ? query : "");
+        return "W/\"" + Integer.toHexString(material.hashCode()) + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Sets the validators and answers 304 when the client's copy is still current.
+     */
+    private static boolean notModified(StaplerRequest req, StaplerResponse rsp, String etag, long lastModified) {
+        rsp.setHeader("ETag", etag);
+        rsp.setHeader("Cache-Control", "no-cache");
+        if (lastModified > 0) {
+            rsp.setDateHeader("Last-Modified", lastModified);
+        }
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            boolean match = Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+                    .anyMatch(t -> t.equals("*") || t.equals(etag));
+            if (match) {
+                rsp.setStatus(304);
+            }
+            return match;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have second precision
+        if (ifModifiedSince > 0 && lastModified > 0 && lastModified / 1000 <= ifModifiedSince / 1000) {
+            rsp.setStatus(304);
+            return true;
+        }
+        return false;
+    }
+
+    private static int limit(String value) {
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.min(MAX_LIMIT, Math.max(1, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Invalid limit parameter: {0}", value);
+            return DEFAULT_LIMIT;
+        }
+    }
+
+    private static Set<String> fields(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Set<String> fields = new HashSet<>();
+        for (String field : value.split(",")) {
+            if (!field.isBlank()) {
+                fields.add(field.trim());
+            }
+        }
+        return fields;
+    }
+
+    private static JsonNode select(JsonNode node, Set<String> fields) {
+        if (fields != null && node instanceof ObjectNode) {
+            ((ObjectNode) node).retain(fields);
+        }
+        return node;
+    }
+
+    private static void write(StaplerResponse rsp, JsonNode body) throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        rsp.setContentLength(bytes.length);
+        rsp.getOutputStream().write(bytes);
+    }
+}
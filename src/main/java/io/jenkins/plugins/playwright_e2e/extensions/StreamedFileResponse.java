@@ -0,0 +1,186 @@
+package io.jenkins.plugins.playwright_e2e.extensions;
+
+import io.jenkins.plugins.playwright_e2e.core.PackedResults;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.ServletException;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Streams a published file (screenshot, thumbnail or an entry of a packed build) in fixed-size chunks.
+ * <p>
+ * Published images never change in place, so they are marked immutable; every response is validated by an ETag of
+ * mtime + size. A single {@code Range: bytes=...} is answered with 206; anything else gets the full body.
+ */
+final class StreamedFileResponse implements HttpResponse {
+    /** Browser cache lifetime of published images (one year) */
+    static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Source source;
+    private final String contentType;
+    private final String cacheControl;
+
+    StreamedFileResponse(File file, String contentType) {
+        this(Source.of(file), contentType, IMMUTABLE);
+    }
+
+    StreamedFileResponse(Source source, String contentType, String cacheControl) {
+        this.source = source;
+        this.contentType = contentType;
+        this.cacheControl = cacheControl;
+    }
+
+    @Override
+    public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+        long length = source.length;
+        long lastModified = source.lastModified;
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+        rsp.setHeader("ETag", etag);
+        rsp.setHeader("Cache-Control", cacheControl);
+        rsp.setHeader("Accept-Ranges", "bytes");
+        rsp.setDateHeader("Last-Modified", lastModified);
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+                .anyMatch(t -> t.equals("*") || t.equals(etag) || t.equals("W/" + etag))) {
+            rsp.setStatus(304);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = req.getHeader("Range");
+        String ifRange = req.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                rsp.setHeader("Content-Range", "bytes */" + length);
+                rsp.setStatus(416);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                rsp.setStatus(206);
+                rsp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        rsp.setContentType(contentType);
+        long count = Math.max(0, end - start + 1);
+        rsp.setHeader("Content-Length", Long.toString(count));
+        try (InputStream in = source.opener.open()) {
+            skipFully(in, start);
+            OutputStream out = rsp.getOutputStream();
+            byte[] buffer = new byte[(int) Math.min(CHUNK_SIZE, Math.max(1, count))];
+            while (count > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                count -= read;
+            }
+        }
+    }
+
+    /**
+     * Seeks for files; for stored archive entries it only moves the read position.
+     */
+    private static void skipFully(InputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    /**
+     * @return {start, end} for a satisfiable single range, an empty array to ignore the header
+     *         (multiple or malformed ranges), or null if the range is not satisfiable
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * Something to stream: a loose file or an entry of a packed build folder.
+     */
+    static final class Source {
+        private final long length;
+        private final long lastModified;
+        private final File file;
+        private final Opener opener;
+
+        private Source(long length, long lastModified, File file, Opener opener) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.file = file;
+            this.opener = opener;
+        }
+
+        static Source of(File file) {
+            return new Source(file.length(), file.lastModified(), file, () -> Files.newInputStream(file.toPath()));
+        }
+
+        static Source of(PackedResults.Entry entry) {
+            return new Source(entry.getSize(), entry.getLastModified(), null, entry::open);
+        }
+
+        /**
+         * @return the file on disk, or null for an archive entry
+         */
+        File getFile() {
+            return file;
+        }
+    }
+
+    private interface Opener {
+        InputStream open() throws IOException;
+    }
+}
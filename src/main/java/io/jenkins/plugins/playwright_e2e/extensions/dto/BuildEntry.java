@@ -1,22 +1,50 @@
 package io.jenkins.plugins.playwright_e2e.extensions.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Date;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class BuildEntry {
     private final String dirName;
     private final int    number;
     private final String displayName;
     private final Date when;
+    private final String job;
+    private final int passed;
+    private final int failed;
 
     public BuildEntry(String dirName, int number, String displayName, Date when) {
+        this(dirName, number, displayName, when, null, 0, 0);
+    }
+
+    @JsonCreator
+    public BuildEntry(@JsonProperty("dirName") String dirName,
+                      @JsonProperty("number") int number,
+                      @JsonProperty("displayName") String displayName,
+                      @JsonProperty("when") Date when,
+                      @JsonProperty("job") String job,
+                      @JsonProperty("passed") int passed,
+                      @JsonProperty("failed") int failed) {
         this.dirName = dirName;
         this.number = number;
         this.displayName = displayName;
-        this.when = when;
+        this.when = when != null ? new Date(when.getTime()) : null;
+        this.job = job;
+        this.passed = passed;
+        this.failed = failed;
     }
 
     public String getDirName() { return dirName; }
     public int getNumber() { return number; }
     public String getDisplayName() { return displayName; }
-    public Date getWhen() { return when; }
+    public Date getWhen() { return when != null ? new Date(when.getTime()) : null; }
+    public String getJob() { return job; }
+    public int getPassed() { return passed; }
+    public int getFailed() { return failed; }
+    @JsonIgnore
+    public int getTotal() { return passed + failed; }
 }
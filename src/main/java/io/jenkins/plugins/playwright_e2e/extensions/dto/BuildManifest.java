@@ -0,0 +1,139 @@
+package io.jenkins.plugins.playwright_e2e.extensions.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * manifest.json of a build folder, written last by the runner (or the shard merge) as the commit point of the build.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BuildManifest {
+    public static final String FILE_NAME = "manifest.json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private int version;
+    private String build;
+    private String start;
+    @JsonProperty("duration_ms")
+    private double durationMs;
+    private int total;
+    private int passed;
+    private int failed;
+    private List<ScenarioSummary> scenarios = new ArrayList<>();
+    /** Measured timings per step type (llm, tool, tool:&lt;name&gt;, screenshot, scenario); empty for older results */
+    private Map<String, StepTimings> timings = new TreeMap<>();
+    private TokenUsage tokens;
+
+    /**
+     * @return the manifest of the build folder, or null if the build has not been published (or predates manifests)
+     */
+    public static BuildManifest read(File buildDir) throws IOException {
+        File file = new File(buildDir, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+        return MAPPER.readValue(file, BuildManifest.class);
+    }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    public String getBuild() { return build; }
+    public void setBuild(String build) { this.build = build; }
+    public String getStart() { return start; }
+    public void setStart(String start) { this.start = start; }
+    public double getDurationMs() { return durationMs; }
+    public void setDurationMs(double durationMs) { this.durationMs = durationMs; }
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    public int getPassed() { return passed; }
+    public void setPassed(int passed) { this.passed = passed; }
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+    public List<ScenarioSummary> getScenarios() { return scenarios; }
+    public void setScenarios(List<ScenarioSummary> scenarios) { this.scenarios = scenarios != null ? scenarios : new ArrayList<>(); }
+    public Map<String, StepTimings> getTimings() { return timings; }
+    public void setTimings(Map<String, StepTimings> timings) { this.timings = timings != null ? new TreeMap<>(timings) : new TreeMap<>(); }
+    public TokenUsage getTokens() { return tokens; }
+    public void setTokens(TokenUsage tokens) { this.tokens = tokens; }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ScenarioSummary {
+        private int index;
+        private String title;
+        private boolean status;
+        private double duration;
+        private List<String> screenshots = new ArrayList<>();
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public boolean isStatus() { return status; }
+        public void setStatus(boolean status) { this.status = status; }
+        public double getDuration() { return duration; }
+        public void setDuration(double duration) { this.duration = duration; }
+        public List<String> getScreenshots() { return screenshots; }
+        public void setScreenshots(List<String> screenshots) { this.screenshots = screenshots != null ? screenshots : new ArrayList<>(); }
+    }
+
+    /**
+     * Wall-clock statistics of one step type over a build, measured by the runner (see python/metrics.py).
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class StepTimings {
+        private int count;
+        @JsonProperty("total_ms")
+        private double totalMs;
+        @JsonProperty("p50_ms")
+        private double p50Ms;
+        @JsonProperty("p95_ms")
+        private double p95Ms;
+        @JsonProperty("max_ms")
+        private double maxMs;
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+        public double getTotalMs() { return totalMs; }
+        public void setTotalMs(double totalMs) { this.totalMs = totalMs; }
+        public double getP50Ms() { return p50Ms; }
+        public void setP50Ms(double p50Ms) { this.p50Ms = p50Ms; }
+        public double getP95Ms() { return p95Ms; }
+        public void setP95Ms(double p95Ms) { this.p95Ms = p95Ms; }
+        public double getMaxMs() { return maxMs; }
+        public void setMaxMs(double maxMs) { this.maxMs = maxMs; }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class TokenUsage {
+        private long input;
+        private long output;
+        /** Estimated page snapshot tokens before compaction (see python/snapshots.py) */
+        @JsonProperty("snapshot_raw")
+        private long snapshotRaw;
+        /** Estimated page snapshot tokens actually sent to the LLM */
+        @JsonProperty("snapshot_sent")
+        private long snapshotSent;
+
+        public long getInput() { return input; }
+        public void setInput(long input) { this.input = input; }
+        public long getOutput() { return output; }
+        public void setOutput(long output) { this.output = output; }
+        public long getSnapshotRaw() { return snapshotRaw; }
+        public void setSnapshotRaw(long snapshotRaw) { this.snapshotRaw = snapshotRaw; }
+        public long getSnapshotSent() { return snapshotSent; }
+        public void setSnapshotSent(long snapshotSent) { this.snapshotSent = snapshotSent; }
+
+        /** Share of the snapshot tokens saved by compaction, in percent, or {@code null} without snapshots. */
+        public Long getSnapshotSavedPercent() {
+            return snapshotRaw > 0 ? Math.round(100.0 * (snapshotRaw - snapshotSent) / snapshotRaw) : null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.jenkins.plugins.playwright_e2e.extensions.dto;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * One page of the MCP Reports build list.
+ */
+public class BuildPage {
+    private final List<BuildEntry> entries;
+    private final String job;
+    private final int page;
+    private final int pageSize;
+    private final int total;
+
+    public BuildPage(List<BuildEntry> entries, String job, int page, int pageSize, int total) {
+        this.entries = entries;
+        this.job = job;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+
+    public List<BuildEntry> getEntries() { return entries; }
+    public String getJob() { return job; }
+    public int getPage() { return page; }
+    public int getPageSize() { return pageSize; }
+    public int getTotal() { return total; }
+    public int getPageCount() { return Math.max(1, (total + pageSize - 1) / pageSize); }
+    public boolean isHasPrevious() { return page > 1; }
+    public boolean isHasNext() { return page < getPageCount(); }
+    public String getPreviousQuery() { return query(page - 1); }
+    public String getNextQuery() { return query(page + 1); }
+
+    private String query(int target) {
+        String q = "page=" + target;
+        return job != null ? q + "&job=" + URLEncoder.encode(job, StandardCharsets.UTF_8) : q;
+    }
+}
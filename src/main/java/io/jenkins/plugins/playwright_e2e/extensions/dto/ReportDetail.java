@@ -1,12 +1,23 @@
 package io.jenkins.plugins.playwright_e2e.extensions.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
 import java.util.List;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class ReportDetail {
-    private String title;
+    private String title = "";
     private boolean status;
     private double duration;
-    private String feedback;
+    private String feedback = "";
+    /** Fail reasons; the runner writes a list of {num, message}, kept as its JSON text */
+    @JsonDeserialize(using = JsonText.class)
     private String fail;
     private List<String> screenshots;
 
@@ -22,4 +33,18 @@ public class ReportDetail {
     public void setFail(String fail) { this.fail = fail; }
     public List<String> getScreenshots() { return screenshots; }
     public void setScreenshots(List<String> screenshots) { this.screenshots = screenshots; }
+
+    /**
+     * Reads a scalar as its text and an array/object as its JSON text.
+     */
+    static final class JsonText extends JsonDeserializer<String> {
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                return p.readValueAsTree().toString();
+            }
+            return p.getValueAsString();
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package io.jenkins.plugins.playwright_e2e.extensions.dto;
+
+import java.util.Map;
+
+/**
+ * Cross-build statistics of one scenario title of a job: all time, this calendar month, the previous one, and
+ * per month. Durations are estimated streaming percentiles in milliseconds.
+ */
+public class ScenarioTrend {
+    private final String title;
+    private final Boolean lastStatus;
+    private final int lastBuild;
+    private final Period total;
+    private final Period current;
+    private final Period previous;
+    private final Map<String, Period> months;
+
+    public ScenarioTrend(String title, Boolean lastStatus, int lastBuild, Period total, Period current, Period previous,
+                         Map<String, Period> months) {
+        this.title = title;
+        this.lastStatus = lastStatus;
+        this.lastBuild = lastBuild;
+        this.total = total;
+        this.current = current;
+        this.previous = previous;
+        this.months = months;
+    }
+
+    public String getTitle() { return title; }
+    public Boolean getLastStatus() { return lastStatus; }
+    public int getLastBuild() { return lastBuild; }
+    public Period getTotal() { return total; }
+    public Period getCurrent() { return current; }
+    public Period getPrevious() { return previous; }
+    public Map<String, Period> getMonths() { return months; }
+
+    /**
+     * Change of the p95 duration from the previous month to this one in percent, null without runs in either.
+     */
+    public Double getP95Change() {
+        if (current.getRuns() == 0 || previous.getRuns() == 0 || previous.getP95Ms() <= 0) {
+            return null;
+        }
+        return Math.round((current.getP95Ms() / previous.getP95Ms() - 1) * 1000) / 10.0;
+    }
+
+    public static class Period {
+        private final long runs;
+        private final long passed;
+        private final long flips;
+        private final double p50Ms;
+        private final double p95Ms;
+
+        public Period(long runs, long passed, long flips, double p50Ms, double p95Ms) {
+            this.runs = runs;
+            this.passed = passed;
+            this.flips = flips;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+        }
+
+        public long getRuns() { return runs; }
+        public long getPassed() { return passed; }
+        public long getFlips() { return flips; }
+        public double getP50Ms() { return p50Ms; }
+        public double getP95Ms() { return p95Ms; }
+
+        /** Passed runs in percent, one decimal; 0 without runs */
+        public double getPassRate() {
+            return runs > 0 ? Math.round(passed * 1000.0 / runs) / 10.0 : 0;
+        }
+    }
+}
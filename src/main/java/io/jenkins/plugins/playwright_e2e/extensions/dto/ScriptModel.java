@@ -1,11 +1,13 @@
 package io.jenkins.plugins.playwright_e2e.extensions.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class ScriptModel {
     private String title;
     private List<Scenario> scenarios = new ArrayList<>();
@@ -33,6 +35,7 @@ public class ScriptModel {
         this.scenarios = scenarios;
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Scenario {
         private String title;
         private List<String> steps = new ArrayList<>();
@@ -31,6 +31,16 @@ public class CoreLogicStep extends Step {
     private String envFileCredentialsId;
     /** Scripting language to execute (python | typescript) */
     private String language;
+    /** Maximum number of scenarios run at once, each in its own MCP/browser session (python only) */
+    private int parallelism = 1;
+    /** Number of failed scenarios after which the remaining ones are skipped; 0 runs everything (python only) */
+    private int failFast;
+    /** Replay recorded tool calls of scenarios that passed before instead of asking the LLM (python only) */
+    private boolean replay;
+    /** Zero-based shard this step runs when the scenario file is split across agents (python only) */
+    private int shardIndex;
+    /** Number of shards the scenario file is split into; 1 disables sharding */
+    private int shardCount = 1;
 
     @DataBoundConstructor
     public CoreLogicStep(String scriptPath) { // Changed from 'input'
@@ -60,6 +70,55 @@ public class CoreLogicStep extends Step {
         this.language = language;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getFailFast() {
+        return failFast;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(int failFast) {
+        this.failFast = Math.max(0, failFast);
+    }
+
+    public boolean isReplay() {
+        return replay;
+    }
+
+    @DataBoundSetter
+    public void setReplay(boolean replay) {
+        this.replay = replay;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    @DataBoundSetter
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @DataBoundSetter
+    public void setShardCount(int shardCount) {
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
         return new CoreLogicStepExecution(this, context);
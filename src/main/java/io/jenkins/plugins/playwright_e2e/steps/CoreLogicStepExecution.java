@@ -1,47 +1,463 @@
 package io.jenkins.plugins.playwright_e2e.steps;
 
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import hudson.AbortException;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.security.ACL;
 import io.jenkins.plugins.playwright_e2e.actions.BuildReportAction;
+import io.jenkins.plugins.playwright_e2e.config.PlaywrightE2EConfiguration;
+import io.jenkins.plugins.playwright_e2e.core.BrowserSessionLimiter;
+import io.jenkins.plugins.playwright_e2e.core.Recordings;
+import io.jenkins.plugins.playwright_e2e.core.ResultsIndex;
+import io.jenkins.plugins.playwright_e2e.core.ResultsLayout;
+import io.jenkins.plugins.playwright_e2e.core.ResultsPublisher;
+import io.jenkins.plugins.playwright_e2e.core.ToolchainCache;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScriptModel;
+import jenkins.util.Timer;
 import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.plaincredentials.FileCredentials;
-import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.FilePathUtils;
+import org.jenkinsci.plugins.workflow.steps.GeneralNonBlockingStepExecution;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
-import jenkins.model.Jenkins;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URISyntaxException;
-import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Enumeration;
-import java.util.HashMap; // Added for environment map
-import java.util.Map; // Added for environment map
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-
-public class CoreLogicStepExecution extends SynchronousNonBlockingStepExecution<Void> {
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the scenarios without holding a controller thread: setup.sh and the runner are started detached on the agent
+ * ({@link DetachedRunner}) and polled from {@link Timer} until they exit, and a toolchain cache entry another build
+ * is populating is checked again on the next poll instead of being waited for.
+ * Everything needed to poll, finish or kill it is saved with the step, so after a controller restart
+ * {@link #onResume} reattaches to the runner still running on the agent.
+ */
+public class CoreLogicStepExecution extends GeneralNonBlockingStepExecution {
     private static final long serialVersionUID = 1L;
-    private final transient CoreLogicStep step;
+    /** Built by the package-runtime-resources execution in pom.xml */
+    static final String RUNTIME_RESOURCES_ARCHIVE = "runtime-resources.tar.gz";
+    static final String RUNTIME_RESOURCES_HASH = "runtime-resources.sha256";
+    /** Hash of the last archive extracted into a workspace's resources directory */
+    private static final String RUNTIME_RESOURCES_STAMP = ".runtime-resources.sha256";
+    /** Precompiled TypeScript runner, relative to resources/typescript */
+    static final String TS_RUNNER_BUNDLE = "dist/index.js";
+    /** Workspace-local output of the runner, relative to the workspace */
+    static final String LOCAL_RESULTS_DIR = ".playwright-e2e/results";
+    /** Per-call token budget of page snapshots, read by python/snapshots.py and typescript/executor/snapshotCompactor.ts */
+    private static final String SNAPSHOT_TOKEN_BUDGET_ENV = "PLAYWRIGHT_E2E_SNAPSHOT_TOKEN_BUDGET";
+    private static final Logger LOGGER = Logger.getLogger(CoreLogicStepExecution.class.getName());
+    private static final long POLL_SECONDS = 3;
+
+    // The step itself is not serializable; its configuration is kept for resuming
+    private final String scriptPath;
+    private final String language;
+    private final String envFileCredentialsId;
+    private final int parallelism;
+    private final int failFast;
+    private final boolean replay;
+    private final int shardIndex;
+    private final int shardCount;
+    /** Node and workspace the runner was started in, to find them again without blocking on the node block */
+    private String node;
+    private String workspacePath;
+    /** The detached runner; null until it was started */
+    private volatile DetachedRunner runner;
+    /** setup.sh while it runs detached; null before and after */
+    private volatile DetachedRunner setup;
+    /** Toolchain cache entry the running setup.sh populates; null when it runs in place */
+    private String toolchainKey;
+    /** Environment of the prepared Python toolchain; null until it is ready */
+    private HashMap<String, String> toolchainEnv;
+    /** Toolchain cache entry the runner uses, leased while it runs; null when the cache is not used */
+    private String toolchainEntry;
+    private transient long leaseRenewed;
+    /** Identifies this step's browser sessions with {@link BrowserSessionLimiter} */
+    private String sessionTicket;
+    private transient volatile boolean stopped;
+    private transient boolean offlineReported;
+    /** Last queue position reported in the log while waiting for browser sessions */
+    private transient int reportedQueuePosition;
+    private transient volatile String waitingStatus;
 
     protected CoreLogicStepExecution(CoreLogicStep step, StepContext context) {
         super(context);
-        this.step = step;
+        this.scriptPath = step.getScriptPath();
+        this.language = step.getLanguage() != null ? step.getLanguage() : "python";
+        this.envFileCredentialsId = step.getEnvFileCredentialsId();
+        this.parallelism = step.getParallelism();
+        this.failFast = step.getFailFast();
+        this.replay = step.isReplay();
+        this.shardIndex = step.getShardIndex();
+        this.shardCount = step.getShardCount();
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        sessionTicket = UUID.randomUUID().toString();
+        run(this::setUp);
+        return false;
     }
 
+    /**
+     * Reattaches to setup.sh or the runner after a controller restart. A step interrupted while preparing or waiting
+     * for browser sessions had not started a runner yet; it picks up its toolchain where it was and queues again.
+     */
     @Override
-    protected Void run() throws Exception {
+    public void onResume() {
+        if (sessionTicket == null) {
+            sessionTicket = UUID.randomUUID().toString();
+        }
+        if (setup != null) {
+            scheduleSetUp();
+            return;
+        }
+        if (runner == null) {
+            run(this::setUp);
+            return;
+        }
+        try {
+            BrowserSessionLimiter.get().hold(node, sessionTicket, getContext().get(Run.class).getExternalizableId(), sessions());
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Failed to register the browser sessions of the resumed runner", e);
+        }
+        schedulePoll();
+    }
+
+    /**
+     * Kills the runner's process tree: bash, python/node, the MCP server and its browsers would otherwise keep
+     * running on the agent. Its browser sessions are only given back once the tree is gone, so the next step in the
+     * node's queue never overlaps with the dying browsers.
+     */
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        stopped = true;
+        DetachedRunner current = runner;
+        DetachedRunner currentSetup = setup;
+        if (current != null) {
+            Timer.get().submit(() -> abort(current));
+        } else if (currentSetup != null) {
+            Timer.get().submit(() -> abortSetup(currentSetup));
+        } else {
+            releaseSessions();
+        }
+        super.stop(cause);
+    }
+
+    @Override
+    public String getStatus() {
+        DetachedRunner current = runner;
+        if (current != null) {
+            return "waiting for runner pid " + current.getPid() + " in " + workspacePath + " on " + nodeDisplayName(node);
+        }
+        DetachedRunner currentSetup = setup;
+        if (currentSetup != null) {
+            return "waiting for setup.sh pid " + currentSetup.getPid() + " in " + workspacePath + " on " + nodeDisplayName(node);
+        }
+        String waiting = waitingStatus;
+        return waiting != null ? waiting : super.getStatus();
+    }
+
+    private static String nodeDisplayName(String nodeName) {
+        return nodeName.isEmpty() ? "built-in node" : nodeName;
+    }
+
+    /** Browser sessions the runner opens: one per concurrent Python scenario, one for the TypeScript runner */
+    private int sessions() {
+        return "typescript".equalsIgnoreCase(language) ? 1 : Math.max(1, parallelism);
+    }
+
+    /**
+     * Waits in the node's queue until {@link BrowserSessionLimiter} grants this step's browser sessions, polling
+     * without holding a thread, then launches the runner. Called once the toolchain is ready, so sessions are never
+     * held while setup.sh runs.
+     */
+    private void awaitSessions() throws Exception {
+        if (stopped) {
+            return;
+        }
+        FilePath workspace = getContext().get(FilePath.class);
+        if (workspace == null) {
+            throw new IllegalStateException("Could not get workspace");
+        }
+        TaskListener listener = getContext().get(TaskListener.class);
+        String nodeName = FilePathUtils.getNodeName(workspace);
+        String runId = getContext().get(Run.class).getExternalizableId();
+        BrowserSessionLimiter.Status status = BrowserSessionLimiter.get().tryAcquire(nodeName, sessionTicket, runId, sessions());
+        if (!status.isGranted()) {
+            waitingStatus = "waiting for browser sessions on " + nodeDisplayName(nodeName) + ", position " + status.getPosition() + " in queue";
+            if (status.getPosition() != reportedQueuePosition) {
+                listener.getLogger().println("▶ Waiting for " + sessions() + " browser session(s) on " + nodeDisplayName(nodeName)
+                        + ": position " + status.getPosition() + " in queue, " + status.getInUse() + " of " + status.getLimit() + " in use");
+                reportedQueuePosition = status.getPosition();
+            }
+            renewToolchainLease(workspace);
+            Timer.get().schedule(() -> run(this::awaitSessions), POLL_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+        waitingStatus = null;
+        if (stopped) {
+            // Stopped while this poll was being granted
+            releaseSessions();
+            return;
+        }
+        if (status.getLimit() > 0) {
+            listener.getLogger().println("▶ Browser sessions granted on " + nodeDisplayName(nodeName) + ": "
+                    + status.getInUse() + " of " + status.getLimit() + " in use");
+        }
+        try {
+            prepareAndLaunch();
+        } catch (Exception e) {
+            releaseSessions();
+            throw e;
+        }
+    }
+
+    private void scheduleSetUp() {
+        Timer.get().schedule(() -> run(() -> {
+            try {
+                setUp();
+            } catch (Exception e) {
+                DetachedRunner currentSetup = setup;
+                if (currentSetup != null) {
+                    abortSetup(currentSetup);
+                }
+                throw e;
+            }
+        }), POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Makes the Python toolchain ready, one poll at a time, then queues for browser sessions. Each call either finds
+     * setup.sh still running, finishes it, starts it, finds the cache entry busy with another build, or goes on
+     * to {@link #awaitSessions}; it never waits.
+     */
+    private void setUp() throws Exception {
+        if (stopped) {
+            return;
+        }
+        if ("typescript".equalsIgnoreCase(language) || toolchainEnv != null) {
+            awaitSessions();
+            return;
+        }
+        FilePath workspace = getContext().get(FilePath.class);
+        if (workspace == null) {
+            throw new IllegalStateException("Could not get workspace");
+        }
+        TaskListener listener = getContext().get(TaskListener.class);
+        node = FilePathUtils.getNodeName(workspace);
+        workspacePath = workspace.getRemote();
+        FilePath pythonDir = workspace.child("resources/python");
+
+        DetachedRunner current = setup;
+        if (current != null) {
+            Integer exit;
+            try {
+                exit = current.check(workspace, listener, null, getContext().get(Run.class));
+            } catch (IOException e) {
+                if (workspace() != null) {
+                    throw e;
+                }
+                // The agent disconnected during the poll; try again once it is back
+                exit = null;
+            }
+            if (exit == null) {
+                scheduleSetUp();
+                return;
+            }
+            setup = null;
+            current.cleanup(workspace);
+            if (toolchainKey != null) {
+                ToolchainCache cache = toolchainCache(pythonDir);
+                if (cache != null) {
+                    cache.endBuild(toolchainKey, exit == 0, listener);
+                }
+                toolchainKey = null;
+            } else if (exit == 0) {
+                toolchainEnv = new HashMap<>();
+            }
+            getContext().saveState();
+            if (exit != 0) {
+                throw new AbortException("setup.sh execution failed (exit=" + exit + ")");
+            }
+        }
+
+        if (toolchainEnv == null) {
+            pythonDir.mkdirs();
+            extractResources(pythonDir.getParent(), listener);
+            changeMode(pythonDir.child("setup.sh"), listener, 0755);
+            Map<String, String> env = prepareToolchain(workspace, pythonDir, listener);
+            if (env == null) {
+                DetachedRunner started = setup;
+                if (stopped && started != null) {
+                    abortSetup(started);
+                    return;
+                }
+                scheduleSetUp();
+                return;
+            }
+            toolchainEnv = new HashMap<>(env);
+        }
+        waitingStatus = null;
+        awaitSessions();
+    }
+
+    private void abortSetup(DetachedRunner current) {
+        FilePath workspace = workspace();
+        if (workspace != null) {
+            current.kill(workspace);
+            try {
+                current.cleanup(workspace);
+                ToolchainCache cache = toolchainKey != null ? toolchainCache(workspace.child("resources/python")) : null;
+                if (cache != null) {
+                    cache.endBuild(toolchainKey, false, TaskListener.NULL);
+                }
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.FINE, "Failed to clean up after the aborted setup.sh", e);
+            }
+        }
+        setup = null;
+        toolchainKey = null;
+    }
+
+    private void releaseSessions() {
+        if (sessionTicket != null) {
+            BrowserSessionLimiter.get().release(sessionTicket);
+        }
+    }
+
+    private void abort(DetachedRunner current) {
+        FilePath workspace = workspace();
+        if (workspace != null) {
+            current.kill(workspace);
+            try {
+                current.cleanup(workspace);
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.FINE, "Failed to remove the runner's control directory", e);
+            }
+        }
+        releaseSessions();
+        try {
+            Run<?, ?> run = getContext().get(Run.class);
+            if (isSharded()) {
+                BuildReportAction.recordShard(run, scriptPath, shardIndex, shardCount, "FAIL");
+            } else {
+                BuildReportAction action = BuildReportAction.find(run, current.getActionId());
+                if (action != null) {
+                    action.finish(run, "ABORTED");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Failed to record the aborted run", e);
+        }
+    }
+
+    private boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /** Label of the runner's control and local results directories within the workspace */
+    private String label() {
+        if ("typescript".equalsIgnoreCase(language)) {
+            return "typescript";
+        }
+        return isSharded() ? "shard-" + shardIndex : "run";
+    }
+
+    /**
+     * @return the workspace on its agent, or null while the agent is disconnected
+     */
+    private FilePath workspace() {
+        return node != null ? FilePathUtils.find(node, workspacePath) : null;
+    }
+
+    private void schedulePoll() {
+        Timer.get().schedule(() -> run(() -> {
+            try {
+                poll();
+            } catch (Exception e) {
+                releaseSessions();
+                throw e;
+            }
+        }), POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void poll() throws Exception {
+        if (stopped) {
+            return;
+        }
+        TaskListener listener = getContext().get(TaskListener.class);
+        FilePath workspace = workspace();
+        if (workspace == null) {
+            if (!offlineReported) {
+                listener.getLogger().println("▶ Waiting for " + node + " to reconnect, the runner keeps running there");
+                offlineReported = true;
+            }
+            schedulePoll();
+            return;
+        }
+        offlineReported = false;
+        renewToolchainLease(workspace);
+        Run<?, ?> run = getContext().get(Run.class);
+        BuildReportAction action = BuildReportAction.find(run, runner.getActionId());
+        Integer exit;
+        try {
+            exit = runner.check(workspace, listener, action, run);
+        } catch (IOException e) {
+            if (workspace() != null) {
+                throw e;
+            }
+            // The agent disconnected during the poll; try again once it is back
+            schedulePoll();
+            return;
+        }
+        if (exit == null) {
+            schedulePoll();
+            return;
+        }
+        if (stopped) {
+            return;
+        }
+        try {
+            if ("typescript".equalsIgnoreCase(language)) {
+                finishTypeScript(listener, run, action, exit);
+            } else {
+                finishPython(workspace, listener, run, action, exit);
+            }
+        } finally {
+            releaseSessions();
+            runner.cleanup(workspace);
+        }
+        getContext().onSuccess(null);
+    }
+
+    /**
+     * Keeps the runner's toolchain cache entry from being evicted by other builds while it runs.
+     */
+    private void renewToolchainLease(FilePath workspace) {
+        long now = System.currentTimeMillis();
+        if (toolchainEntry == null || now - leaseRenewed < ToolchainCache.LEASE_RENEW_MILLIS) {
+            return;
+        }
+        try {
+            ToolchainCache.renewLease(new FilePath(workspace.getChannel(), toolchainEntry));
+            leaseRenewed = now;
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.FINE, "Failed to renew the lease on toolchain cache entry " + toolchainEntry, e);
+        }
+    }
+
+    private void prepareAndLaunch() throws Exception {
         FilePath workspace = getContext().get(FilePath.class);
         if (workspace == null) {
             throw new IllegalStateException("Could not get workspace");
@@ -49,9 +465,10 @@ public class CoreLogicStepExecution extends SynchronousNonBlockingStepExecution<
         TaskListener listener = getContext().get(TaskListener.class);
         Run<?, ?> run = getContext().get(Run.class);
         Launcher launcher = workspace.createLauncher(listener);
+        node = FilePathUtils.getNodeName(workspace);
+        workspacePath = workspace.getRemote();
 
         // Get script path from workspace
-        String scriptPath = step.getScriptPath();
         if (scriptPath == null || scriptPath.isEmpty()) {
             throw new IllegalArgumentException("Script path cannot be empty.");
         }
@@ -64,292 +481,404 @@ public class CoreLogicStepExecution extends SynchronousNonBlockingStepExecution<
         }
         listener.getLogger().println("▶ Loading scenario from workspace: " + scriptPath);
 
-        String lang = step.getLanguage() != null ? step.getLanguage() : "python";
+        String lang = language;
         // Validate file extension based on language (optional, but good practice)
-        if ("typescript".equalsIgnoreCase(lang) && !scriptPath.endsWith(".txt") && !scriptPath.endsWith(".ts")) { // Allow .ts as well
+        if ("typescript".equalsIgnoreCase(lang) && !scriptPath.endsWith(".txt") && !scriptPath.endsWith(".ts")) {
             listener.getLogger().println("▶ WARNING: TypeScript scenario file typically ends with .txt or .ts: " + scriptPath);
         } else if ("python".equalsIgnoreCase(lang) && !scriptPath.endsWith(".json")) {
             listener.getLogger().println("▶ WARNING: Python scenario file typically ends with .json: " + scriptPath);
         }
 
-        // Q4: Change result storage location to JENKINS_HOME/results for GlobalReportAction
-        File jenkinsResultsDir = new File(Jenkins.get().getRootDir(), "results");
-        // Ensure the main results directory exists
-        if (!jenkinsResultsDir.exists() && !jenkinsResultsDir.mkdirs()) {
-            listener.getLogger().println("▶ WARNING: Failed to create Jenkins global results directory: " + jenkinsResultsDir.getAbsolutePath());
-            // Potentially throw an error here if this directory is critical
-        }
-        // The python script will create a subdirectory inside this based on job name and build number.
-        // So, we pass jenkinsResultsDir as the base output directory to the script.
-        File resultsDir = jenkinsResultsDir; // This will be passed as --output_dir to main_logic.py
-
         // Read script content directly from workspace path
         String scenarioContent = scenarioFilePathInWorkspace.readToString();
-        // Create a temporary file in the workspace to pass to the script,
-        // as the script might still expect a file path it can directly access.
-        // This temporary file will be cleaned up.
-        String tempScenarioFileName = "temp_scenario_ws_" + System.currentTimeMillis() + (scriptPath.contains(".") ? scriptPath.substring(scriptPath.lastIndexOf('.')) : ".tmp");
-        FilePath tempScriptExecutionPath = workspace.child(tempScenarioFileName);
 
-        try {
-            tempScriptExecutionPath.write(scenarioContent, StandardCharsets.UTF_8.name());
-            listener.getLogger().println("▶ Copied workspace scenario to temporary execution file: " + tempScriptExecutionPath.getRemote());
-
-            // Language-specific execution branch
-            if ("typescript".equalsIgnoreCase(lang)) {
-                runTypeScriptBranch(workspace, listener, launcher, tempScriptExecutionPath);
-            } else {
-                runPythonBranch(workspace, listener, launcher, tempScriptExecutionPath, run, resultsDir);
-            }
-        } finally {
-            if (tempScriptExecutionPath.exists()) {
-                tempScriptExecutionPath.delete();
-                listener.getLogger().println("▶ Deleted temporary execution file: " + tempScriptExecutionPath.getRemote());
+        if (failFast > 0 && !"python".equalsIgnoreCase(lang)) {
+            // The TypeScript runner executes a scenario file as a single scenario
+            listener.getLogger().println("▶ WARNING: failFast is only supported for python scenarios and is ignored.");
+        }
+        if (replay && !"python".equalsIgnoreCase(lang)) {
+            listener.getLogger().println("▶ WARNING: replay is only supported for python scenarios and is ignored.");
+        }
+        ScenarioShard shard = null;
+        if (isSharded()) {
+            if (!"python".equalsIgnoreCase(lang)) {
+                throw new IllegalArgumentException("Sharding is only supported for python scenarios.");
             }
+            shard = ScenarioShard.of(ScriptModel.fromJson(scenarioContent), shardIndex, shardCount);
+            scenarioContent = shard.getModel().toJson();
+            listener.getLogger().println("▶ Shard " + shardIndex + "/" + shardCount + ": "
+                    + shard.size() + " scenario(s) starting at #" + shard.getFirstIndex());
         }
-        return null;
+        // Write the scenario to be run into the runner's control directory, as the script expects a file path it
+        // can directly access. It is removed together with the control directory once the step is done.
+        FilePath control = DetachedRunner.controlDir(workspace, label());
+        control.deleteRecursive();
+        control.mkdirs();
+        FilePath tempScriptExecutionPath = control.child("scenario" + (scriptPath.contains(".") ? scriptPath.substring(scriptPath.lastIndexOf('.')) : ".tmp"));
+        tempScriptExecutionPath.write(scenarioContent, StandardCharsets.UTF_8.name());
+        listener.getLogger().println("▶ Copied workspace scenario to temporary execution file: " + tempScriptExecutionPath.getRemote());
+
+        // Language-specific execution branch
+        DetachedRunner started;
+        if ("typescript".equalsIgnoreCase(lang)) {
+            started = runTypeScriptBranch(workspace, listener, launcher, control, tempScriptExecutionPath);
+        } else {
+            started = runPythonBranch(workspace, listener, launcher, control, tempScriptExecutionPath, run, shard);
+        }
+        runner = started;
+        // Persisted right away rather than at the next checkpoint, so a restart reattaches instead of starting a second runner
+        getContext().saveState();
+        if (stopped) {
+            abort(started);
+            return;
+        }
+        schedulePoll();
     }
 
-    private void runPythonBranch(FilePath workspace, TaskListener listener, Launcher launcher, FilePath scenarioFilePath, Run<?,?> run, File resultsDir) throws Exception { // File scenarioFile -> FilePath scenarioFilePath
+    private DetachedRunner runPythonBranch(FilePath workspace, TaskListener listener, Launcher launcher, FilePath control, FilePath scenarioFilePath, Run<?,?> run, ScenarioShard shard) throws Exception {
         FilePath pythonDir = workspace.child("resources/python");
-        pythonDir.mkdirs();
 
         Map<String, String> envVars = new HashMap<>();
-        if (step.getEnvFileCredentialsId() != null && !step.getEnvFileCredentialsId().isEmpty()) {
+        if (envFileCredentialsId != null && !envFileCredentialsId.isEmpty()) {
             FileCredentials envCred = CredentialsProvider.findCredentialById(
-                    step.getEnvFileCredentialsId(), FileCredentials.class, run, Collections.emptyList()
+                    envFileCredentialsId, FileCredentials.class, run, Collections.emptyList()
             );
             if (envCred == null) {
-                listener.error("❌ Could not find Secret File credential for credentialsId='" + step.getEnvFileCredentialsId() + "'.");
-                return; // Or throw an exception
+                throw new AbortException("Could not find Secret File credential for credentialsId='" + envFileCredentialsId + "'.");
             }
-            try (InputStream is = envCred.getContent();
-                 BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (line.startsWith("#") || line.isEmpty()) {
-                        continue;
-                    }
-                    int P_ = line.indexOf('=');
-                    if (P_ > 0) {
-                        String key = line.substring(0, P_).trim();
-                        String value = line.substring(P_ + 1).trim();
-                        // Remove surrounding quotes if any (optional, depends on .env format)
-                        if (value.startsWith("\"") && value.endsWith("\"") || value.startsWith("'") && value.endsWith("'")) {
-                            value = value.substring(1, value.length() - 1);
-                        }
-                        envVars.put(key, value);
-                    }
-                }
+            try (InputStream is = envCred.getContent()) {
+                envVars.putAll(parseEnvFile(is));
                 listener.getLogger().println("✅ Loaded .env content into environment variables.");
             } catch (IOException e) {
-                listener.error("❌ Failed to read .env credential: " + e.getMessage());
-                return; // Or throw
+                throw new AbortException("Failed to read .env credential: " + e.getMessage());
             }
         }
         // Inject JOB_NAME, it might be overwritten if present in .env but that's fine.
         envVars.put("JOB_NAME", run.getParent().getFullName());
 
-
         try {
-            extractResources("python", pythonDir, listener);
-            cleanDosLineEndings(pythonDir, listener, launcher);
-            changeMode(pythonDir.child("setup.sh"), listener, 0755); // Keep this call
-            int setupExit = executeShell(pythonDir, listener, launcher, "bash setup.sh");
-            if (setupExit != 0) {
-                listener.error("❌ setup.sh execution failed (exit=" + setupExit + ")");
-                return;
+            envVars.putAll(toolchainEnv);
+            envVars.putAll(mcpDaemonEnv(workspace));
+            envVars.put(SNAPSHOT_TOKEN_BUDGET_ENV, Integer.toString(PlaywrightE2EConfiguration.get().getSnapshotTokenBudget()));
+
+            // The runner writes into the workspace; results are shipped to the controller after the run
+            FilePath localResults = workspace.child(LOCAL_RESULTS_DIR + "/" + label());
+            localResults.deleteRecursive();
+            localResults.mkdirs();
+            // Live progress: the runner appends NDJSON events that are tailed while it runs
+            FilePath eventsFile = localResults.child("events.ndjson");
+            envVars.put(RunnerEvents.EVENTS_ENV, eventsFile.getRemote());
+            BuildReportAction action = BuildReportAction.start(run, scriptPath, shard != null);
+            if (replay) {
+                ScriptModel model = shard != null ? shard.getModel() : ScriptModel.fromJson(scenarioFilePath.readToString());
+                int fetched = Recordings.fetch(model, localResults);
+                listener.getLogger().println("▶ Replay enabled: " + fetched + " of " + model.getScenarios().size()
+                        + " scenario(s) have recorded tool calls");
             }
 
-            listener.getLogger().println("▶ Executing Python test: main_logic.py (activate venv)");
+            listener.getLogger().println("▶ Executing Python test: main_logic.py (activate venv, parallelism=" + parallelism + ")");
             String buildNumber = String.valueOf(run.getNumber());
-            String jobName = run.getParent().getFullName(); // Get the full job name
             String activateScript = new File(pythonDir.getRemote(), ".venv/bin/activate").getAbsolutePath();
+            String runnerCmd = String.format("python main_logic.py --file '%s' --build %s --output_dir '%s' --parallelism %d",
+                    scenarioFilePath.getRemote(), buildNumber, localResults.getRemote(),
+                    parallelism
+            );
+            if (failFast > 0) {
+                runnerCmd += String.format(" --fail_fast %d", failFast);
+            }
+            if (replay) {
+                runnerCmd += " --replay";
+            }
+            if (shard != null) {
+                // Keep global scenario numbers so shard slices never collide in the build's results folder
+                runnerCmd += String.format(" --start_index %d --shard %d", shard.getFirstIndex(), shardIndex);
+            }
             String cmd = String.join(" && ",
                     String.format("source %s", activateScript),
-                    String.format("python main_logic.py --file '%s' --build %s --output_dir '%s'",
-                            scenarioFilePath.getRemote(), buildNumber, resultsDir.getAbsolutePath() // scenarioFile.getAbsolutePath() -> scenarioFilePath.getRemote()
-                    )
+                    runnerCmd
             );
             // Pass JOB_NAME to the python script environment
-            Launcher.ProcStarter procStarter = launcher.launch()
-                .cmds("bash", "-c", cmd)
-                .pwd(pythonDir)
-                .stdout(listener)
-                .stderr(listener.getLogger())
-                .envs(envVars) // Inject all loaded environment variables
-                .quiet(true);
+            return DetachedRunner.launch(control, launcher, pythonDir, cmd, envVars, eventsFile, action.getId(), listener);
+        } finally {
+            listener.getLogger().println("▶ Python setup finished.");
+        }
+    }
 
-            int testExit = procStarter.join();
+    private void finishPython(FilePath workspace, TaskListener listener, Run<?,?> run, BuildReportAction action, int testExit) throws IOException, InterruptedException {
+        if (action != null) {
+            listener.getLogger().println("▶ Test finished (exit=" + testExit + ", " + action.getPassed() + " passed, "
+                    + action.getFailed() + " failed)");
+        } else {
             listener.getLogger().println("▶ Test finished (exit=" + testExit + ")");
+        }
 
-            String resultText = testExit == 0 ? "SUCCESS" : "FAIL";
-            run.addAction(new BuildReportAction(step.getScriptPath(), resultText)); // Use getScriptPath()
-            run.save();
+        String resultText = testExit == 0 ? "SUCCESS" : "FAIL";
+        FilePath localResults = workspace.child(LOCAL_RESULTS_DIR + "/" + label());
+        String dirName = ResultsLayout.buildDirName(run);
+        try {
+            ResultsPublisher.publish(localResults, dirName, isSharded(), listener);
         } finally {
-            // No .env file to delete from workspace anymore
-            listener.getLogger().println("▶ Python script execution finished.");
+            localResults.deleteRecursive();
+        }
+        ResultsIndex.get().update(dirName);
+        if (isSharded()) {
+            // One action per scenario file: its shards report into it and playwrightE2EMerge finalizes the status
+            BuildReportAction.recordShard(run, scriptPath, shardIndex, shardCount, resultText);
+        } else if (action != null) {
+            action.finish(run, resultText);
         }
+        listener.getLogger().println("▶ Python script execution finished.");
     }
 
-    private void runTypeScriptBranch(
+    /**
+     * Provides .venv, mcp/node_modules and the Playwright browsers, from the node's toolchain cache when enabled
+     * or by running setup.sh in place otherwise. setup.sh is started detached and {@link #setUp} picks up its exit.
+     *
+     * @return extra environment for the runner, or null while setup.sh runs or another build populates the entry
+     */
+    private Map<String, String> prepareToolchain(FilePath workspace, FilePath pythonDir, TaskListener listener) throws IOException, InterruptedException {
+        Launcher launcher = workspace.createLauncher(listener);
+        ToolchainCache cache = toolchainCache(pythonDir);
+        if (cache != null) {
+            String key = cache.key(pythonDir);
+            Map<String, String> env = cache.use(key, pythonDir, listener);
+            if (env != null) {
+                toolchainEntry = cache.entry(key).getRemote();
+                leaseRenewed = System.currentTimeMillis();
+                return env;
+            }
+            FilePath entry = cache.beginBuild(key, pythonDir, listener);
+            if (entry == null) {
+                if (waitingStatus == null) {
+                    listener.getLogger().println("▶ Waiting for another build to populate toolchain cache entry " + key);
+                }
+                waitingStatus = "waiting for another build to populate toolchain cache entry " + key + " on " + nodeDisplayName(node);
+                return null;
+            }
+            toolchainKey = key;
+            try {
+                launchSetup(workspace, entry, ToolchainCache.setupEnv(entry), launcher, listener);
+            } catch (IOException | InterruptedException e) {
+                toolchainKey = null;
+                cache.endBuild(key, false, listener);
+                throw e;
+            }
+            return null;
+        }
+
+        // Links left by an earlier cached build must not be modified in place by setup.sh
+        for (FilePath link : new FilePath[] {pythonDir.child(".venv"), pythonDir.child("mcp/node_modules")}) {
+            if (link.readLink() != null) {
+                link.delete();
+            }
+        }
+        launchSetup(workspace, pythonDir, Collections.emptyMap(), launcher, listener);
+        return null;
+    }
+
+    private void launchSetup(FilePath workspace, FilePath dir, Map<String, String> env, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        FilePath control = DetachedRunner.controlDir(workspace, label() + "-setup");
+        control.deleteRecursive();
+        control.mkdirs();
+        setup = DetachedRunner.launch(control, launcher, dir, "bash setup.sh", env, null, null, listener);
+        // Persisted right away, so a restart reattaches instead of running setup.sh twice
+        getContext().saveState();
+    }
+
+    private static ToolchainCache toolchainCache(FilePath pythonDir) {
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        return config.isToolchainCacheEnabled()
+                ? ToolchainCache.forWorkspace(pythonDir, config.getToolchainCacheMaxSizeMb())
+                : null;
+    }
+
+    private DetachedRunner runTypeScriptBranch(
             FilePath workspace,
             TaskListener listener,
             Launcher launcher,
-            FilePath scenarioFilePath // File scenarioFile -> FilePath scenarioFilePath
+            FilePath control,
+            FilePath scenarioFilePath
     ) throws Exception {
         FilePath tsDir = workspace.child("resources/typescript");
         tsDir.mkdirs();
 
         Map<String, String> envVars = new HashMap<>();
-        if (step.getEnvFileCredentialsId() != null && !step.getEnvFileCredentialsId().isEmpty()) {
+        if (envFileCredentialsId != null && !envFileCredentialsId.isEmpty()) {
             FileCredentials envCred = CredentialsProvider.findCredentialById(
-                    step.getEnvFileCredentialsId(), FileCredentials.class, getContext().get(Run.class), Collections.emptyList()
+                    envFileCredentialsId, FileCredentials.class, getContext().get(Run.class), Collections.emptyList()
             );
             if (envCred == null) {
-                listener.error("❌ Could not find Secret File credential for credentialsId='" + step.getEnvFileCredentialsId() + "'.");
-                return;
+                throw new AbortException("Could not find Secret File credential for credentialsId='" + envFileCredentialsId + "'.");
             }
-            try (InputStream is = envCred.getContent();
-                 BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (line.startsWith("#") || line.isEmpty()) {
-                        continue;
-                    }
-                    int P_ = line.indexOf('=');
-                    if (P_ > 0) {
-                        String key = line.substring(0, P_).trim();
-                        String value = line.substring(P_ + 1).trim();
-                        if (value.startsWith("\"") && value.endsWith("\"") || value.startsWith("'") && value.endsWith("'")) {
-                            value = value.substring(1, value.length() - 1);
-                        }
-                        envVars.put(key, value);
-                    }
-                }
+            try (InputStream is = envCred.getContent()) {
+                envVars.putAll(parseEnvFile(is));
                 listener.getLogger().println("✅ Loaded .env content into environment variables for TypeScript.");
             } catch (IOException e) {
-                listener.error("❌ Failed to read .env credential for TypeScript: " + e.getMessage());
-                return;
+                throw new AbortException("Failed to read .env credential for TypeScript: " + e.getMessage());
             }
         }
         // JOB_NAME might be useful for TS scripts too, though not explicitly used in current python script's folder naming
         envVars.put("JOB_NAME", getContext().get(Run.class).getParent().getFullName());
 
-
         try {
             // Extract TS resources
-            extractResources("typescript", tsDir, listener);
-
-            // Install dependencies (including Playwright and playwright-core)
-            listener.getLogger().println("▶ Starting npm install"); // Already translated
-            int installExit = executeShell(tsDir, listener, launcher, "npm install", envVars); // Pass envVars
-            if (installExit != 0) {
-                listener.error("❌ npm install failed (exit=" + installExit + ")");
-                return;
-            }
-            listener.getLogger().println("▶ Starting additional playwright-core installation");
-            int coreExit = executeShell(tsDir, listener, launcher, "npm install playwright-core", envVars); // Pass envVars
-            if (coreExit != 0) {
-                listener.error("❌ playwright-core installation failed (exit=" + coreExit + ")");
-                return;
+            extractResources(tsDir.getParent(), listener);
+
+            // Plugin builds ship the runner precompiled with its production dependencies (see pom.xml);
+            // builds made with -Dtypescript.bundle.skip ship the sources, which still need npm install + ts-node.
+            // The installs then run detached as part of the runner command, so no thread waits for them either.
+            boolean bundled = tsDir.child(TS_RUNNER_BUNDLE).exists();
+            if (bundled) {
+                listener.getLogger().println("▶ Using precompiled TypeScript runner " + TS_RUNNER_BUNDLE);
+            } else {
+                listener.getLogger().println("▶ TypeScript sources without a precompiled runner: npm install runs before the scenario");
             }
 
             // Get build number (using Jenkins Run object)
             Run<?, ?> run = getContext().get(Run.class);
             String buildNumber = (run != null) ? Integer.toString(run.getNumber()) : "";
 
+            envVars.putAll(llmCacheEnv(workspace));
+            envVars.put(SNAPSHOT_TOKEN_BUDGET_ENV, Integer.toString(PlaywrightE2EConfiguration.get().getSnapshotTokenBudget()));
+
+            // Live progress, same event protocol as the Python runner
+            FilePath eventsFile = workspace.child(LOCAL_RESULTS_DIR + "/typescript.events.ndjson");
+            eventsFile.getParent().mkdirs();
+            envVars.put(RunnerEvents.EVENTS_ENV, eventsFile.getRemote());
+            BuildReportAction action = BuildReportAction.start(run, scriptPath, false);
+
             // Execute TS script: index.ts + --build flag
-            listener.getLogger().println("▶ Executing TS script: index.ts (passing scenario file and build number)"); // Already translated
+            listener.getLogger().println("▶ Executing TS script: index.ts (passing scenario file and build number)");
             String cmd = String.format(
-                    "npx ts-node index.ts '%s' --build %s",
+                    bundled ? "node " + TS_RUNNER_BUNDLE + " '%s' --build %s"
+                            : "npm install && npm install playwright-core && npx ts-node index.ts '%s' --build %s",
                     scenarioFilePath.getRemote(),
                     buildNumber
             );
-            int tsExit = executeShell(tsDir, listener, launcher, cmd, envVars); // Pass envVars
-            listener.getLogger().println("▶ TS execution finished (exit=" + tsExit + ")");
+            return DetachedRunner.launch(control, launcher, tsDir, cmd, envVars, eventsFile, action.getId(), listener);
         } finally {
-            // No .env file to delete from workspace anymore
-            listener.getLogger().println("▶ TypeScript script execution finished.");
+            listener.getLogger().println("▶ TypeScript setup finished.");
         }
     }
 
-    private void extractResources(String resourcePath, FilePath targetDir, TaskListener listener) throws IOException {
-        ClassLoader cl = getClass().getClassLoader();
-        URL dirURL = cl.getResource(resourcePath);
-        if (dirURL == null) throw new IOException("Resource path not found: " + resourcePath); // Already translated
-        if ("file".equals(dirURL.getProtocol())) {
-            try {
-                Path src = Paths.get(dirURL.toURI());
-                Files.walk(src).forEach(path -> {
-                    try {
-                        Path rel = src.relativize(path);
-                        File dest = new File(targetDir.getRemote(), rel.toString());
-                        if (Files.isDirectory(path)) {
-                            dest.mkdirs();
-                        } else {
-                            dest.getParentFile().mkdirs();
-                            Files.copy(path, dest.toPath());
-                        }
-                    } catch (Exception e) {
-                        listener.getLogger().println("Error copying resource: " + e.getMessage()); // Already translated
-                    }
-                });
-            } catch (URISyntaxException e) {
-                throw new IOException("Failed to convert resource path URI", e); // Already translated
+    private void finishTypeScript(TaskListener listener, Run<?,?> run, BuildReportAction action, int tsExit) throws IOException {
+        if (action != null) {
+            action.finish(run, tsExit == 0 ? "SUCCESS" : "FAIL");
+        }
+        listener.getLogger().println("▶ TS execution finished (exit=" + tsExit + ")");
+        listener.getLogger().println("▶ TypeScript script execution finished.");
+    }
+
+    /**
+     * Lets the Python runner use the node's warm MCP daemon (see python/mcp/daemon.js). Its state lives outside the
+     * workspace so builds of every job on the node share one daemon.
+     */
+    private static Map<String, String> mcpDaemonEnv(FilePath workspace) {
+        PlaywrightE2EConfiguration config = PlaywrightE2EConfiguration.get();
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath nodeRoot = node != null ? node.getRootPath() : null;
+        if (!config.isMcpDaemonEnabled() || nodeRoot == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> env = new HashMap<>();
+        env.put("PLAYWRIGHT_E2E_MCP_DAEMON_DIR", nodeRoot.child("playwright-e2e/mcp-daemon").getRemote());
+        env.put("PLAYWRIGHT_E2E_MCP_DAEMON_BROWSERS", Integer.toString(config.getMcpDaemonBrowsers()));
+        env.put("PLAYWRIGHT_E2E_MCP_DAEMON_MAX_USES", Integer.toString(config.getMcpDaemonMaxUses()));
+        env.put("PLAYWRIGHT_E2E_MCP_DAEMON_MAX_RSS_MB", Integer.toString(config.getMcpDaemonMaxMemoryMb()));
+        env.put("PLAYWRIGHT_E2E_MCP_DAEMON_IDLE_MINUTES", Integer.toString(config.getMcpDaemonIdleMinutes()));
+        return env;
+    }
+
+    /**
+     * Points the TypeScript runner at the node's LLM cache (see typescript/cache/llmCache.ts), which outlives
+     * workspaces so unchanged scenarios on unchanged pages skip the LLM on every build of every job on the node.
+     */
+    private static Map<String, String> llmCacheEnv(FilePath workspace) {
+        long maxSizeMb = PlaywrightE2EConfiguration.get().getLlmCacheMaxSizeMb();
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath nodeRoot = node != null ? node.getRootPath() : null;
+        if (maxSizeMb <= 0 || nodeRoot == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> env = new HashMap<>();
+        env.put("PLAYWRIGHT_E2E_LLM_CACHE", nodeRoot.child("playwright-e2e/llm-cache").getRemote());
+        env.put("PLAYWRIGHT_E2E_LLM_CACHE_MAX_MB", Long.toString(maxSizeMb));
+        return env;
+    }
+
+    /**
+     * Parses the content of a .env Secret File: KEY=VALUE lines, blank lines and # comments skipped, one pair of
+     * surrounding quotes removed from the value.
+     */
+    static Map<String, String> parseEnvFile(InputStream in) throws IOException {
+        Map<String, String> env = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue;
             }
-        } else if ("jar".equals(dirURL.getProtocol())) {
-            String jarPath = dirURL.getPath().substring(5, dirURL.getPath().indexOf("!"));
-            try (JarFile jar = new JarFile(URLDecoder.decode(jarPath, "UTF-8"))) {
-                Enumeration<JarEntry> entries = jar.entries();
-                while (entries.hasMoreElements()) {
-                    JarEntry entry = entries.nextElement();
-                    String name = entry.getName();
-                    if (!name.startsWith(resourcePath + "/")) continue;
-                    File out = new File(targetDir.getRemote(), name.substring(resourcePath.length() + 1));
-                    if (entry.isDirectory()) {
-                        out.mkdirs();
-                    } else {
-                        out.getParentFile().mkdirs();
-                        try (InputStream in = jar.getInputStream(entry);
-                             OutputStream os = new FileOutputStream(out)) {
-                            IOUtils.copy(in, os);
-                        }
-                    }
+            int eq = line.indexOf('=');
+            if (eq > 0) {
+                String key = line.substring(0, eq).trim();
+                String value = line.substring(eq + 1).trim();
+                // Remove surrounding quotes if any (optional, depends on .env format)
+                if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"") || value.startsWith("'") && value.endsWith("'"))) {
+                    value = value.substring(1, value.length() - 1);
                 }
+                env.put(key, value);
             }
-        } else {
-            throw new IOException("Unsupported protocol: " + dirURL.getProtocol()); // Already translated
         }
+        return env;
     }
 
-    private void cleanDosLineEndings(FilePath dir, TaskListener listener, Launcher launcher) throws IOException, InterruptedException {
-        listener.getLogger().println("▶ Starting CRLF removal"); // Already translated
-        executeShell(dir, listener, launcher, "find . -type f -name '*.sh' -exec sed -i 's/\r$//' {} +");
-        listener.getLogger().println("▶ CRLF removal complete"); // Already translated
+    /**
+     * Ensures the runner resources (python/ and typescript/) are present under {@code resourcesDir} on the agent.
+     * The plugin ships them as one gzipped tar with LF line endings and a content hash; the archive is streamed
+     * to the agent in a single round trip and only when the stamp left by the previous extraction differs.
+     */
+    static void extractResources(FilePath resourcesDir, TaskListener listener) throws IOException, InterruptedException {
+        ClassLoader cl = CoreLogicStepExecution.class.getClassLoader();
+        String hash;
+        try (InputStream in = cl.getResourceAsStream(RUNTIME_RESOURCES_HASH)) {
+            if (in == null) throw new IOException("Resource not found: " + RUNTIME_RESOURCES_HASH);
+            hash = IOUtils.toString(in, StandardCharsets.UTF_8).trim();
+        }
+        FilePath stamp = resourcesDir.child(RUNTIME_RESOURCES_STAMP);
+        if (stamp.exists() && hash.equals(stamp.readToString().trim())) {
+            listener.getLogger().println("▶ Runtime resources up to date (" + hash.substring(0, Math.min(12, hash.length())) + ")");
+            return;
+        }
+        listener.getLogger().println("▶ Extracting runtime resources to " + resourcesDir.getRemote());
+        try (InputStream in = cl.getResourceAsStream(RUNTIME_RESOURCES_ARCHIVE)) {
+            if (in == null) throw new IOException("Resource not found: " + RUNTIME_RESOURCES_ARCHIVE);
+            resourcesDir.mkdirs();
+            resourcesDir.untarFrom(in, FilePath.TarCompression.GZIP);
+        }
+        // Written last so an interrupted extraction is retried on the next build
+        stamp.write(hash, StandardCharsets.UTF_8.name());
     }
 
     private void changeMode(FilePath file, TaskListener listener, int mode) throws IOException, InterruptedException {
-        listener.getLogger().println("▶ chmod " + Integer.toOctalString(mode) + " " + file.getRemote()); // Already translated
+        listener.getLogger().println("▶ chmod " + Integer.toOctalString(mode) + " " + file.getRemote());
         file.chmod(mode);
     }
 
-    // Overload executeShell to accept envVars
-    private int executeShell(FilePath dir, TaskListener listener, Launcher launcher, String command, Map<String,String> envVars) throws IOException, InterruptedException {
+    static int executeShell(FilePath dir, TaskListener listener, Launcher launcher, String command, Map<String,String> envVars) throws IOException, InterruptedException {
         Launcher.ProcStarter procStarter = launcher.launch()
                 .cmds("bash", "-c", command)
                 .pwd(dir)
                 .stdout(listener)
                 .stderr(listener.getLogger())
-                .envs(envVars) // Use the passed environment variables
+                .envs(envVars)
                 .quiet(true);
         return procStarter.join();
     }
 
-    // Original executeShell for calls that don't need specific .env content (like cleanDosLineEndings)
-    private int executeShell(FilePath dir, TaskListener listener, Launcher launcher, String command) throws IOException, InterruptedException {
-        return executeShell(dir, listener, launcher, command, Collections.emptyMap()); // Call overloaded version with empty env
+    static int executeShell(FilePath dir, TaskListener listener, Launcher launcher, String command) throws IOException, InterruptedException {
+        return executeShell(dir, listener, launcher, command, Collections.emptyMap());
     }
 }
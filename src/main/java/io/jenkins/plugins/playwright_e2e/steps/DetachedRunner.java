@@ -0,0 +1,247 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.playwright_e2e.actions.BuildReportAction;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Durable handle of a runner process started detached from the controller, so a running step holds no controller
+ * thread and survives controller restarts.
+ * <p>
+ * The runner is started with nohup in its own session from a wrapper script in a control directory in the workspace,
+ * which holds {@code pid}, the combined output ({@code output.log}) and, once the runner exited, {@code exit-code}.
+ * The handle keeps only paths, the pid and read offsets; it is saved with the step so a resumed step picks up the
+ * same process, output and events where it left off.
+ */
+final class DetachedRunner implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(DetachedRunner.class.getName());
+    /** Control directories of running steps, relative to the workspace */
+    static final String CONTROL_DIR = ".playwright-e2e/control";
+    /** Time the runner gets to shut down its MCP server and browsers after SIGTERM before it is killed */
+    private static final long TERM_GRACE_MILLIS = 10_000;
+    private static final String PID_FILE = "pid";
+    private static final String LOG_FILE = "output.log";
+    private static final String EXIT_CODE_FILE = "exit-code";
+    private static final int MAX_LOG_CHUNK = 256 * 1024;
+    /** Exit code reported when the process is gone without writing one (killed, or the agent rebooted) */
+    static final int GONE = -1;
+
+    private final String controlDir;
+    private final String eventsFile;
+    private final int pid;
+    private final String actionId;
+    private long logOffset;
+    private final RunnerEvents events = new RunnerEvents();
+
+    private DetachedRunner(String controlDir, String eventsFile, int pid, String actionId) {
+        this.controlDir = controlDir;
+        this.eventsFile = eventsFile;
+        this.pid = pid;
+        this.actionId = actionId;
+    }
+
+    static FilePath controlDir(FilePath workspace, String label) {
+        return workspace.child(CONTROL_DIR + "/" + label);
+    }
+
+    /**
+     * Starts {@code command} in {@code pwd} detached from the launcher and returns as soon as its pid is known.
+     *
+     * @param control   control directory from {@link #controlDir}, created by the caller
+     * @param eventsFile NDJSON events the runner writes (see {@link RunnerEvents}), or null for a command without events
+     * @param actionId  id of the {@link BuildReportAction} that receives the events
+     */
+    static DetachedRunner launch(FilePath control, Launcher launcher, FilePath pwd, String command, Map<String, String> env,
+                                 FilePath eventsFile, String actionId, TaskListener listener) throws IOException, InterruptedException {
+        for (String name : new String[] {PID_FILE, LOG_FILE, EXIT_CODE_FILE}) {
+            control.child(name).delete();
+        }
+        if (eventsFile != null) {
+            eventsFile.delete();
+        }
+        FilePath script = control.child("run.sh");
+        String exitCode = control.child(EXIT_CODE_FILE).getRemote();
+        script.write("( cd " + quote(pwd.getRemote()) + " && " + command + " )\n"
+                + "status=$?\n"
+                // Renamed into place so the controller never reads a partial exit code
+                + "echo $status > " + quote(exitCode + ".tmp") + "\n"
+                + "mv " + quote(exitCode + ".tmp") + " " + quote(exitCode) + "\n", StandardCharsets.UTF_8.name());
+        // setsid makes the runner a process group leader, so an abort reaches the whole tree; it is skipped where missing
+        String detach = String.format("nohup $(command -v setsid) bash %s > %s 2>&1 < /dev/null & echo $! > %s",
+                quote(script.getRemote()), quote(control.child(LOG_FILE).getRemote()), quote(control.child(PID_FILE).getRemote()));
+        int exit = launcher.launch()
+                .cmds("bash", "-c", detach)
+                .pwd(pwd)
+                .envs(env)
+                .stdout(listener)
+                .stderr(listener.getLogger())
+                .quiet(true)
+                .join();
+        if (exit != 0) {
+            throw new IOException("Failed to start the runner (exit=" + exit + ")");
+        }
+        int pid;
+        try {
+            pid = Integer.parseInt(control.child(PID_FILE).readToString().trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Runner started without a valid pid in " + control.child(PID_FILE).getRemote(), e);
+        }
+        listener.getLogger().println("▶ Started detached (pid " + pid + "): " + command);
+        return new DetachedRunner(control.getRemote(), eventsFile != null ? eventsFile.getRemote() : null, pid, actionId);
+    }
+
+    int getPid() {
+        return pid;
+    }
+
+    String getActionId() {
+        return actionId;
+    }
+
+    /**
+     * Forwards new output to the build log, applies new events and reports whether the runner exited.
+     *
+     * @param workspace workspace of the step, on the agent that runs the process
+     * @return the exit code, {@link #GONE}, or null while the runner is still running
+     */
+    Integer check(FilePath workspace, TaskListener listener, BuildReportAction action, Run<?, ?> run) throws IOException, InterruptedException {
+        VirtualChannel channel = workspace.getChannel();
+        FilePath control = new FilePath(channel, controlDir);
+        // Probed before the output is read so nothing written before the exit is left behind
+        Integer exit = control.act(new Probe(pid));
+        FilePath log = control.child(LOG_FILE);
+        while (true) {
+            // Once it exited, a last line without a newline (typically a crash message) is forwarded as well
+            byte[] chunk = log.act(new RunnerEvents.ReadLines(logOffset, MAX_LOG_CHUNK, exit != null));
+            if (chunk.length == 0) {
+                break;
+            }
+            listener.getLogger().write(chunk);
+            logOffset += chunk.length;
+        }
+        if (eventsFile != null) {
+            events.poll(new FilePath(channel, eventsFile), action, run);
+        }
+        if (exit != null) {
+            events.save(run);
+            if (exit == GONE) {
+                listener.error("❌ Runner process " + pid + " is gone without an exit code (killed, or the agent restarted)");
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Kills the runner's process tree in the calling thread: SIGTERM to its process group and every descendant
+     * (browsers run in process groups of their own), then SIGKILL to whatever survives {@link #TERM_GRACE_MILLIS}.
+     * The agent side bounds the wait, so callers on a {@link jenkins.util.Timer} task hold no second pool thread.
+     */
+    void kill(FilePath workspace) {
+        try {
+            new FilePath(workspace.getChannel(), controlDir).act(new Kill(pid));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to kill the runner process tree", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes the control directory once the step is done with the runner.
+     */
+    void cleanup(FilePath workspace) throws IOException, InterruptedException {
+        new FilePath(workspace.getChannel(), controlDir).deleteRecursive();
+    }
+
+    private static String quote(String path) {
+        return "'" + path.replace("'", "'\\''") + "'";
+    }
+
+    private static boolean isAlive(int pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    /**
+     * Returns the exit code, {@link #GONE} or null while the process is alive. Liveness is checked first: a process
+     * found dead has written its exit code by then if it ever will.
+     */
+    private static final class Probe extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int pid;
+
+        Probe(int pid) {
+            this.pid = pid;
+        }
+
+        @Override
+        public Integer invoke(File dir, VirtualChannel channel) throws IOException {
+            boolean alive = isAlive(pid);
+            File exitCode = new File(dir, EXIT_CODE_FILE);
+            if (exitCode.isFile()) {
+                try {
+                    return Integer.parseInt(new String(Files.readAllBytes(exitCode.toPath()), StandardCharsets.UTF_8).trim());
+                } catch (NumberFormatException e) {
+                    return GONE;
+                }
+            }
+            return alive ? null : GONE;
+        }
+    }
+
+    private static final class Kill extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final int pid;
+
+        Kill(int pid) {
+            this.pid = pid;
+        }
+
+        @Override
+        public Void invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!isAlive(pid)) {
+                return null;
+            }
+            // Collected first: once the runner is gone its descendants are re-parented and out of reach
+            List<ProcessHandle> descendants = ProcessHandle.of(pid)
+                    .map(p -> p.descendants().collect(Collectors.toList()))
+                    .orElse(List.of());
+            signal("TERM");
+            descendants.forEach(ProcessHandle::destroy);
+            long deadline = System.currentTimeMillis() + TERM_GRACE_MILLIS;
+            while (System.currentTimeMillis() < deadline
+                    && (isAlive(pid) || descendants.stream().anyMatch(ProcessHandle::isAlive))) {
+                Thread.sleep(200);
+            }
+            if (isAlive(pid)) {
+                signal("KILL");
+            }
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            return null;
+        }
+
+        private void signal(String signal) throws IOException, InterruptedException {
+            // The negative pid addresses the process group; falls back to the process when it is no group leader
+            new ProcessBuilder("bash", "-c", "kill -" + signal + " -- -" + pid + " 2>/dev/null || kill -" + signal + " " + pid + " 2>/dev/null")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start()
+                    .waitFor();
+        }
+    }
+}
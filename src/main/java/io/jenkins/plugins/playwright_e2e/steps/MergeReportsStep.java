@@ -0,0 +1,72 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.Set;
+
+/**
+ * Companion of {@link CoreLogicStep} for sharded runs: merges every shard slice of the
+ * current build into one report.html and finalizes the build's single report status.
+ */
+public class MergeReportsStep extends Step {
+    /** Number of shards expected to have reported; 0 skips the completeness check */
+    private int shardCount;
+    private String scriptPath;
+
+    @DataBoundConstructor
+    public MergeReportsStep() {
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @DataBoundSetter
+    public void setShardCount(int shardCount) {
+        this.shardCount = Math.max(0, shardCount);
+    }
+
+    public String getScriptPath() {
+        return scriptPath;
+    }
+
+    @DataBoundSetter
+    public void setScriptPath(String scriptPath) {
+        this.scriptPath = scriptPath;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new MergeReportsStepExecution(this, context);
+    }
+
+    @Extension
+    @Symbol("playwrightE2EMerge")
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "playwrightE2EMerge";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Merge Playwright E2E Test Shards";
+        }
+
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class, FilePath.class, Launcher.class);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.playwright_e2e.actions.BuildReportAction;
+import io.jenkins.plugins.playwright_e2e.core.ResultsIndex;
+import io.jenkins.plugins.playwright_e2e.core.ResultsLayout;
+import io.jenkins.plugins.playwright_e2e.core.ResultsPublisher;
+import io.jenkins.plugins.playwright_e2e.extensions.dto.BuildManifest;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import java.io.File;
+
+public class MergeReportsStepExecution extends SynchronousNonBlockingStepExecution<Void> {
+    private static final long serialVersionUID = 1L;
+    private final transient MergeReportsStep step;
+
+    protected MergeReportsStepExecution(MergeReportsStep step, StepContext context) {
+        super(context);
+        this.step = step;
+    }
+
+    @Override
+    protected Void run() throws Exception {
+        FilePath workspace = getContext().get(FilePath.class);
+        if (workspace == null) {
+            throw new IllegalStateException("Could not get workspace");
+        }
+        TaskListener listener = getContext().get(TaskListener.class);
+        Run<?, ?> run = getContext().get(Run.class);
+        Launcher launcher = workspace.createLauncher(listener);
+
+        String buildId = ResultsLayout.buildDirName(run);
+        File buildDir = ResultsLayout.buildDir(run);
+        listener.getLogger().println("▶ Merging shard results in: " + buildDir.getAbsolutePath());
+
+        // Shard slices live on the controller; only their JSON (not screenshots) is needed to merge them on the agent
+        FilePath mergeDir = workspace.child(CoreLogicStepExecution.LOCAL_RESULTS_DIR + "/merge/" + buildId);
+        mergeDir.deleteRecursive();
+        mergeDir.mkdirs();
+        int mergeExit;
+        try {
+            new FilePath(buildDir).copyRecursiveTo("shard-*.json,*/result.json", mergeDir);
+
+            // report.py only needs the standard library, so the toolchain (setup.sh) is not required here
+            FilePath pythonDir = workspace.child("resources/python");
+            CoreLogicStepExecution.extractResources(pythonDir.getParent(), listener);
+            mergeExit = CoreLogicStepExecution.executeShell(pythonDir, listener, launcher,
+                    String.format("python3 report.py --merge '%s' --build_id '%s'", mergeDir.getRemote(), buildId));
+            if (mergeExit != 0) {
+                listener.error("❌ Shard merge failed (exit=" + mergeExit + ")");
+            } else {
+                // manifest.json last: it is the commit point the report views read
+                ResultsPublisher.publishFiles(mergeDir, buildId, "report.html", BuildManifest.FILE_NAME);
+            }
+        } finally {
+            mergeDir.deleteRecursive();
+        }
+
+        ResultsIndex.get().update(buildId);
+
+        BuildReportAction action = BuildReportAction.recordMerge(run, step.getScriptPath(), step.getShardCount(), mergeExit == 0);
+        if (step.getShardCount() > 0 && action.getShardStatuses().size() < step.getShardCount()) {
+            listener.error("❌ Only " + action.getShardStatuses().size() + " of " + step.getShardCount() + " shard(s) reported results.");
+        }
+        listener.getLogger().println("▶ Merged status: " + action.getStatus());
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.playwright_e2e.actions.BuildReportAction;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tails the NDJSON event file written by the runner (see python/events.py) and applies it to the live
+ * {@link BuildReportAction}.
+ * <p>
+ * Each poll fetches only the bytes after the last complete line already read, in bounded chunks, so neither side
+ * buffers the whole stream and a half-written last line is picked up by the next poll. Only the read position is
+ * kept, as part of the step's persisted state, so a resumed step continues where it left off.
+ */
+final class RunnerEvents implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(RunnerEvents.class.getName());
+    /** Environment variable telling the runner where to write its events */
+    static final String EVENTS_ENV = "PLAYWRIGHT_E2E_EVENTS";
+    private static final int MAX_CHUNK = 256 * 1024;
+    /** Persist progress at most this often while running; the in-memory action is always current */
+    private static final long SAVE_MILLIS = 30_000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private long offset;
+    private transient long lastSave = System.currentTimeMillis();
+    private transient boolean dirty;
+
+    /**
+     * Applies the events appended since the last poll.
+     *
+     * @param action the action to update; events are consumed but dropped when it is gone
+     */
+    void poll(FilePath file, BuildReportAction action, Run<?, ?> run) throws IOException, InterruptedException {
+        while (true) {
+            byte[] chunk = file.act(new ReadLines(offset, MAX_CHUNK));
+            if (chunk.length == 0) {
+                break;
+            }
+            offset += chunk.length;
+            int start = 0;
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk[i] == '\n') {
+                    if (action != null) {
+                        apply(action, new String(chunk, start, i - start, StandardCharsets.UTF_8));
+                    }
+                    start = i + 1;
+                }
+            }
+        }
+        if (dirty && System.currentTimeMillis() - lastSave > SAVE_MILLIS) {
+            save(run);
+        }
+    }
+
+    void save(Run<?, ?> run) throws IOException {
+        if (dirty) {
+            run.save();
+            dirty = false;
+            lastSave = System.currentTimeMillis();
+        }
+    }
+
+    private void apply(BuildReportAction action, String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        JsonNode event;
+        try {
+            event = MAPPER.readTree(line);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Skipping malformed runner event: {0}", line);
+            return;
+        }
+        int index = event.path("index").asInt(0);
+        switch (event.path("type").asText()) {
+            case "run_started":
+                action.runStarted(event.path("total").asInt(0));
+                break;
+            case "scenario_started":
+                action.scenarioStarted(index, event.path("title").asText(""), event.path("ts").asLong(System.currentTimeMillis()));
+                break;
+            case "step_result":
+                action.stepResult(index, event.path("status").asBoolean(false));
+                break;
+            case "screenshot_saved":
+                action.screenshotSaved(index);
+                break;
+            case "llm_call":
+                action.llmCall(index, event.path("ms").asLong(0),
+                        event.path("input_tokens").asLong(0), event.path("output_tokens").asLong(0));
+                break;
+            case "tool_call":
+                action.toolCall(index, event.path("ms").asLong(0));
+                break;
+            case "scenario_finished":
+                action.scenarioFinished(index, event.path("status").asBoolean(false), event.path("duration_ms").asLong(0));
+                break;
+            default:
+                // run_finished and unknown (newer) events carry nothing the action tracks
+                return;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Reads up to {@code max} bytes from {@code offset}, cut after the last complete line unless {@code flush} is set:
+     * once the writer has exited, a last line without a trailing newline is complete too.
+     */
+    static final class ReadLines extends MasterToSlaveFileCallable<byte[]> {
+        private static final long serialVersionUID = 1L;
+        private final long offset;
+        private final int max;
+        private final boolean flush;
+
+        ReadLines(long offset, int max) {
+            this(offset, max, false);
+        }
+
+        ReadLines(long offset, int max, boolean flush) {
+            this.offset = offset;
+            this.max = max;
+            this.flush = flush;
+        }
+
+        @Override
+        public byte[] invoke(File f, VirtualChannel channel) throws IOException {
+            if (!f.isFile() || f.length() <= offset) {
+                return new byte[0];
+            }
+            try (RandomAccessFile in = new RandomAccessFile(f, "r")) {
+                in.seek(offset);
+                byte[] buffer = new byte[(int) Math.min(max, f.length() - offset)];
+                int read = in.read(buffer);
+                if (read <= 0) {
+                    return new byte[0];
+                }
+                int end = read;
+                if (flush && offset + read == f.length()) {
+                    return Arrays.copyOf(buffer, read);
+                }
+                while (end > 0 && buffer[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0 && read == max) {
+                    // A single line longer than the chunk: pass it through whole-chunk so the tail keeps moving
+                    end = read;
+                }
+                return Arrays.copyOf(buffer, end);
+            }
+        }
+    }
+}
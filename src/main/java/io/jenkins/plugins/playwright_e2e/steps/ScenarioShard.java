@@ -0,0 +1,50 @@
+package io.jenkins.plugins.playwright_e2e.steps;
+
+import io.jenkins.plugins.playwright_e2e.extensions.dto.ScriptModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic slice of a scenario file for one shard.
+ * Scenarios are split into contiguous blocks whose sizes differ by at most one,
+ * so every shard keeps the global (1-based) scenario numbers of the original file.
+ */
+final class ScenarioShard {
+    private final ScriptModel model;
+    private final int firstIndex;
+
+    private ScenarioShard(ScriptModel model, int firstIndex) {
+        this.model = model;
+        this.firstIndex = firstIndex;
+    }
+
+    static ScenarioShard of(ScriptModel source, int shardIndex, int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("shardIndex must be between 0 and shardCount - 1 (shardIndex="
+                    + shardIndex + ", shardCount=" + shardCount + ")");
+        }
+        List<ScriptModel.Scenario> all = source.getScenarios();
+        int size = all.size();
+        int base = size / shardCount;
+        int extra = size % shardCount;
+        // The first 'extra' shards take one more scenario each
+        int from = shardIndex * base + Math.min(shardIndex, extra);
+        int to = from + base + (shardIndex < extra ? 1 : 0);
+        ScriptModel slice = new ScriptModel(source.getTitle(), new ArrayList<>(all.subList(from, to)));
+        return new ScenarioShard(slice, from + 1);
+    }
+
+    ScriptModel getModel() {
+        return model;
+    }
+
+    /** Global number of the first scenario in this slice (1-based). */
+    int getFirstIndex() {
+        return firstIndex;
+    }
+
+    int size() {
+        return model.getScenarios().size();
+    }
+}
@@ -0,0 +1,44 @@
+"""
+NDJSON event stream for live progress in Jenkins.
+
+When PLAYWRIGHT_E2E_EVENTS is set, every event is appended to that file as one
+JSON object per line; the Jenkins step tails the file while the runner is alive.
+Each line is written with a single O_APPEND write, so events from concurrent
+workers never interleave. Without the variable nothing is written.
+
+Protocol (every event has "type" and "ts", epoch milliseconds):
+  run_started        total
+  scenario_started   index, title
+  step_result        index, num, status, action
+  screenshot_saved   index, name
+  llm_call           index, ms, input_tokens, output_tokens (tokens when known)
+  tool_call          index, tool, ms, error
+  scenario_finished  index, status, duration_ms
+  run_finished       passed, failed
+The TypeScript executor writes the same protocol (typescript/events/eventStream.ts).
+Only the standard library is used.
+"""
+import json
+import os
+import time
+
+EVENTS_ENV = "PLAYWRIGHT_E2E_EVENTS"
+
+_path = os.getenv(EVENTS_ENV)
+
+
+def emit(event_type: str, **fields):
+    if not _path:
+        return
+    payload = {"type": event_type, "ts": int(time.time() * 1000)}
+    payload.update(fields)
+    line = (json.dumps(payload, ensure_ascii=False) + "\n").encode("utf-8")
+    try:
+        fd = os.open(_path, os.O_WRONLY | os.O_APPEND | os.O_CREAT, 0o644)
+        try:
+            os.write(fd, line)
+        finally:
+            os.close(fd)
+    except OSError:
+        # 진행 상황 표시용이므로 기록 실패가 테스트를 멈추게 하지 않음
+        pass
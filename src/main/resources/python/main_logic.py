@@ -7,18 +7,38 @@ import base64
 from pydantic import BaseModel
 from typing import List, Optional, Tuple
 from mcp import ClientSession, StdioServerParameters
+from mcp.client.sse import sse_client
 from mcp.client.stdio import stdio_client
 from langchain_mcp_adapters.tools import load_mcp_tools
 from langgraph.prebuilt import create_react_agent
 from langchain_core.messages import ToolMessage
 from langchain_core.messages import AIMessage
+from langchain_core.callbacks import AsyncCallbackHandler
+from langchain_core.tools import StructuredTool
 from langchain_openai import ChatOpenAI
 from langchain_anthropic import ChatAnthropic
 from langchain.output_parsers import PydanticOutputParser
 from langchain.prompts import PromptTemplate
 from dotenv import load_dotenv
+from events import emit
+from mcp_daemon import ensure_daemon
+from metrics import ScenarioMetrics, elapsed_ms
+from replay import extract_calls, load_recording, mark_stale, save_recording
+from report import generate_combined_html_report, load_results
+from snapshots import SnapshotCompactor
+from results_store import (
+    build_manifest,
+    publish_dir,
+    publish_slice,
+    staging_dir,
+    store_blob,
+    store_blob_file,
+    write_json_atomic,
+    write_manifest,
+)
+from stub_model import StubChatModel
 import re
-import shutil
+import tempfile
 import time
 
 # Pydantic models for parsing AI output
@@ -64,6 +84,8 @@ system_prompt = """
   
 - browser_type을 호출하는 경우 parameter로 exact는 넣지 마.
 - 요소를 확인하는 step은 snapshot 정보를 활용해서 확인해.
+- 페이지 스냅샷은 요소당 한 줄인 압축 형식이고, ref는 `e12`처럼 보이는 그대로 사용해.
+  같은 페이지의 이후 스냅샷은 달라진 줄만 보여줘 (`+` 추가, `-` 삭제, `@ after` 위치). 나열되지 않은 요소는 그대로이고 ref도 같아.
 
 - **브라우저 종료 주의사항**:
   - 시나리오에 **명시적으로 브라우저를 닫으라는 지시가 있는 경우에만** `browser_close` 툴을 사용해야 해.
@@ -130,9 +152,75 @@ def extract_json_from_message(msg: AIMessage) -> str:
     raise ValueError("AIMessage.content 구조를 파싱할 수 없습니다.")
 
 
+# LLM/도구 호출 시간을 이벤트 스트림으로 보고 (Jenkins 라이브 진행 표시용), 시나리오 측정값(metrics.py)에도 기록
+class TimingCallback(AsyncCallbackHandler):
+    def __init__(self, index: int, metrics: Optional[ScenarioMetrics] = None):
+        self.index = index
+        self.metrics = metrics
+        self._starts = {}
+
+    async def on_chat_model_start(self, serialized, messages, *, run_id, **kwargs):
+        self._starts[run_id] = (time.perf_counter(), None)
+
+    async def on_llm_start(self, serialized, prompts, *, run_id, **kwargs):
+        self._starts[run_id] = (time.perf_counter(), None)
+
+    async def on_llm_end(self, response, *, run_id, **kwargs):
+        started = self._starts.pop(run_id, None)
+        if started is None:
+            return
+        usage = {}
+        for generations in response.generations or []:
+            for gen in generations:
+                meta = getattr(getattr(gen, "message", None), "usage_metadata", None) or {}
+                for key in ("input_tokens", "output_tokens"):
+                    if meta.get(key) is not None:
+                        usage[key] = usage.get(key, 0) + meta[key]
+        ms = elapsed_ms(started[0])
+        if self.metrics is not None:
+            self.metrics.llm(ms, **usage)
+        emit("llm_call", index=self.index, ms=int(ms), **usage)
+
+    async def on_llm_error(self, error, *, run_id, **kwargs):
+        started = self._starts.pop(run_id, None)
+        if started is not None:
+            ms = elapsed_ms(started[0])
+            if self.metrics is not None:
+                self.metrics.llm(ms, error=True)
+            emit("llm_call", index=self.index, ms=int(ms), error=True)
+
+    async def on_tool_start(self, serialized, input_str, *, run_id, **kwargs):
+        self._starts[run_id] = (time.perf_counter(), (serialized or {}).get("name"))
+
+    async def on_tool_end(self, output, *, run_id, **kwargs):
+        self._tool_done(run_id, False)
+
+    async def on_tool_error(self, error, *, run_id, **kwargs):
+        self._tool_done(run_id, True)
+
+    def _tool_done(self, run_id, error: bool):
+        started = self._starts.pop(run_id, None)
+        if started is None:
+            return
+        ms = elapsed_ms(started[0])
+        if self.metrics is not None:
+            self.metrics.tool(started[1], ms, error)
+        emit("tool_call", index=self.index, tool=started[1], ms=int(ms), error=error)
+
+
+# 스크린샷을 blob 저장소에 쓰는 시간(디코딩 포함)을 측정
+def _store_screenshot(blob_root: str, data, metrics: Optional[ScenarioMetrics], from_file: bool = False) -> str:
+    start = time.perf_counter()
+    name = store_blob_file(blob_root, data) if from_file else store_blob(blob_root, base64.b64decode(data))
+    if metrics is not None:
+        metrics.screenshot(elapsed_ms(start))
+    return name
+
+
 # Save JSON result per scenario
 def save_result(
-        scenario: dict, result: WebTestResult, screenshots: List[str], scenario_dir: str
+        scenario: dict, result: WebTestResult, screenshots: List[str], scenario_dir: str,
+        metrics: Optional[dict] = None
 ):
     payload = {
         "title": scenario.get("title", ""),
@@ -140,46 +228,51 @@ def save_result(
         "duration": result.duration,
         "feedback": result.feedback,
         "fail": [f.model_dump() for f in result.fail] if result.fail else None,
+        "steps": [st.model_dump() for st in result.steps],
         "screenshots": screenshots,
     }
+    if metrics is not None:
+        payload["metrics"] = metrics
     with open(os.path.join(scenario_dir, "result.json"), "w", encoding="utf-8") as f:
         json.dump(payload, f, ensure_ascii=False, indent=2)
 
 
 # Core logic: run steps and collect results
 def run_logic(
-        agent, steps: List[str], screenshot_dir: str
-) -> asyncio.Task[Tuple[WebTestResult, List[str]]]:
-    return asyncio.create_task(_run_logic(agent, steps, screenshot_dir))
+        agent, steps: List[str], blob_root: str, index: int = 1, resume_note: Optional[str] = None,
+        metrics: Optional[ScenarioMetrics] = None
+) -> asyncio.Task[Tuple[WebTestResult, List[str], List[dict]]]:
+    return asyncio.create_task(_run_logic(agent, steps, blob_root, index, resume_note, metrics))
 
 
+# 스크린샷은 blob 저장소(blob_root/.blobs)에 내용 해시로 한 번만 저장하고, 참조 이름(<sha256>.png)을 반환
+# 통과 시 기록할 수 있도록 성공한 도구 호출 목록도 함께 반환
 async def _run_logic(
-        agent, steps: List[str], screenshot_dir: str
-) -> Tuple[WebTestResult, List[str]]:
+        agent, steps: List[str], blob_root: str, index: int = 1, resume_note: Optional[str] = None,
+        metrics: Optional[ScenarioMetrics] = None
+) -> Tuple[WebTestResult, List[str], List[dict]]:
+    instruction = create_instruction(steps)
+    if resume_note:
+        instruction += "\n\n" + resume_note
     response = await agent.ainvoke(
         {
             "messages": [
                 {"role": "system", "content": prompt.format()},
-                {"role": "user", "content": create_instruction(steps)},
+                {"role": "user", "content": instruction},
             ]
         },
-        config={"recursion_limit": 100},
+        config={"recursion_limit": 100, "callbacks": [TimingCallback(index, metrics)]},
     )
 
     saved = []
-    count = 1
     for ev in response["messages"]:
         if isinstance(ev, ToolMessage):
             # Artifact-based screenshot
             if getattr(ev, "artifact", None):
                 for art in ev.artifact:
                     if getattr(art, "type", "") == "image" and hasattr(art, "data"):
-                        fname = f"{count}.png"
-                        out = os.path.join(screenshot_dir, fname)
-                        with open(out, "wb") as imgf:
-                            imgf.write(base64.b64decode(art.data))
-                        saved.append(fname)
-                        count += 1
+                        saved.append(_store_screenshot(blob_root, art.data, metrics))
+                        emit("screenshot_saved", index=index, name=saved[-1])
             # Legacy content-based screenshot
             if isinstance(ev.content, str):
                 try:
@@ -188,43 +281,165 @@ async def _run_logic(
                         if isinstance(it, str) and it.startswith("[screenshot_path] "):
                             src = it.split("[screenshot_path] ", 1)[1].strip()
                             if os.path.isfile(src):
-                                fname = f"{count}.png"
-                                dst = os.path.join(screenshot_dir, fname)
-                                shutil.copy(src, dst)
-                                saved.append(fname)
-                                count += 1
+                                saved.append(_store_screenshot(blob_root, src, metrics, from_file=True))
+                                emit("screenshot_saved", index=index, name=saved[-1])
                 except json.JSONDecodeError:
                     pass
 
     last = response["messages"][-1]
     json_text = extract_json_from_message(last)
     result = output_parser.parse(json_text)
-    return result, saved
+    return result, saved, extract_calls(response["messages"])
+
+
+# 기록된 도구 호출을 LLM 없이 MCP 서버에 직접 재생
+# 반환: (재생에 성공한 호출 수, 스크린샷, 어긋난 경우 오류 메시지)
+async def _replay(
+        session: ClientSession, calls: List[dict], blob_root: str, index: int,
+        metrics: Optional[ScenarioMetrics] = None, compactor: Optional[SnapshotCompactor] = None
+) -> Tuple[int, List[str], Optional[str]]:
+    saved = []
+    for done, call in enumerate(calls):
+        start = time.perf_counter()
+        args = call.get("args") or {}
+        if compactor is not None:
+            # 기록된 ref(e12)를 재생 중인 페이지의 실제 ref로 변환
+            args = compactor.resolve_args(args)
+        try:
+            res = await session.call_tool(call["name"], args)
+        except Exception as e:
+            ms = elapsed_ms(start)
+            if metrics is not None:
+                metrics.tool(call["name"], ms, True)
+            emit("tool_call", index=index, tool=call["name"], ms=int(ms), error=True)
+            return done, saved, f"{call['name']}: {e}"
+        ms = elapsed_ms(start)
+        if metrics is not None:
+            metrics.tool(call["name"], ms, bool(res.isError))
+        emit("tool_call", index=index, tool=call["name"], ms=int(ms), error=bool(res.isError))
+        if res.isError:
+            text = " ".join(getattr(c, "text", "") for c in res.content if getattr(c, "type", "") == "text")
+            return done, saved, f"{call['name']}: {text.strip()[:500]}"
+        for content in res.content:
+            if compactor is not None and getattr(content, "type", "") == "text":
+                compactor.observe(content.text)
+            if getattr(content, "type", "") == "image" and getattr(content, "data", None):
+                saved.append(_store_screenshot(blob_root, content.data, metrics))
+                emit("screenshot_saved", index=index, name=saved[-1])
+    return len(calls), saved, None
+
+
+# 재생이 어긋난 지점부터 에이전트가 이어서 수행하도록 전달하는 안내문
+def _resume_note(replayed: List[dict], error: str) -> str:
+    lines = [
+        "참고: 이 시나리오는 이전에 통과한 실행의 도구 호출을 재생하는 중이었어.",
+        "아래 도구 호출은 이미 성공적으로 수행되었고, 브라우저는 그 이후 상태야:",
+    ]
+    lines += [f"- {c['name']} {json.dumps(c.get('args') or {}, ensure_ascii=False)}" for c in replayed] or ["- (없음)"]
+    lines += [
+        f"그 다음 호출이 실패했어: {error}",
+        "현재 페이지 상태를 먼저 확인하고, 아직 완료되지 않은 스텝부터 이어서 수행해.",
+        "결과 JSON에는 이미 수행된 스텝을 포함해 모든 스텝을 넣어.",
+    ]
+    return "\n".join(lines)
+
+
+def _replayed_result(scenario: dict, recording: dict) -> WebTestResult:
+    calls = len(recording["calls"])
+    steps = recording.get("steps") or [
+        {"num": i + 1, "action": step} for i, step in enumerate(scenario.get("steps", []))
+    ]
+    return WebTestResult(
+        title=scenario.get("title", ""),
+        status=True,
+        duration=0.0,
+        feedback=f"기록된 도구 호출 {calls}개를 재생하여 통과 (LLM 미사용)",
+        fail=None,
+        steps=[
+            StepResult(num=st["num"], action=st["action"], status=True, duration=0.0, feedback="재생", fail=None)
+            for st in steps
+        ],
+    )
 
 
 # Execute a single scenario
 def run_scenario(
-        agent, scenario: dict, index: int, output_dir: str
+        model, tools: list, scenario: dict, index: int, output_dir: str, blob_root: str,
+        session: Optional[ClientSession] = None, replay: bool = False
 ) -> asyncio.Task[Tuple[int, WebTestResult, List[str]]]:
-    return asyncio.create_task(_run_scenario(agent, scenario, index, output_dir))
+    return asyncio.create_task(_run_scenario(model, tools, scenario, index, output_dir, blob_root, session, replay))
+
+
+# MCP 도구 결과의 페이지 스냅샷을 압축/차분 형식으로 바꾸고, 모델이 보낸 ref를 실제 ref로 변환
+def _compact_tools(tools: list, compactor: SnapshotCompactor) -> list:
+    def wrap(tool):
+        async def call(**arguments):
+            content, artifact = await tool.coroutine(**compactor.resolve_args(arguments))
+            if isinstance(content, str):
+                content = compactor.rewrite(content)
+            elif isinstance(content, list):
+                content = [compactor.rewrite(c) if isinstance(c, str) else c for c in content]
+            return content, artifact
+
+        return StructuredTool(
+            name=tool.name,
+            description=tool.description,
+            args_schema=tool.args_schema,
+            coroutine=call,
+            response_format=tool.response_format,
+        )
+
+    return [wrap(tool) for tool in tools]
 
 
 async def _run_scenario(
-        agent,
+        model,
+        tools: list,
         scenario: dict,
         index: int,
-        output_dir: str
+        output_dir: str,
+        blob_root: str,
+        session: Optional[ClientSession] = None,
+        replay: bool = False
 ) -> Tuple[int, WebTestResult, List[str]]:
 
     # 시나리오 시작 시각 측정
     scenario_start = time.perf_counter()
 
     scenario_dir = os.path.join(output_dir, f"{index}")
-    screenshot_dir = os.path.join(scenario_dir, 'screenshots')
-    os.makedirs(screenshot_dir, exist_ok=True)
-
-    # AI 호출 및 결과 저장
-    result, screenshots = await _run_logic(agent, scenario.get('steps', []), screenshot_dir)
+    os.makedirs(scenario_dir, exist_ok=True)
+
+    emit("scenario_started", index=index, title=scenario.get("title", ""))
+
+    metrics = ScenarioMetrics()
+    # 시나리오마다 새로 시작: 첫 스냅샷은 전체, 이후는 차분
+    compactor = SnapshotCompactor(metrics=metrics)
+    recording = load_recording(blob_root, scenario) if replay and session is not None else None
+    replayed: List[dict] = []
+    screenshots: List[str] = []
+    result = None
+    resume_note = None
+    if recording is not None:
+        done, screenshots, error = await _replay(session, recording["calls"], blob_root, index, metrics, compactor)
+        if error is None:
+            print(f"[시나리오 {index}] 기록된 도구 호출 {done}개 재생으로 통과")
+            result = _replayed_result(scenario, recording)
+        else:
+            print(f"[시나리오 {index}] 재생이 {done + 1}번째 호출에서 어긋남, LLM으로 이어서 실행: {error}")
+            replayed = recording["calls"][:done]
+            resume_note = _resume_note(replayed, error)
+
+    if result is None:
+        # AI 호출 및 결과 저장
+        # 재생 중 본 스냅샷은 모델이 보지 않았으므로 차분 기준에서 제외 (ref 매핑은 유지)
+        compactor.forget_page()
+        agent = create_react_agent(model, _compact_tools(tools, compactor))
+        result, more, calls = await _run_logic(agent, scenario.get('steps', []), blob_root, index, resume_note, metrics)
+        screenshots += more
+        if result.status:
+            save_recording(blob_root, scenario, replayed + calls, [st.model_dump() for st in result.steps])
+        elif recording is not None:
+            mark_stale(blob_root, scenario)
 
     # 시나리오 종료 시각 측정 및 duration 덮어쓰기
     scenario_end = time.perf_counter()
@@ -233,216 +448,72 @@ async def _run_scenario(
     # AI가 준 title 대신, 실제 시나리오의 title 사용
     result.title = scenario.get("title", "")
 
-    save_result(scenario, result, screenshots, scenario_dir)
+    save_result(scenario, result, screenshots, scenario_dir, metrics.to_dict())
+    for st in result.steps:
+        emit("step_result", index=index, num=st.num, status=bool(st.status), action=st.action)
+    emit("scenario_finished", index=index, status=bool(result.status), duration_ms=int(result.duration * 1000))
     return index, result, screenshots
 
 
-# Generate single combined HTML report at root of output_dir
-def generate_combined_html_report(
-        results: List[Tuple[int, WebTestResult, List[str]]],
+# Worker: one isolated MCP server/browser, scenarios pulled from the shared queue
+async def _run_worker(
+        model,
+        mcp_path: str,
+        profiles_dir: str,
+        worker_id: int,
+        queue: asyncio.Queue,
         output_dir: str,
-        test_start: datetime,
-        test_duration_ms: float,
-        test_id: str
+        blob_root: str,
+        results: List[Tuple[int, WebTestResult, List[str]]],
+        fail_fast: int = 0,
+        stop: Optional[asyncio.Event] = None,
+        replay: bool = False,
+        daemon_url: Optional[str] = None,
 ):
-    build_id = os.path.basename(output_dir)
-    total_steps = len(results)
-    passed_steps = sum(1 for _, r, _ in results if r.status)
-    failed_steps = total_steps - passed_steps
-
-    # Inline CSS to embed directly in the HTML
-    css = '''
-/* Reset */
-* {
-  box-sizing: border-box;
-  margin: 0;
-  padding: 0;
-}
-body {
-  font-family: "Segoe UI", Tahoma, sans-serif;
-  background: #f9f9f9;
-  color: #333;
-  padding: 20px;
-}
-
-/* 헤더 */
-.header {
-  background: #4a90e2;
-  color: white;
-  padding: 20px;
-  border-radius: 8px;
-  margin-bottom: 20px;
-}
-.header h1 {
-  font-size: 1.8rem;
-  margin-bottom: 5px;
-}
-.header p {
-  opacity: 0.9;
-}
-
-/* 요약 */
-.summary {
-  display: flex;
-  gap: 15px;
-  margin-bottom: 30px;
-}
-.summary div {
-  background: white;
-  padding: 10px 15px;
-  border-radius: 6px;
-  box-shadow: 0 2px 4px rgba(0, 0, 0, 0.1);
-}
-
-/* 시나리오 카드 */
-.step {
-  background: white;
-  border-radius: 8px;
-  padding: 15px 20px;
-  margin-top: 15px;
-  margin-bottom: 25px;
-  box-shadow: 0 2px 6px rgba(0, 0, 0, 0.08);
-  transition: transform 0.2s;
-}
-.step.success {
-  border-left: 6px solid #28a745;
-}
-.step.failed {
-  border-left: 6px solid #dc3545;
-  background: #fcebea;
-}
-
-/* 서브스텝 */
-.substeps {
-  margin-top: 15px;
-}
-.substep {
-  background: #f7f9fc;
-  padding: 12px;
-  border-radius: 6px;
-  margin-bottom: 10px;
-  border-left: 4px solid #777;
-}
-.substep.success {
-  border-color: #28a745;
-}
-.substep.failed {
-  border-color: #dc3545;
-}
-.substep p {
-  margin: 4px 0;
-  font-size: 0.95rem;
-}
-
-/* 스크린샷 갤러리 */
-.screenshots {
-  display: flex;
-  flex-wrap: wrap;
-  gap: 10px;
-  margin-top: 15px;
-}
-.screenshots img {
-  width: calc(33.333% - 10px);
-  border-radius: 4px;
-  box-shadow: 0 1px 2px rgba(0, 0, 0, 0.1);
-}
-
-/* 반응형 */
-@media (max-width: 600px) {
-  .screenshots img {
-    width: 100%;
-  }
-}
-'''
-
-    # Build HTML
-    html = f"""<!DOCTYPE html>
-<html>
-<head>
-    <meta charset="UTF-8">
-    <title>Test Report - {test_start.strftime('%Y-%m-%d %H:%M:%S')}</title>
-    <style>
-{css}
-    </style>
-</head>
-<body>
-    <div class="header">
-        <h1>테스트 실행 보고서</h1>
-        <p>실행 시각: {test_start.strftime('%Y-%m-%d %H:%M:%S')}</p>
-        <p>소요 시간: {test_duration_ms/1000:.2f}s</p>
-    </div>
-    
-    <div class="summary">
-        <h2>요약</h2>
-        <p>총 시나리오: {total_steps}</p>
-        <p>성공: {passed_steps}</p>
-        <p>실패: {failed_steps}</p>
-    </div>
-    
-    <div class="steps">
-        <h2>상세 시나리오</h2>
-"""
-
-    # 시나리오별 블록
-    for idx, res, screenshots in results:
-        status_str = "success" if res.status else "failed"
-        html += f"""        <div class="step {status_str}">
-            <h3>시나리오 {idx}: {res.title}</h3>
-            <p>상태: {'성공' if res.status else '실패'}</p>
-            <p>소요 시간: {res.duration:.2f}s</p>
-            <h4>시나리오 피드백</h4>
-            <p>{res.feedback}</p>
-"""
-
-        # (Optional) 시나리오 레벨 실패 사유
-        if res.fail:
-            html += "            <div class='fail'><h5>Fail Reasons</h5><ul>\n"
-            for fs in res.fail:
-                html += f"                <li>Step {fs.num}: {fs.message}</li>\n"
-            html += "            </ul></div>\n"
-
-        # **스텝 별 substep 출력 추가**
-        html += "            <div class='substeps'>\n"
-        html += "                <h4>세부 스텝 결과</h4>\n"
-        for step in res.steps:
-            sc = "success" if step.status else "failed"
-            html += f"""                <div class="substep {sc}">
-                    <p><strong>Step {step.num}:</strong> {step.action}</p>
-                    <p>상태: {'✅ 성공' if step.status else '❌ 실패'}</p>
-                    <p>피드백: {step.feedback}</p>
-            """
-            if step.fail:
-                html += f"                    <p>실패 사유: {step.fail}</p>\n"
-            html += "                </div>\n"
-        html += "            </div>\n"
-
-        # 스크린샷 출력 (수정)
-        for img in screenshots:
-            # build 변수는 report 호출 시 사용된 build ID 문자열
-            # idx 는 현재 시나리오 번호 (1부터)
-            html += (
-                f'            <img class="screenshot" '
-                f'src="screenshot?build={test_id}&scenario={idx}&file={img}" '
-                f'alt="Screenshot"/>\n'
-            )
-
-        html += "        </div>\n"  # 시나리오 블록 닫기
-
-    html += "</div>\n</body>\n</html>"
-
-    # 파일로 저장
-    with open(os.path.join(output_dir, "report.html"), "w", encoding="utf-8") as f:
-        f.write(html)
+    if daemon_url:
+        # 노드 데몬의 미리 띄워 둔 브라우저에서 새 브라우저 컨텍스트를 받음 (mcp_daemon.py)
+        client = sse_client(daemon_url)
+    else:
+        # 브라우저 프로필(user-data-dir)이 겹치면 Chromium이 잠기므로 워커별로 분리
+        user_data_dir = os.path.join(profiles_dir, f"worker-{worker_id}")
+        params = StdioServerParameters(
+            command="node", args=["cli.js", "--user-data-dir", user_data_dir], cwd=mcp_path
+        )
+        client = stdio_client(params)
+    async with client as (read, write):
+        async with ClientSession(read, write) as session:
+            await session.initialize()
+            tools = await load_mcp_tools(session)
+            while True:
+                # fail-fast: 다른 워커가 실행 중인 시나리오는 끝까지 실행하고, 새 시나리오는 꺼내지 않음
+                if stop is not None and stop.is_set():
+                    return
+                try:
+                    idx, scenario = queue.get_nowait()
+                except asyncio.QueueEmpty:
+                    return
+                print(f"[worker {worker_id}] 시나리오 {idx} 시작: {scenario.get('title', '')}")
+                results.append(await _run_scenario(model, tools, scenario, idx, output_dir, blob_root, session, replay))
+                if fail_fast > 0 and stop is not None and not stop.is_set():
+                    failed = sum(1 for _, r, _ in results if not r.status)
+                    if failed >= fail_fast:
+                        print(f"[worker {worker_id}] 실패 {failed}건으로 fail-fast 중단: 남은 시나리오는 실행하지 않습니다.")
+                        stop.set()
 
 
 # Main test runner
 async def run_test(
         scenarios: List[dict],
         build_num: int,
-        base_dir: str, # This is JENKINS_HOME/results
+        base_dir: str, # Workspace-local results directory, shipped to JENKINS_HOME/results by the step
         provider: str,
         llm_model: str,
         api_key: str,
+        parallelism: int = 1,
+        start_index: int = 1,
+        shard: Optional[int] = None,
+        fail_fast: int = 0,
+        replay: bool = False,
 ):
     test_start = datetime.now()
     # Get JOB_NAME from environment variable, replace slashes for directory safety
@@ -450,8 +521,9 @@ async def run_test(
     # Create folder name that GlobalReportAction can parse
     # Example: MY_JOB_123 or FOLDER_MY_JOB_123
     folder_name = f"{job_name}_{build_num}"
-    output_dir = os.path.join(base_dir, folder_name) # e.g., JENKINS_HOME/results/MY_JOB_123
-    os.makedirs(output_dir, exist_ok=True)
+    final_dir = os.path.join(base_dir, folder_name) # e.g., <workspace>/.playwright-e2e/results/run/MY_JOB_123
+    # 실행 중에는 staging 디렉토리에 기록하고, 완료 후 한 번에 final_dir로 옮김
+    output_dir = staging_dir(base_dir, folder_name, f"shard-{shard}" if shard is not None else "run")
     # test_id is used for screenshot URLs, should match the folder_name for consistency
     test_id = folder_name
 
@@ -464,28 +536,73 @@ async def run_test(
         model = ChatOpenAI(
             model=llm_model, temperature=0, max_tokens=1000, api_key=api_key
         )
+    elif provider == "stub":
+        # 네트워크 없이 실행을 검증하기 위한 가짜 모델 (stub_model.py 참고)
+        model = StubChatModel.from_env()
     else:
         raise ValueError(f"지원되지 않는 provider: {provider}")
 
-    # MCP CLI via stdio
+    # MCP CLI via stdio, or the node's warm MCP daemon when the step enables it
     cur = os.path.dirname(os.path.abspath(__file__))
     mcp_path = os.path.join(cur, "mcp")
-    params = StdioServerParameters(command="node", args=["cli.js"], cwd=mcp_path)
+    daemon_url = ensure_daemon(mcp_path)
+
+    # 시나리오 큐: 각 워커가 자신의 MCP 세션(브라우저)으로 하나씩 꺼내 실행
+    queue: asyncio.Queue = asyncio.Queue()
+    # 샤드 실행 시에도 시나리오 폴더 번호는 전체 파일 기준 번호를 유지
+    for idx, scenario in enumerate(scenarios, start=start_index):
+        queue.put_nowait((idx, scenario))
+    workers = max(1, min(parallelism, len(scenarios)))
+    emit("run_started", total=len(scenarios))
+    print(f"시나리오 {len(scenarios)}개를 세션 {workers}개로 실행합니다.")
 
     results: List[Tuple[int, WebTestResult, List[str]]] = []
-    async with stdio_client(params) as (read, write):
-        async with ClientSession(read, write) as session:
-            await session.initialize()
-            tools = await load_mcp_tools(session)
-            for idx, scenario in enumerate(scenarios, start=1):
-                agent = create_react_agent(model, tools)
-                results.append(await _run_scenario(agent, scenario, idx, output_dir))
+    stop = asyncio.Event()
+    with tempfile.TemporaryDirectory(prefix="mcp-profiles-") as profiles_dir:
+        await asyncio.gather(
+            *(
+                _run_worker(model, mcp_path, profiles_dir, worker_id, queue, output_dir, base_dir, results,
+                            fail_fast, stop, replay, daemon_url)
+                for worker_id in range(1, workers + 1)
+            )
+        )
+    # 완료 순서와 관계없이 시나리오 번호 순으로 보고서 작성
+    results.sort(key=lambda r: r[0])
+    # fail-fast로 큐에 남은 시나리오는 건너뛴 것으로 기록 (부분 보고서)
+    skipped: List[int] = []
+    while not queue.empty():
+        skipped.append(queue.get_nowait()[0])
 
-    # Generate one single HTML report
     test_end = datetime.now()
+    passed = sum(1 for _, r, _ in results if r.status)
+    emit("run_finished", passed=passed, failed=len(results) - passed, skipped=len(skipped))
+    if shard is not None:
+        # 샤드는 자기 조각만 기록하고, report.html/manifest.json은 병합 단계(report.py --merge)에서 생성
+        write_json_atomic(
+            os.path.join(output_dir, f"shard-{shard}.json"),
+            {
+                "shard": shard,
+                "scenarios": [idx for idx, _, _ in results],
+                "skipped": skipped,
+                "start": test_start.isoformat(),
+                "end": test_end.isoformat(),
+            },
+        )
+        publish_slice(output_dir, final_dir)
+        print(f"샤드 {shard} 완료: {final_dir} (시나리오 {len(results)}개)")
+        return
+
+    # Generate one single HTML report
     duration_ms = (test_end - test_start).total_seconds() * 1000
-    generate_combined_html_report(results, output_dir, test_start, duration_ms, test_id)
-    print(f"모든 테스트 완료: {output_dir}/report.html")
+    # 저장된 result.json 기준 (측정값 포함, 샤드 병합과 같은 입력)
+    report_results = load_results(output_dir)
+    generate_combined_html_report(report_results, output_dir, test_start, duration_ms, test_id, len(skipped))
+    write_manifest(output_dir, build_manifest(report_results, test_id, test_start, duration_ms, skipped))
+    publish_dir(output_dir, final_dir)
+    if skipped:
+        print(f"fail-fast로 중단: 시나리오 {len(skipped)}개 건너뜀 (부분 보고서: {final_dir}/report.html)")
+    else:
+        print(f"모든 테스트 완료: {final_dir}/report.html")
 
 
 # Entry point
@@ -498,6 +615,21 @@ if __name__ == "__main__":
     parser.add_argument(
         "--file", type=str, required=True, help="시나리오 JSON 파일 경로"
     )
+    parser.add_argument(
+        "--parallelism", type=int, default=1, help="동시에 실행할 시나리오(브라우저 세션) 수"
+    )
+    parser.add_argument(
+        "--start_index", type=int, default=1, help="첫 시나리오의 전체 기준 번호 (샤드 실행용)"
+    )
+    parser.add_argument(
+        "--shard", type=int, default=None, help="샤드 번호 (지정 시 report.html 대신 shard-N.json 기록)"
+    )
+    parser.add_argument(
+        "--fail_fast", type=int, default=0, help="실패한 시나리오가 이 수에 도달하면 남은 시나리오를 건너뜀 (0: 사용 안 함)"
+    )
+    parser.add_argument(
+        "--replay", action="store_true", help="통과했던 시나리오는 기록된 도구 호출을 LLM 없이 재생"
+    )
     args = parser.parse_args()
 
     load_dotenv()
@@ -510,5 +642,8 @@ if __name__ == "__main__":
     scenarios = data.get("scenarios", [])
 
     asyncio.run(
-        run_test(scenarios, args.build, args.output_dir, prov, model_key, api_k)
+        run_test(
+            scenarios, args.build, args.output_dir, prov, model_key, api_k,
+            args.parallelism, args.start_index, args.shard, args.fail_fast, args.replay
+        )
     )
@@ -0,0 +1,419 @@
+#!/usr/bin/env node
+"use strict";
+/**
+ * Agent-level Playwright MCP daemon.
+ *
+ * Keeps a pool of pre-launched browsers (Playwright browser servers) and serves the MCP tools over SSE on
+ * 127.0.0.1. Every MCP session gets a fresh, isolated browser context in one of the warm browsers, so a build pays
+ * neither for the MCP server boot nor for the browser launch. A browser is retired and replaced after --max-uses
+ * sessions or once its process tree grows beyond --max-rss-mb, and the daemon exits after --idle-minutes without
+ * sessions.
+ *
+ *   node daemon.js ensure --state-dir DIR [options]   start the daemon unless a healthy one of this version runs,
+ *                                                     then print {"url": ...} on stdout
+ *   node daemon.js serve --state-dir DIR [options]    run the daemon in the foreground (started by ensure)
+ *
+ * Options: --browsers N (2), --max-uses N (50), --max-rss-mb N (1024, 0 = unlimited), --idle-minutes N (30),
+ * --browser NAME (same values as cli.js --browser).
+ *
+ * DIR holds daemon.json (pid, port, version), daemon.lock while a daemon is being started, and daemon.log.
+ * A daemon started from other runtime resources (another version) is drained: it finishes its sessions and exits,
+ * and a new one takes over.
+ */
+const fs = require("fs");
+const path = require("path");
+const http = require("http");
+const crypto = require("crypto");
+const os = require("os");
+const { spawn } = require("child_process");
+
+const STATE_FILE = "daemon.json";
+const LOCK_FILE = "daemon.lock";
+const LOG_FILE = "daemon.log";
+const ENSURE_TIMEOUT_MS = 90_000;
+const STALE_LOCK_MS = 120_000;
+
+function parseArgs(argv) {
+  const options = {
+    command: argv[0],
+    stateDir: undefined,
+    browsers: 2,
+    maxUses: 50,
+    maxRssMb: 1024,
+    idleMinutes: 30,
+    browser: undefined,
+  };
+  for (let i = 1; i < argv.length; i += 2) {
+    const value = argv[i + 1];
+    switch (argv[i]) {
+      case "--state-dir": options.stateDir = value; break;
+      case "--browsers": options.browsers = Math.max(1, parseInt(value, 10) || 1); break;
+      case "--max-uses": options.maxUses = Math.max(1, parseInt(value, 10) || 1); break;
+      case "--max-rss-mb": options.maxRssMb = Math.max(0, parseInt(value, 10) || 0); break;
+      case "--idle-minutes": options.idleMinutes = Math.max(1, parseInt(value, 10) || 1); break;
+      case "--browser": options.browser = value; break;
+      default: throw new Error(`Unknown option: ${argv[i]}`);
+    }
+  }
+  if (!options.stateDir) throw new Error("--state-dir is required");
+  return options;
+}
+
+function toArgs(options) {
+  const args = ["--state-dir", options.stateDir, "--browsers", String(options.browsers), "--max-uses",
+    String(options.maxUses), "--max-rss-mb", String(options.maxRssMb), "--idle-minutes", String(options.idleMinutes)];
+  if (options.browser) args.push("--browser", options.browser);
+  return args;
+}
+
+// Same code and MCP package means the same daemon, whichever workspace it was extracted to
+function daemonVersion() {
+  const hash = crypto.createHash("sha256");
+  hash.update(fs.readFileSync(__filename));
+  hash.update(fs.readFileSync(path.join(__dirname, "package.json")));
+  return hash.digest("hex").slice(0, 16);
+}
+
+function log(...args) {
+  console.log(new Date().toISOString(), ...args);
+}
+
+function sleep(ms) {
+  return new Promise((resolve) => setTimeout(resolve, ms));
+}
+
+function readState(stateDir) {
+  try {
+    return JSON.parse(fs.readFileSync(path.join(stateDir, STATE_FILE), "utf-8"));
+  } catch {
+    return null;
+  }
+}
+
+function writeState(stateDir, state) {
+  const file = path.join(stateDir, STATE_FILE);
+  const tmp = `${file}.${process.pid}.tmp`;
+  fs.writeFileSync(tmp, JSON.stringify(state));
+  fs.renameSync(tmp, file);
+}
+
+function isAlive(pid) {
+  try {
+    process.kill(pid, 0);
+    return true;
+  } catch (error) {
+    return error.code === "EPERM";
+  }
+}
+
+function request(port, method, urlPath, timeoutMs) {
+  return new Promise((resolve, reject) => {
+    const req = http.request({ host: "127.0.0.1", port, method, path: urlPath, timeout: timeoutMs }, (res) => {
+      let body = "";
+      res.setEncoding("utf-8");
+      res.on("data", (chunk) => (body += chunk));
+      res.on("end", () => resolve({ status: res.statusCode, body }));
+    });
+    req.on("timeout", () => req.destroy(new Error("timeout")));
+    req.on("error", reject);
+    req.end();
+  });
+}
+
+async function health(state) {
+  if (!state || !state.pid || !isAlive(state.pid)) return null;
+  try {
+    const res = await request(state.port, "GET", "/health", 2000);
+    return res.status === 200 ? JSON.parse(res.body) : null;
+  } catch {
+    return null;
+  }
+}
+
+function tryLock(stateDir) {
+  const lock = path.join(stateDir, LOCK_FILE);
+  try {
+    fs.writeFileSync(lock, String(process.pid), { flag: "wx" });
+    return true;
+  } catch (error) {
+    if (error.code !== "EEXIST") throw error;
+    try {
+      // Left behind by an ensure that was killed
+      if (Date.now() - fs.statSync(lock).mtimeMs > STALE_LOCK_MS) fs.unlinkSync(lock);
+    } catch {
+      // Removed concurrently
+    }
+    return false;
+  }
+}
+
+function startDetached(options) {
+  const env = { ...process.env };
+  // Outlive the build: Jenkins kills the processes that carry the build's cookie when the build ends
+  delete env.JENKINS_NODE_COOKIE;
+  delete env.BUILD_ID;
+  const out = fs.openSync(path.join(options.stateDir, LOG_FILE), "a");
+  const child = spawn(process.execPath, [__filename, "serve", ...toArgs(options)], {
+    cwd: __dirname,
+    detached: true,
+    stdio: ["ignore", out, out],
+    env,
+  });
+  child.unref();
+  fs.closeSync(out);
+  return child.pid;
+}
+
+async function ensure(options) {
+  fs.mkdirSync(options.stateDir, { recursive: true });
+  const version = daemonVersion();
+  const deadline = Date.now() + ENSURE_TIMEOUT_MS;
+  while (Date.now() < deadline) {
+    const state = readState(options.stateDir);
+    const status = await health(state);
+    if (status && status.version === version && !status.draining) {
+      return `http://127.0.0.1:${state.port}/sse`;
+    }
+    if (status && status.version !== version && !status.draining) {
+      await request(state.port, "POST", "/drain", 2000).catch(() => {});
+    }
+    if (tryLock(options.stateDir)) {
+      try {
+        const again = readState(options.stateDir);
+        const current = await health(again);
+        if (current && current.version === version && !current.draining) {
+          return `http://127.0.0.1:${again.port}/sse`;
+        }
+        const pid = startDetached(options);
+        while (Date.now() < deadline) {
+          await sleep(250);
+          const started = readState(options.stateDir);
+          if (started && started.pid === pid && (await health(started))) {
+            return `http://127.0.0.1:${started.port}/sse`;
+          }
+          if (!isAlive(pid)) {
+            throw new Error(`MCP daemon exited during startup, see ${path.join(options.stateDir, LOG_FILE)}`);
+          }
+        }
+      } finally {
+        fs.rmSync(path.join(options.stateDir, LOCK_FILE), { force: true });
+      }
+    }
+    // Another build is starting the daemon
+    await sleep(500);
+  }
+  throw new Error("Timed out waiting for the MCP daemon");
+}
+
+// Resident memory of a process and its descendants (Linux /proc), 0 if unavailable
+function treeRssMb(rootPid) {
+  try {
+    const children = new Map();
+    for (const entry of fs.readdirSync("/proc")) {
+      if (!/^\d+$/.test(entry)) continue;
+      try {
+        const stat = fs.readFileSync(`/proc/${entry}/stat`, "utf-8");
+        const ppid = parseInt(stat.slice(stat.lastIndexOf(")") + 2).split(" ")[1], 10);
+        if (!children.has(ppid)) children.set(ppid, []);
+        children.get(ppid).push(parseInt(entry, 10));
+      } catch {
+        // Exited meanwhile
+      }
+    }
+    let pages = 0;
+    const pending = [rootPid];
+    while (pending.length) {
+      const pid = pending.pop();
+      try {
+        pages += parseInt(fs.readFileSync(`/proc/${pid}/statm`, "utf-8").split(" ")[1], 10) || 0;
+      } catch {
+        // Exited meanwhile
+      }
+      pending.push(...(children.get(pid) || []));
+    }
+    return (pages * 4096) / (1024 * 1024);
+  } catch {
+    return 0;
+  }
+}
+
+// Browser name, channel and headless mode as cli.js resolves them (lib/index.js)
+function launchConfig(browser) {
+  let browserName = "chromium";
+  let channel = "chrome";
+  if (["chrome", "chrome-beta", "chrome-canary", "chrome-dev", "msedge", "msedge-beta", "msedge-canary", "msedge-dev"].includes(browser)) {
+    channel = browser;
+  } else if (browser === "chromium") {
+    channel = undefined;
+  } else if (browser === "firefox" || browser === "webkit") {
+    browserName = browser;
+    channel = undefined;
+  }
+  const headless = os.platform() === "linux" && !process.env.DISPLAY;
+  return { browserName, launchOptions: { headless, channel } };
+}
+
+class BrowserPool {
+  constructor(options) {
+    this.options = options;
+    this.config = launchConfig(options.browser);
+    this.browserType = require("playwright")[this.config.browserName];
+    this.slots = [];
+    this.launching = 0;
+  }
+
+  // Brings the pool back to its size; browsers are launched before anyone waits for them
+  async warm() {
+    const launches = [];
+    while (this.slots.length + this.launching < this.options.browsers) {
+      this.launching++;
+      launches.push(this._launch().finally(() => this.launching--));
+    }
+    await Promise.all(launches);
+  }
+
+  async _launch() {
+    const server = await this.browserType.launchServer(this.config.launchOptions);
+    const slot = { server, wsEndpoint: server.wsEndpoint(), pid: server.process().pid, uses: 0, active: 0, retiring: false };
+    this.slots.push(slot);
+    log(`Browser ${slot.pid} launched`);
+    return slot;
+  }
+
+  async acquire() {
+    const ready = this.slots.filter((slot) => !slot.retiring).sort((a, b) => a.active - b.active);
+    const slot = ready.length ? ready[0] : await this._launch();
+    slot.uses++;
+    slot.active++;
+    if (slot.uses >= this.options.maxUses) slot.retiring = true;
+    return slot;
+  }
+
+  release(slot) {
+    slot.active--;
+    if (!slot.retiring && this.options.maxRssMb > 0) {
+      const rss = treeRssMb(slot.pid);
+      if (rss > this.options.maxRssMb) {
+        log(`Browser ${slot.pid} uses ${Math.round(rss)} MB, retiring it`);
+        slot.retiring = true;
+      }
+    }
+    if (slot.retiring && slot.active === 0) {
+      this.slots = this.slots.filter((other) => other !== slot);
+      log(`Browser ${slot.pid} retired after ${slot.uses} session(s)`);
+      slot.server.close().catch((error) => log(`Failed to close browser ${slot.pid}:`, error));
+      this.warm().catch((error) => log("Failed to launch a replacement browser:", error));
+    }
+  }
+
+  stats() {
+    return this.slots.map(({ pid, uses, active, retiring }) => ({ pid, uses, active, retiring }));
+  }
+
+  async closeAll() {
+    await Promise.all(this.slots.map((slot) => slot.server.close().catch(() => {})));
+    this.slots = [];
+  }
+}
+
+async function serve(options) {
+  const { createServer } = require("./lib/index");
+  const { SSEServerTransport } = require("@modelcontextprotocol/sdk/server/sse.js");
+  fs.mkdirSync(options.stateDir, { recursive: true });
+  const version = daemonVersion();
+  const pool = new BrowserPool(options);
+  await pool.warm();
+
+  const sessions = new Map();
+  let draining = false;
+  let lastActivity = Date.now();
+  let closing = false;
+
+  const shutdown = async () => {
+    if (closing) return;
+    closing = true;
+    log("Shutting down");
+    await Promise.all([...sessions.values()].map((session) => session.server.close().catch(() => {})));
+    await pool.closeAll();
+    // A newer daemon may already have taken over the state file
+    const state = readState(options.stateDir);
+    if (state && state.pid === process.pid) fs.rmSync(path.join(options.stateDir, STATE_FILE), { force: true });
+    process.exit(0);
+  };
+
+  const httpServer = http.createServer(async (req, res) => {
+    const url = new URL(req.url, "http://127.0.0.1");
+    try {
+      if (req.method === "GET" && url.pathname === "/health") {
+        res.setHeader("Content-Type", "application/json");
+        res.end(JSON.stringify({ version, pid: process.pid, draining, sessions: sessions.size, browsers: pool.stats() }));
+      } else if (req.method === "POST" && url.pathname === "/drain") {
+        log("Draining: a daemon of another version takes over");
+        draining = true;
+        res.end();
+      } else if (req.method === "GET" && url.pathname === "/sse") {
+        if (draining || closing) {
+          res.statusCode = 503;
+          res.end("Draining");
+          return;
+        }
+        const slot = await pool.acquire();
+        const transport = new SSEServerTransport("/message", res);
+        const server = await createServer({ browser: options.browser, remoteEndpoint: slot.wsEndpoint });
+        sessions.set(transport.sessionId, { transport, server });
+        lastActivity = Date.now();
+        res.on("close", () => {
+          sessions.delete(transport.sessionId);
+          lastActivity = Date.now();
+          // Closes the session's browser context; the browser stays up for the next session
+          server.close().catch((error) => log("Failed to close session:", error)).finally(() => pool.release(slot));
+        });
+        await server.connect(transport);
+      } else if (req.method === "POST" && url.pathname === "/message") {
+        const session = sessions.get(url.searchParams.get("sessionId"));
+        if (!session) {
+          res.statusCode = 404;
+          res.end("Session not found");
+          return;
+        }
+        await session.transport.handlePostMessage(req, res);
+      } else {
+        res.statusCode = 404;
+        res.end();
+      }
+    } catch (error) {
+      log("Request failed:", error);
+      if (!res.headersSent) res.statusCode = 500;
+      res.end();
+    }
+  });
+
+  httpServer.listen(0, "127.0.0.1", () => {
+    const { port } = httpServer.address();
+    writeState(options.stateDir, { pid: process.pid, port, version, startedAt: new Date().toISOString() });
+    log(`MCP daemon ${version} listening on 127.0.0.1:${port} with ${options.browsers} browser(s)`);
+  });
+
+  setInterval(() => {
+    if (sessions.size === 0 && (draining || Date.now() - lastActivity > options.idleMinutes * 60_000)) void shutdown();
+  }, 10_000).unref();
+  process.on("SIGTERM", shutdown);
+  process.on("SIGINT", shutdown);
+}
+
+async function main() {
+  const options = parseArgs(process.argv.slice(2));
+  if (options.command === "ensure") {
+    const url = await ensure(options);
+    process.stdout.write(JSON.stringify({ url }) + "\n");
+  } else if (options.command === "serve") {
+    await serve(options);
+  } else {
+    throw new Error(`Unknown command: ${options.command}`);
+  }
+}
+
+main().catch((error) => {
+  console.error(error instanceof Error ? error.message : error);
+  process.exit(1);
+});
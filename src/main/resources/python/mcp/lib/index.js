@@ -113,6 +113,8 @@ async function createServer(options) {
     userDataDir,
     launchOptions,
     cdpEndpoint: options?.cdpEndpoint,
+    // Browser server of the agent daemon (daemon.js): each session gets a fresh context in it
+    remoteEndpoint: options?.remoteEndpoint,
   });
 }
 
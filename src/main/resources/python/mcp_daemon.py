@@ -0,0 +1,52 @@
+"""
+Connection to the agent-level Playwright MCP daemon (mcp/daemon.js).
+
+When the step sets PLAYWRIGHT_E2E_MCP_DAEMON_DIR, the runner asks ``node daemon.js
+ensure`` for the SSE URL of the node's daemon, starting it if none of this version
+is running. The daemon keeps warm browsers and gives every MCP session a fresh
+browser context, so workers skip the MCP server boot and the browser launch.
+Any problem with the daemon falls back to a per-worker stdio MCP server.
+
+Optional settings, passed on to the daemon when it is started:
+PLAYWRIGHT_E2E_MCP_DAEMON_BROWSERS, PLAYWRIGHT_E2E_MCP_DAEMON_MAX_USES,
+PLAYWRIGHT_E2E_MCP_DAEMON_MAX_RSS_MB and PLAYWRIGHT_E2E_MCP_DAEMON_IDLE_MINUTES.
+"""
+import json
+import os
+import subprocess
+from typing import Optional
+
+DIR_ENV = "PLAYWRIGHT_E2E_MCP_DAEMON_DIR"
+_OPTIONS = {
+    "PLAYWRIGHT_E2E_MCP_DAEMON_BROWSERS": "--browsers",
+    "PLAYWRIGHT_E2E_MCP_DAEMON_MAX_USES": "--max-uses",
+    "PLAYWRIGHT_E2E_MCP_DAEMON_MAX_RSS_MB": "--max-rss-mb",
+    "PLAYWRIGHT_E2E_MCP_DAEMON_IDLE_MINUTES": "--idle-minutes",
+}
+# 데몬 기동(브라우저 실행 포함)을 기다리는 최대 시간 (daemon.js 자체 대기 90초 + 여유)
+_ENSURE_TIMEOUT_S = 120
+
+
+def ensure_daemon(mcp_path: str) -> Optional[str]:
+    """Returns the daemon's SSE URL, or None when the daemon is disabled or unavailable."""
+    state_dir = os.getenv(DIR_ENV)
+    if not state_dir:
+        return None
+    args = ["node", "daemon.js", "ensure", "--state-dir", state_dir]
+    for env, option in _OPTIONS.items():
+        value = os.getenv(env)
+        if value:
+            args += [option, value]
+    try:
+        completed = subprocess.run(
+            args, cwd=mcp_path, capture_output=True, text=True, timeout=_ENSURE_TIMEOUT_S
+        )
+        if completed.returncode != 0:
+            raise RuntimeError(completed.stderr.strip() or f"exit code {completed.returncode}")
+        # 마지막 줄이 {"url": ...}
+        url = json.loads(completed.stdout.strip().splitlines()[-1])["url"]
+    except Exception as e:
+        print(f"⚠️ MCP 데몬을 사용할 수 없어 워커별 MCP 서버로 실행합니다: {e}")
+        return None
+    print(f"MCP 데몬 사용: {url}")
+    return url
@@ -0,0 +1,114 @@
+"""
+Measured wall-clock timings and token usage, per scenario and per build.
+
+The per-step ``duration`` in the LLM's JSON answer is the model's own guess, so
+the runner times every LLM call, MCP tool call and screenshot write itself and
+stores the spans in result.json::
+
+    "metrics": {
+      "spans": [{"type": "llm", "ms": 812.4, "input_tokens": 1500, "output_tokens": 90},
+                {"type": "tool", "tool": "browser_click", "ms": 120.0, "error": false},
+                {"type": "screenshot", "ms": 3.1},
+                {"type": "snapshot", "ms": 0.4, "raw_tokens": 9000, "sent_tokens": 700, "mode": "diff"}],
+      "input_tokens": 1500, "output_tokens": 90,
+      "snapshot_raw_tokens": 9000, "snapshot_sent_tokens": 700
+    }
+
+manifest.json carries the per-build breakdown computed by ``summarize``: count,
+total, p50, p95 and max per step type ("llm", "tool", "tool:<name>",
+"screenshot", "snapshot", "scenario") under "timings" and the summed tokens
+under "tokens", including the estimated page snapshot tokens before and after
+compaction (snapshots.py).
+The shard merge recomputes it from the scenarios' result.json files.
+Only the standard library is used (shared with the shard merge stage).
+"""
+import math
+import time
+from typing import Dict, List, Optional
+
+
+class ScenarioMetrics:
+    def __init__(self):
+        self.spans: List[dict] = []
+
+    def llm(self, ms: float, input_tokens: Optional[int] = None, output_tokens: Optional[int] = None,
+            error: bool = False):
+        span = {"type": "llm", "ms": ms}
+        if input_tokens is not None:
+            span["input_tokens"] = input_tokens
+        if output_tokens is not None:
+            span["output_tokens"] = output_tokens
+        if error:
+            span["error"] = True
+        self.spans.append(span)
+
+    def tool(self, name: Optional[str], ms: float, error: bool):
+        self.spans.append({"type": "tool", "tool": name or "", "ms": ms, "error": error})
+
+    def screenshot(self, ms: float):
+        self.spans.append({"type": "screenshot", "ms": ms})
+
+    # 페이지 스냅샷 압축: 원본/전송 토큰 추정치와 전송 형식(full, diff)
+    def snapshot(self, ms: float, raw_tokens: int, sent_tokens: int, mode: str):
+        self.spans.append({"type": "snapshot", "ms": ms, "raw_tokens": raw_tokens, "sent_tokens": sent_tokens,
+                           "mode": mode})
+
+    def to_dict(self) -> dict:
+        return {
+            "spans": self.spans,
+            "input_tokens": sum(s.get("input_tokens", 0) for s in self.spans),
+            "output_tokens": sum(s.get("output_tokens", 0) for s in self.spans),
+            "snapshot_raw_tokens": sum(s.get("raw_tokens", 0) for s in self.spans),
+            "snapshot_sent_tokens": sum(s.get("sent_tokens", 0) for s in self.spans),
+        }
+
+
+def elapsed_ms(start: float) -> float:
+    return round((time.perf_counter() - start) * 1000, 1)
+
+
+# nearest-rank 백분위수 (values는 정렬된 상태)
+def percentile(values: List[float], q: float) -> float:
+    if not values:
+        return 0.0
+    rank = max(1, math.ceil(q / 100 * len(values)))
+    return values[min(rank, len(values)) - 1]
+
+
+def _stats(values: List[float]) -> dict:
+    values = sorted(values)
+    return {
+        "count": len(values),
+        "total_ms": round(sum(values), 1),
+        "p50_ms": percentile(values, 50),
+        "p95_ms": percentile(values, 95),
+        "max_ms": values[-1] if values else 0.0,
+    }
+
+
+# 시나리오 결과(result.json 내용) 목록에서 빌드 단위 분석을 계산
+# 반환: (단계 유형별 통계, 토큰 합계) - 측정값이 하나도 없으면 (None, None)
+def summarize(payloads: List[dict]):
+    by_type: Dict[str, List[float]] = {}
+    tokens = {"input": 0, "output": 0, "snapshot_raw": 0, "snapshot_sent": 0}
+    measured = False
+    for payload in payloads:
+        metrics = payload.get("metrics")
+        if not metrics:
+            continue
+        measured = True
+        by_type.setdefault("scenario", []).append(float(payload.get("duration") or 0) * 1000)
+        for span in metrics.get("spans") or []:
+            kind = span.get("type")
+            if not kind:
+                continue
+            by_type.setdefault(kind, []).append(float(span.get("ms") or 0))
+            if kind == "tool" and span.get("tool"):
+                by_type.setdefault(f"tool:{span['tool']}", []).append(float(span.get("ms") or 0))
+        tokens["input"] += int(metrics.get("input_tokens") or 0)
+        tokens["output"] += int(metrics.get("output_tokens") or 0)
+        tokens["snapshot_raw"] += int(metrics.get("snapshot_raw_tokens") or 0)
+        tokens["snapshot_sent"] += int(metrics.get("snapshot_sent_tokens") or 0)
+    if not measured:
+        return None, None
+    return {kind: _stats(values) for kind, values in sorted(by_type.items())}, tokens
@@ -0,0 +1,90 @@
+"""
+Record-and-replay of MCP tool calls for scenarios that passed.
+
+After a scenario passes, its successful tool calls (name + arguments, in order)
+are stored under ``.recordings/<aa>/<sha256>.json`` next to the results, keyed by
+a hash of the scenario text. The Jenkins step ships the recordings of the
+scenarios it is about to run into the workspace and publishes them back
+afterwards, so the controller keeps the durable copy (JENKINS_HOME/results/.recordings).
+
+A later run can replay the calls straight against the MCP server without the
+LLM. Replay stops at the first call that fails; the agent then takes over from
+the browser state the replayed prefix left behind.
+
+Key: sha256 over the title and the steps joined by newlines (UTF-8). The step
+computes the same key in Java (core/Recordings.java), so keep both in sync.
+"""
+import hashlib
+import json
+import os
+from datetime import datetime
+from typing import List, Optional
+
+from langchain_core.messages import AIMessage, ToolMessage
+
+from results_store import write_json_atomic
+
+RECORDINGS_DIR = ".recordings"
+RECORDING_VERSION = 1
+
+
+def scenario_key(scenario: dict) -> str:
+    text = "\n".join([scenario.get("title") or ""] + list(scenario.get("steps") or []))
+    return hashlib.sha256(text.encode("utf-8")).hexdigest()
+
+
+def recording_path(base_dir: str, key: str) -> str:
+    return os.path.join(base_dir, RECORDINGS_DIR, key[:2], f"{key}.json")
+
+
+# 재생 가능한 기록을 반환 (없거나, 형식이 다르거나, 무효화된 기록이면 None)
+def load_recording(base_dir: str, scenario: dict) -> Optional[dict]:
+    path = recording_path(base_dir, scenario_key(scenario))
+    if not os.path.isfile(path):
+        return None
+    try:
+        with open(path, "r", encoding="utf-8") as f:
+            recording = json.load(f)
+    except (OSError, json.JSONDecodeError):
+        return None
+    if recording.get("version") != RECORDING_VERSION or recording.get("stale") or not recording.get("calls"):
+        return None
+    return recording
+
+
+# 에이전트 메시지에서 성공한 도구 호출만 순서대로 추출 (실패 후 재시도한 호출은 재생하지 않음)
+def extract_calls(messages) -> List[dict]:
+    failed_ids = {
+        m.tool_call_id for m in messages
+        if isinstance(m, ToolMessage) and getattr(m, "status", "success") == "error"
+    }
+    calls = []
+    for m in messages:
+        if isinstance(m, AIMessage):
+            for call in m.tool_calls or []:
+                if call.get("id") not in failed_ids:
+                    calls.append({"name": call["name"], "args": call.get("args") or {}})
+    return calls
+
+
+def save_recording(base_dir: str, scenario: dict, calls: List[dict], steps: List[dict]):
+    key = scenario_key(scenario)
+    path = recording_path(base_dir, key)
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    write_json_atomic(path, {
+        "version": RECORDING_VERSION,
+        "key": key,
+        "title": scenario.get("title", ""),
+        "recorded": datetime.now().isoformat(),
+        "calls": calls,
+        # 재생만으로 통과했을 때 보고서에 쓰는 스텝 목록
+        "steps": [{"num": s.get("num"), "action": s.get("action", "")} for s in steps],
+    })
+
+
+# 재생이 어긋나고 LLM 대체 실행도 실패한 기록은 무효화 (다음에 통과하면 새로 기록됨)
+def mark_stale(base_dir: str, scenario: dict):
+    key = scenario_key(scenario)
+    path = recording_path(base_dir, key)
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    write_json_atomic(path, {"version": RECORDING_VERSION, "key": key, "stale": True})
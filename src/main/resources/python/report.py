@@ -0,0 +1,270 @@
+"""
+Combined HTML report rendering.
+
+Only the standard library is used so the shard merge stage can run this module
+with a plain ``python3`` without the LLM/MCP toolchain installed.
+"""
+import argparse
+import json
+import os
+import re
+from datetime import datetime
+from typing import List, Tuple
+
+from results_store import build_manifest, write_manifest, write_text_atomic
+
+
+# Generate single combined HTML report at root of output_dir
+def generate_combined_html_report(
+        results: List[Tuple[int, dict, List[str]]],
+        output_dir: str,
+        test_start: datetime,
+        test_duration_ms: float,
+        test_id: str,
+        skipped: int = 0
+):
+    build_id = os.path.basename(output_dir)
+    total_steps = len(results)
+    passed_steps = sum(1 for _, r, _ in results if r.get("status"))
+    failed_steps = total_steps - passed_steps
+    # fail-fast로 중단된 실행은 건너뛴 시나리오 수를 함께 표시 (부분 보고서)
+    skipped_line = f"\n        <p>건너뜀 (fail-fast): {skipped}</p>" if skipped else ""
+
+    # Inline CSS to embed directly in the HTML
+    css = '''
+/* Reset */
+* {
+  box-sizing: border-box;
+  margin: 0;
+  padding: 0;
+}
+body {
+  font-family: "Segoe UI", Tahoma, sans-serif;
+  background: #f9f9f9;
+  color: #333;
+  padding: 20px;
+}
+
+/* 헤더 */
+.header {
+  background: #4a90e2;
+  color: white;
+  padding: 20px;
+  border-radius: 8px;
+  margin-bottom: 20px;
+}
+.header h1 {
+  font-size: 1.8rem;
+  margin-bottom: 5px;
+}
+.header p {
+  opacity: 0.9;
+}
+
+/* 요약 */
+.summary {
+  display: flex;
+  gap: 15px;
+  margin-bottom: 30px;
+}
+.summary div {
+  background: white;
+  padding: 10px 15px;
+  border-radius: 6px;
+  box-shadow: 0 2px 4px rgba(0, 0, 0, 0.1);
+}
+
+/* 시나리오 카드 */
+.step {
+  background: white;
+  border-radius: 8px;
+  padding: 15px 20px;
+  margin-top: 15px;
+  margin-bottom: 25px;
+  box-shadow: 0 2px 6px rgba(0, 0, 0, 0.08);
+  transition: transform 0.2s;
+}
+.step.success {
+  border-left: 6px solid #28a745;
+}
+.step.failed {
+  border-left: 6px solid #dc3545;
+  background: #fcebea;
+}
+
+/* 서브스텝 */
+.substeps {
+  margin-top: 15px;
+}
+.substep {
+  background: #f7f9fc;
+  padding: 12px;
+  border-radius: 6px;
+  margin-bottom: 10px;
+  border-left: 4px solid #777;
+}
+.substep.success {
+  border-color: #28a745;
+}
+.substep.failed {
+  border-color: #dc3545;
+}
+.substep p {
+  margin: 4px 0;
+  font-size: 0.95rem;
+}
+
+/* 스크린샷 갤러리 */
+.screenshots {
+  display: flex;
+  flex-wrap: wrap;
+  gap: 10px;
+  margin-top: 15px;
+}
+.screenshots a {
+  width: calc(33.333% - 10px);
+}
+.screenshots img {
+  width: 100%;
+  border-radius: 4px;
+  box-shadow: 0 1px 2px rgba(0, 0, 0, 0.1);
+}
+
+/* 반응형 */
+@media (max-width: 600px) {
+  .screenshots a {
+    width: 100%;
+  }
+}
+'''
+
+    # Build HTML
+    html = f"""<!DOCTYPE html>
+<html>
+<head>
+    <meta charset="UTF-8">
+    <title>Test Report - {test_start.strftime('%Y-%m-%d %H:%M:%S')}</title>
+    <style>
+{css}
+    </style>
+</head>
+<body>
+    <div class="header">
+        <h1>테스트 실행 보고서</h1>
+        <p>실행 시각: {test_start.strftime('%Y-%m-%d %H:%M:%S')}</p>
+        <p>소요 시간: {test_duration_ms/1000:.2f}s</p>
+    </div>
+    
+    <div class="summary">
+        <h2>요약</h2>
+        <p>총 시나리오: {total_steps}</p>
+        <p>성공: {passed_steps}</p>
+        <p>실패: {failed_steps}</p>{skipped_line}
+    </div>
+    
+    <div class="steps">
+        <h2>상세 시나리오</h2>
+"""
+
+    # 시나리오별 블록
+    for idx, res, screenshots in results:
+        status_str = "success" if res.get("status") else "failed"
+        html += f"""        <div class="step {status_str}">
+            <h3>시나리오 {idx}: {res.get('title', '')}</h3>
+            <p>상태: {'성공' if res.get('status') else '실패'}</p>
+            <p>소요 시간: {res.get('duration') or 0:.2f}s</p>
+            <h4>시나리오 피드백</h4>
+            <p>{res.get('feedback', '')}</p>
+"""
+
+        # (Optional) 시나리오 레벨 실패 사유
+        if res.get("fail"):
+            html += "            <div class='fail'><h5>Fail Reasons</h5><ul>\n"
+            for fs in res["fail"]:
+                html += f"                <li>Step {fs.get('num')}: {fs.get('message')}</li>\n"
+            html += "            </ul></div>\n"
+
+        # **스텝 별 substep 출력 추가**
+        html += "            <div class='substeps'>\n"
+        html += "                <h4>세부 스텝 결과</h4>\n"
+        for step in res.get("steps") or []:
+            sc = "success" if step.get("status") else "failed"
+            html += f"""                <div class="substep {sc}">
+                    <p><strong>Step {step.get('num')}:</strong> {step.get('action')}</p>
+                    <p>상태: {'✅ 성공' if step.get('status') else '❌ 실패'}</p>
+                    <p>피드백: {step.get('feedback')}</p>
+            """
+            if step.get("fail"):
+                html += f"                    <p>실패 사유: {step.get('fail')}</p>\n"
+            html += "                </div>\n"
+        html += "            </div>\n"
+
+        # 스크린샷 출력: 썸네일을 지연 로딩하고, 클릭 시에만 원본을 연다
+        if screenshots:
+            html += "            <div class='screenshots'>\n"
+            for img in screenshots:
+                # build 변수는 report 호출 시 사용된 build ID 문자열
+                # idx 는 현재 시나리오 번호 (1부터)
+                query = f"build={test_id}&amp;scenario={idx}&amp;file={img}"
+                html += (
+                    f'                <a href="screenshot?{query}" target="_blank">'
+                    f'<img class="screenshot" src="thumbnail?{query}" loading="lazy" decoding="async" '
+                    f'alt="Screenshot"/></a>\n'
+                )
+            html += "            </div>\n"
+
+        html += "        </div>\n"  # 시나리오 블록 닫기
+
+    html += "</div>\n</body>\n</html>"
+
+    # 파일로 저장 (읽는 쪽이 반쯤 쓰인 파일을 보지 않도록 원자적으로 교체)
+    write_text_atomic(os.path.join(output_dir, "report.html"), html)
+
+
+# Load every "<index>/result.json" under a build folder (all shards)
+def load_results(build_dir: str) -> List[Tuple[int, dict, List[str]]]:
+    results = []
+    for name in os.listdir(build_dir):
+        if not re.fullmatch(r"\d+", name):
+            continue
+        path = os.path.join(build_dir, name, "result.json")
+        if not os.path.isfile(path):
+            continue
+        with open(path, "r", encoding="utf-8") as f:
+            payload = json.load(f)
+        results.append((int(name), payload, payload.get("screenshots") or []))
+    results.sort(key=lambda r: r[0])
+    return results
+
+
+# Merge shard slices into a single report.html and manifest.json
+def merge_shards(build_dir: str, test_id: str) -> List[Tuple[int, dict, List[str]]]:
+    starts, ends, skipped = [], [], []
+    for name in os.listdir(build_dir):
+        if re.fullmatch(r"shard-\d+\.json", name):
+            with open(os.path.join(build_dir, name), "r", encoding="utf-8") as f:
+                info = json.load(f)
+            starts.append(datetime.fromisoformat(info["start"]))
+            ends.append(datetime.fromisoformat(info["end"]))
+            skipped.extend(info.get("skipped") or [])
+    test_start = min(starts) if starts else datetime.now()
+    test_end = max(ends) if ends else test_start
+    duration_ms = (test_end - test_start).total_seconds() * 1000
+
+    results = load_results(build_dir)
+    skipped.sort()
+    generate_combined_html_report(results, build_dir, test_start, duration_ms, test_id, len(skipped))
+    # manifest.json is written last: it is the commit point the report views read
+    write_manifest(build_dir, build_manifest(results, test_id, test_start, duration_ms, skipped))
+    return results
+
+
+if __name__ == "__main__":
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--merge", type=str, required=True, help="샤드 결과가 모인 빌드 디렉토리")
+    parser.add_argument("--build_id", type=str, default=None, help="스크린샷 URL에 사용할 빌드 ID")
+    args = parser.parse_args()
+
+    merged = merge_shards(args.merge, args.build_id or os.path.basename(args.merge.rstrip(os.sep)))
+    passed = sum(1 for _, r, _ in merged if r.get("status"))
+    print(f"샤드 병합 완료: 시나리오 {len(merged)}개 (성공 {passed}, 실패 {len(merged) - passed})")
@@ -0,0 +1,139 @@
+"""
+Result publishing for the results layout of JENKINS_HOME/results.
+
+The runner publishes into a workspace-local copy of the layout; the Jenkins step
+then ships it to the controller in one compressed transfer.
+
+A run writes everything into a private staging directory and only moves it into
+place once ``manifest.json`` is complete, so report views never see half-written
+files. Readers treat ``manifest.json`` as the commit point of a build folder.
+Screenshots are stored once in a content-addressed blob store (``.blobs``) and
+referenced from result.json by ``<sha256>.png``; the controller garbage collects
+blobs no build references any more.
+Only the standard library is used (shared with the shard merge stage).
+"""
+import hashlib
+import json
+import os
+import shutil
+from datetime import datetime
+from typing import List, Optional, Tuple
+
+from metrics import summarize
+
+MANIFEST_FILE = "manifest.json"
+MANIFEST_VERSION = 1
+BLOBS_DIR = ".blobs"
+
+
+# Private staging directory for one run (or one shard) of a build folder
+def staging_dir(base_dir: str, folder_name: str, label: str) -> str:
+    path = os.path.join(base_dir, ".staging", f"{folder_name}.{label}.{os.getpid()}")
+    if os.path.isdir(path):
+        shutil.rmtree(path)
+    os.makedirs(path)
+    return path
+
+
+# Write a file via temp file + rename so readers never observe partial content
+def write_text_atomic(path: str, text: str):
+    tmp = f"{path}.tmp.{os.getpid()}"
+    with open(tmp, "w", encoding="utf-8") as f:
+        f.write(text)
+    os.replace(tmp, path)
+
+
+def write_json_atomic(path: str, payload):
+    write_text_atomic(path, json.dumps(payload, ensure_ascii=False, indent=2))
+
+
+# Store a screenshot once under .blobs/<aa>/<sha256>.png and return its reference name
+def store_blob(base_dir: str, data: bytes, ext: str = "png") -> str:
+    digest = hashlib.sha256(data).hexdigest()
+    name = f"{digest}.{ext}"
+    blob_dir = os.path.join(base_dir, BLOBS_DIR, digest[:2])
+    path = os.path.join(blob_dir, name)
+    if os.path.isfile(path):
+        # 재사용된 blob은 GC 유예 기간이 새로 시작되도록 mtime 갱신
+        os.utime(path)
+        return name
+    os.makedirs(blob_dir, exist_ok=True)
+    tmp = f"{path}.tmp.{os.getpid()}.{id(data)}"
+    with open(tmp, "wb") as f:
+        f.write(data)
+    # 같은 내용을 동시에 쓰더라도 결과는 동일하므로 덮어써도 무방
+    os.replace(tmp, path)
+    return name
+
+
+def store_blob_file(base_dir: str, src: str, ext: str = "png") -> str:
+    with open(src, "rb") as f:
+        return store_blob(base_dir, f.read(), ext)
+
+
+# Compact per-build summary: everything the list/summary views need in one file
+def build_manifest(
+        results: List[Tuple[int, dict, List[str]]],
+        test_id: str,
+        test_start: datetime,
+        test_duration_ms: float,
+        skipped: Optional[List[int]] = None,
+) -> dict:
+    scenarios = [
+        {
+            "index": idx,
+            "title": res.get("title", ""),
+            "status": bool(res.get("status")),
+            "duration": res.get("duration") or 0,
+            "screenshots": list(screenshots),
+        }
+        for idx, res, screenshots in results
+    ]
+    passed = sum(1 for s in scenarios if s["status"])
+    manifest = {
+        "version": MANIFEST_VERSION,
+        "build": test_id,
+        "start": test_start.isoformat(),
+        "duration_ms": test_duration_ms,
+        "total": len(scenarios),
+        "passed": passed,
+        "failed": len(scenarios) - passed,
+        "scenarios": scenarios,
+    }
+    if skipped:
+        # fail-fast로 실행하지 않은 시나리오 번호
+        manifest["skipped"] = list(skipped)
+    timings, tokens = summarize([res for _, res, _ in results])
+    if timings is not None:
+        manifest["timings"] = timings
+        manifest["tokens"] = tokens
+    return manifest
+
+
+def write_manifest(build_dir: str, manifest: dict):
+    write_json_atomic(os.path.join(build_dir, MANIFEST_FILE), manifest)
+
+
+# Atomically replace the build folder with a completed staging directory
+def publish_dir(staging: str, final_dir: str):
+    if os.path.isdir(final_dir):
+        # Same build number published again (e.g. re-run after the build was deleted)
+        old = f"{staging}.old"
+        os.rename(final_dir, old)
+        os.rename(staging, final_dir)
+        shutil.rmtree(old, ignore_errors=True)
+    else:
+        os.rename(staging, final_dir)
+
+
+# Move a shard's slice (scenario folders + shard-N.json) into the shared build folder
+def publish_slice(staging: str, final_dir: str):
+    os.makedirs(final_dir, exist_ok=True)
+    for name in sorted(os.listdir(staging)):
+        src = os.path.join(staging, name)
+        dst = os.path.join(final_dir, name)
+        if os.path.isdir(dst):
+            shutil.rmtree(dst)
+        # Each rename is atomic; the manifest written by the merge stage makes them visible
+        os.replace(src, dst)
+    os.rmdir(staging)
@@ -9,8 +9,8 @@ uv sync
 cd mcp
 npx playwright install-deps
 npm install
-# 워크스페이스 안에 브라우저 바이너리 보관
-export PLAYWRIGHT_BROWSERS_PATH=./.playwright-browsers
+# 워크스페이스 안에 브라우저 바이너리 보관 (툴체인 캐시 사용 시 캐시 경로가 전달됨)
+export PLAYWRIGHT_BROWSERS_PATH="${PLAYWRIGHT_BROWSERS_PATH:-./.playwright-browsers}"
 
 npx playwright install --with-deps chromium
 
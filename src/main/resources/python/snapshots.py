@@ -0,0 +1,263 @@
+"""
+Compact and differential page snapshots for the LLM.
+
+Every Playwright MCP action returns the page's full accessibility snapshot
+(YAML between "- Page Snapshot" and the closing fence). The React agent keeps
+every tool result in its history, so heavy pages cost tens of thousands of
+tokens per step. ``SnapshotCompactor`` rewrites the snapshot part of each tool
+result:
+
+* pruning: ``/url`` properties, unnamed images, separators and presentational
+  nodes are dropped, unnamed containers (list, listitem, group, generic, ...)
+  are flattened and long texts are cut. Hidden nodes never reach the snapshot
+  (the MCP server snapshots with ``includeHidden: false``).
+* compact encoding: one line per node, ``<indent><ref> <role> "<name>"
+  [attrs]: <text>``, one space of indentation per level.
+* refs are shown without the per-snapshot prefix (``s3e12`` -> ``e12``), so an
+  unchanged element keeps its ref across snapshots. ``resolve_args`` maps the
+  refs the model sends back to the current snapshot's refs.
+* diff: after the first snapshot of the scenario, a snapshot of the same page
+  is sent as the lines added (with the unchanged line they follow) and removed
+  compared to what the model has already seen. A new URL, or a diff that is
+  not smaller than the page, is sent in full.
+* token budget: a snapshot larger than ``PLAYWRIGHT_E2E_SNAPSHOT_TOKEN_BUDGET``
+  (estimated tokens, 0 = unlimited) drops plain text first, then non-interactive
+  elements, then lines from the end, and says how many lines were omitted.
+
+The TypeScript runner applies the same rules (typescript/executor/snapshotCompactor.ts).
+Only the standard library is used.
+"""
+import math
+import os
+import re
+import time
+from typing import Dict, List, Optional, Tuple
+
+BUDGET_ENV = "PLAYWRIGHT_E2E_SNAPSHOT_TOKEN_BUDGET"
+DEFAULT_BUDGET = 4000
+
+_BLOCK = re.compile(r"- Page Snapshot\n```yaml\n(.*?)\n```", re.S)
+_URL = re.compile(r"- Page URL: (.+)")
+_LINE = re.compile(r"^(\s*)- (.*)$")
+_REF = re.compile(r"\s*\[ref=([^\]]+)\]")
+_ATTR = re.compile(r"\s*\[([^\]=]+(?:=[^\]]*)?)\]")
+_NAME = re.compile(r'^([a-zA-Z]+)(?: "((?:[^"\\]|\\.)*)")?(.*)$')
+_PREFIXED_REF = re.compile(r"^(f\d+)?s\d+(e\d+)$")
+
+INTERACTIVE = {
+    "button", "link", "textbox", "searchbox", "checkbox", "radio", "combobox", "listbox", "option",
+    "menuitem", "menuitemcheckbox", "menuitemradio", "tab", "switch", "slider", "spinbutton", "treeitem",
+}
+# 이름이 없으면 줄을 만들지 않고 자식만 한 단계 위로 올리는 컨테이너
+FLATTEN = {
+    "generic", "group", "list", "listitem", "table", "rowgroup", "row", "cell", "gridcell", "paragraph",
+    "section", "article", "region", "banner", "contentinfo", "complementary", "navigation", "main", "form",
+    "document", "none", "presentation", "strong", "emphasis", "blockquote", "figure", "definition", "term",
+}
+DROP = {"separator", "presentation", "none"}
+MAX_TEXT = 80
+
+
+def estimate_tokens(text: str) -> int:
+    # 영문은 약 4글자당 1토큰, 한글 등 비ASCII 문자는 글자당 약 1토큰으로 추정
+    ascii_chars = sum(1 for c in text if ord(c) < 128)
+    return math.ceil(ascii_chars / 4) + (len(text) - ascii_chars)
+
+
+def budget_from_env() -> int:
+    try:
+        return max(0, int(os.getenv(BUDGET_ENV, str(DEFAULT_BUDGET))))
+    except ValueError:
+        return DEFAULT_BUDGET
+
+
+def normalize_ref(ref: str) -> str:
+    match = _PREFIXED_REF.match(ref)
+    return f"{match.group(1) or ''}{match.group(2)}" if match else ref
+
+
+def _unquote(content: str) -> str:
+    # YAML이 ': ' 등을 포함한 줄을 따옴표로 감싼 경우
+    if len(content) >= 2 and content[0] == "'" and content.endswith(("'", "':")):
+        colon = content.endswith("':")
+        inner = content[1:-2] if colon else content[1:-1]
+        return inner.replace("''", "'") + (":" if colon else "")
+    return content
+
+
+# 스냅샷 YAML -> (압축된 줄 목록, 정규화 ref -> 실제 ref)
+# 줄 = (들여쓰기 깊이, 내용, 우선순위) - 우선순위 0: 상호작용 요소/제목, 1: 기타 ref 요소, 2: 텍스트
+def compact_lines(yaml_text: str) -> Tuple[List[Tuple[int, str, int]], Dict[str, str]]:
+    lines: List[Tuple[int, str, int]] = []
+    refs: Dict[str, str] = {}
+    # (원래 들여쓰기, 출력 깊이) 스택: 평탄화된 컨테이너의 자식은 부모의 출력 깊이를 물려받음
+    stack: List[Tuple[int, int]] = []
+    for raw in yaml_text.split("\n"):
+        match = _LINE.match(raw)
+        if not match:
+            continue
+        indent = len(match.group(1))
+        content = _unquote(match.group(2).strip())
+        while stack and stack[-1][0] >= indent:
+            stack.pop()
+        depth = stack[-1][1] + 1 if stack else 0
+        if content.startswith("/"):
+            # /url 등 속성 줄은 생략 (placeholder 같은 값은 부모 이름에 이미 반영됨)
+            continue
+        name_match = _NAME.match(content)
+        if name_match:
+            role, name, rest = name_match.group(1), name_match.group(2) or "", name_match.group(3)
+        else:
+            role, name, rest = content.rstrip(":"), "", ""
+        # 이름 뒤: [속성] [ref=..] 그리고 자식이 있으면 ':', 한 줄 텍스트면 ': 텍스트'
+        text = ""
+        if ": " in rest:
+            rest, text = rest.split(": ", 1)
+        ref_match = _REF.search(rest)
+        ref = ref_match.group(1) if ref_match else None
+        attrs = " ".join(f"[{a}]" for a in _ATTR.findall(_REF.sub("", rest)))
+        if role in DROP or (role == "img" and not name):
+            stack.append((indent, depth - 1))
+            continue
+        if role in FLATTEN and not name and not text and not ref:
+            stack.append((indent, depth - 1))
+            continue
+        if role in FLATTEN and not name and not ref and text:
+            # 이름 없는 단락 등: 텍스트만 남김
+            role = "text"
+        stack.append((indent, depth))
+        if len(text) > MAX_TEXT:
+            text = text[:MAX_TEXT] + "…"
+        parts = []
+        if ref:
+            short = normalize_ref(ref)
+            refs[short] = ref
+            parts.append(short)
+        parts.append(role)
+        if name:
+            parts.append(f'"{name[:MAX_TEXT] + "…" if len(name) > MAX_TEXT else name}"')
+        if attrs:
+            parts.append(attrs)
+        line = " ".join(parts) + (f": {text}" if text else "")
+        if role in INTERACTIVE or role == "heading" or role in ("dialog", "alertdialog", "alert"):
+            priority = 0
+        elif ref:
+            priority = 1
+        else:
+            priority = 2
+        lines.append((max(0, depth), line, priority))
+    return lines, refs
+
+
+def _render(lines: List[Tuple[int, str, int]]) -> str:
+    return "\n".join(" " * depth + line for depth, line, _ in lines)
+
+
+# 예산을 넘으면 텍스트 -> 비상호작용 요소 -> 뒤쪽 줄 순서로 제외
+def fit_budget(lines: List[Tuple[int, str, int]], budget: int) -> Tuple[List[Tuple[int, str, int]], int]:
+    if budget <= 0 or estimate_tokens(_render(lines)) <= budget:
+        return lines, 0
+    kept = list(lines)
+    for level in (2, 1):
+        kept = [ln for ln in kept if ln[2] < level]
+        if estimate_tokens(_render(kept)) <= budget:
+            break
+    used = 0
+    fitted = []
+    for ln in kept:
+        cost = estimate_tokens(" " * ln[0] + ln[1]) + 1
+        if used + cost > budget:
+            break
+        fitted.append(ln)
+        used += cost
+    return fitted, len(lines) - len(fitted)
+
+
+class SnapshotCompactor:
+    """Per-scenario state: what the model has seen of the current page and the current refs."""
+
+    def __init__(self, budget: Optional[int] = None, metrics=None):
+        self.budget = budget_from_env() if budget is None else budget
+        self.metrics = metrics
+        self.url: Optional[str] = None
+        self.known: List[Tuple[int, str, int]] = []
+        self.refs: Dict[str, str] = {}
+
+    def resolve_args(self, args: dict) -> dict:
+        # 모델이 보낸 정규화된 ref(e12)를 현재 스냅샷의 실제 ref(s3e12)로 변환
+        ref = args.get("ref")
+        if isinstance(ref, str) and ref in self.refs:
+            return {**args, "ref": self.refs[ref]}
+        return args
+
+    def observe(self, text: str):
+        """Updates the ref mapping from a tool result the model does not see (replay)."""
+        block = _BLOCK.search(text)
+        if block:
+            _, self.refs = compact_lines(block.group(1))
+
+    def forget_page(self):
+        """The next snapshot is sent in full."""
+        self.url = None
+        self.known = []
+
+    def rewrite(self, text: str) -> str:
+        """Replaces the snapshot block of a tool result with its compact (or diff) form."""
+        block = _BLOCK.search(text)
+        if not block:
+            return text
+        start = time.perf_counter()
+        url_match = _URL.search(text)
+        url = url_match.group(1).strip() if url_match else None
+        lines, self.refs = compact_lines(block.group(1))
+        body, mode = self._next(url, lines)
+        replaced = text[:block.start()] + body + text[block.end():]
+        if self.metrics is not None:
+            self.metrics.snapshot(
+                round((time.perf_counter() - start) * 1000, 1),
+                estimate_tokens(block.group(0)), estimate_tokens(body), mode
+            )
+        return replaced
+
+    def _next(self, url: Optional[str], lines: List[Tuple[int, str, int]]) -> Tuple[str, str]:
+        same_page = self.known and url is not None and url == self.url
+        self.url = url
+        if same_page:
+            known = {ln[1] for ln in self.known}
+            current = {ln[1] for ln in lines}
+            removed = [ln for ln in self.known if ln[1] not in current]
+            added, omitted = fit_budget([ln for ln in lines if ln[1] not in known], self.budget)
+            shown = {ln[1] for ln in added}
+            diff = self._render_diff(lines, known, shown, removed, omitted)
+            if estimate_tokens(diff) < estimate_tokens(_render(lines)):
+                self.known = [ln for ln in lines if ln[1] in known or ln[1] in shown]
+                return diff, "diff"
+        shown_lines, omitted = fit_budget(lines, self.budget)
+        self.known = shown_lines
+        body = "- Page Snapshot (compact: one line per element, refs as eN)\n```\n" + _render(shown_lines)
+        if omitted:
+            body += f"\n… {omitted} lines omitted (token budget)"
+        return body + "\n```", "full"
+
+    @staticmethod
+    def _render_diff(lines, known, shown, removed, omitted) -> str:
+        out = ["- Page Snapshot diff (same page; elements not listed are unchanged and keep their refs)", "```"]
+        anchor = None
+        in_block = False
+        for depth, line, _ in lines:
+            if line in shown:
+                if not in_block and anchor is not None:
+                    out.append("@ after " + anchor)
+                in_block = True
+                out.append("+" + " " * depth + line)
+            else:
+                in_block = False
+                if line in known:
+                    anchor = line
+        out += ["-" + " " * depth + line for depth, line, _ in removed]
+        if len(out) == 2:
+            out.append("(no changes)")
+        if omitted:
+            out.append(f"… {omitted} added lines omitted (token budget)")
+        out.append("```")
+        return "\n".join(out)
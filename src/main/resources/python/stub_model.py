@@ -0,0 +1,76 @@
+"""
+Offline stand-in for the LLM (LLM_PROVIDER=stub), for exercising the runner
+without network access or tokens, including the replay fallback path.
+
+Without a script every turn answers at once with a JSON result in which all
+numbered steps of the instruction passed. ``LLM_STUB_SCRIPT`` may point to a
+JSON list of turns played in order before that final answer, e.g.::
+
+    [{"tool_calls": [{"name": "browser_navigate", "args": {"url": "http://localhost:8080"}}]},
+     {"content": "```json {...} ```"}]
+
+The turn is the number of AI messages already in the conversation, so one
+model instance serves any number of scenarios.
+"""
+import json
+import os
+import re
+from typing import Any, List, Optional
+
+from langchain_core.language_models.chat_models import BaseChatModel
+from langchain_core.messages import AIMessage, BaseMessage, HumanMessage
+from langchain_core.outputs import ChatGeneration, ChatResult
+
+
+class StubChatModel(BaseChatModel):
+    script: List[dict] = []
+
+    @classmethod
+    def from_env(cls) -> "StubChatModel":
+        path = os.getenv("LLM_STUB_SCRIPT")
+        if not path:
+            return cls()
+        with open(path, "r", encoding="utf-8") as f:
+            return cls(script=json.load(f))
+
+    @property
+    def _llm_type(self) -> str:
+        return "stub"
+
+    # 도구 목록은 스크립트가 정하므로 바인딩은 무시
+    def bind_tools(self, tools, **kwargs):
+        return self
+
+    def _generate(
+            self,
+            messages: List[BaseMessage],
+            stop: Optional[List[str]] = None,
+            run_manager: Any = None,
+            **kwargs: Any,
+    ) -> ChatResult:
+        turn = sum(1 for m in messages if isinstance(m, AIMessage))
+        if turn < len(self.script):
+            entry = self.script[turn]
+            message = AIMessage(
+                content=entry.get("content", ""),
+                tool_calls=[
+                    {"name": c["name"], "args": c.get("args") or {}, "id": f"stub-{turn}-{i}"}
+                    for i, c in enumerate(entry.get("tool_calls") or [])
+                ],
+            )
+        else:
+            message = AIMessage(content=_passed_answer(messages))
+        return ChatResult(generations=[ChatGeneration(message=message)])
+
+
+# 지시문의 "N. 스텝" 줄마다 성공한 스텝 결과를 만들어 JSON 코드블록으로 반환
+def _passed_answer(messages: List[BaseMessage]) -> str:
+    instruction = next((m.content for m in messages if isinstance(m, HumanMessage)), "")
+    if not isinstance(instruction, str):
+        instruction = ""
+    steps = [
+        {"num": int(num), "action": action, "status": True, "duration": 0.0, "feedback": "stub", "fail": None}
+        for num, action in re.findall(r"^(\d+)\. (.*)$", instruction, re.MULTILINE)
+    ]
+    result = {"title": "", "status": True, "duration": 0.0, "feedback": "stub", "fail": None, "steps": steps}
+    return "```json\n" + json.dumps(result, ensure_ascii=False) + "\n```"
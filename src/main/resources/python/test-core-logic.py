@@ -0,0 +1,25 @@
+"""
+Handler served by worker.py for CoreLogic.process (core/PythonWorkerPool.java).
+
+The contract is a top-level ``process(input) -> str``: it is loaded once per
+worker and called for each request, with the build's ``BUILD_NUMBER`` set in
+``os.environ`` for that request only. The returned string is the result
+CoreLogic.process returns; an exception fails the request and its traceback is
+logged on the controller. Run directly, the script prints the result for argv[1]
+as the former one-shot invocation did.
+"""
+import json
+import os
+import sys
+
+
+def process(input: str) -> str:
+    return json.dumps({
+        "build": os.environ.get("BUILD_NUMBER"),
+        "input": input,
+        "length": len(input),
+    }, ensure_ascii=False)
+
+
+if __name__ == "__main__":
+    print(process(sys.argv[1] if len(sys.argv) > 1 else ""))
@@ -0,0 +1,123 @@
+"""
+Long-lived worker behind CoreLogic.process (core/PythonWorkerPool.java).
+
+The controller keeps a few of these running and sends them requests over
+stdin/stdout. Every message is a 4-byte big-endian length followed by that many
+bytes of UTF-8 JSON::
+
+    request:  {"id": 1, "op": "process", "input": "...", "env": {"BUILD_NUMBER": "7"}}
+              {"id": 2, "op": "ping"}
+    response: {"id": 1, "ok": true, "result": "..."}
+              {"id": 1, "ok": false, "error": "...", "trace": "Traceback ..."}
+
+If the handler script (argv[1]) defines a top-level ``process(input)``, it is loaded
+once and that function is called for each request. Otherwise the script is never
+imported as a module: each request runs it as ``__main__`` with the input as
+argv[1] and the first line it prints is the result, as with the former one-shot
+invocation; its imports stay loaded between requests either way. The request's
+``env`` is applied for that request only. Everything else the script prints goes
+to stderr and never into the protocol stream.
+"""
+import ast
+import contextlib
+import io
+import json
+import os
+import runpy
+import struct
+import sys
+import traceback
+
+HEADER = struct.Struct(">I")
+
+
+def read_message(stream):
+    header = stream.read(HEADER.size)
+    if len(header) < HEADER.size:
+        return None
+    (length,) = HEADER.unpack(header)
+    body = stream.read(length)
+    if len(body) < length:
+        return None
+    return json.loads(body.decode("utf-8"))
+
+
+def write_message(stream, message: dict):
+    body = json.dumps(message, ensure_ascii=False).encode("utf-8")
+    stream.write(HEADER.pack(len(body)) + body)
+    stream.flush()
+
+
+def _run_as_main(script: str, text: str) -> str:
+    captured = io.StringIO()
+    saved_argv = sys.argv
+    sys.argv = [script, text]
+    try:
+        with contextlib.redirect_stdout(captured):
+            try:
+                runpy.run_path(script, run_name="__main__")
+            except SystemExit as e:
+                if e.code not in (None, 0):
+                    raise RuntimeError(f"script exited with {e.code}") from None
+    finally:
+        sys.argv = saved_argv
+    output = captured.getvalue()
+    # 첫 줄만 결과, 나머지 출력은 로그로
+    first, _, rest = output.partition("\n")
+    if rest.strip():
+        sys.stderr.write(rest)
+    return first
+
+
+def _defines_process(script: str) -> bool:
+    """Checks the source for a top-level ``process`` without executing it."""
+    with open(script, "rb") as f:
+        tree = ast.parse(f.read(), filename=script)
+    for node in tree.body:
+        if isinstance(node, (ast.FunctionDef, ast.AsyncFunctionDef)) and node.name == "process":
+            return True
+    return False
+
+
+def _handle(handler, script: str, request: dict) -> str:
+    saved_env = dict(os.environ)
+    os.environ.update({k: str(v) for k, v in (request.get("env") or {}).items()})
+    try:
+        text = request.get("input") or ""
+        return handler(text) if handler else _run_as_main(script, text)
+    finally:
+        os.environ.clear()
+        os.environ.update(saved_env)
+
+
+def main():
+    script = sys.argv[1]
+    channel_in = sys.stdin.buffer
+    channel_out = sys.stdout.buffer
+    # 스크립트의 print가 프로토콜 스트림에 섞이지 않도록 stdout을 stderr로 돌림
+    sys.stdout = sys.stderr
+
+    handler = None
+    if _defines_process(script):
+        handler = runpy.run_path(script, run_name="core_logic_handler").get("process")
+        if not callable(handler):
+            handler = None
+
+    while True:
+        request = read_message(channel_in)
+        if request is None:
+            break
+        response = {"id": request.get("id")}
+        try:
+            if request.get("op") == "ping":
+                response.update(ok=True, result="pong")
+            else:
+                result = _handle(handler, script, request)
+                response.update(ok=True, result="" if result is None else str(result))
+        except Exception as e:
+            response.update(ok=False, error=f"{type(e).__name__}: {e}", trace=traceback.format_exc())
+        write_message(channel_out, response)
+
+
+if __name__ == "__main__":
+    main()
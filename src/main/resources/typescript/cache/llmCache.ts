@@ -0,0 +1,131 @@
+import * as crypto from "crypto";
+import * as fs from "fs/promises";
+import * as path from "path";
+
+/**
+ * 노드(에이전트)에 유지되는 LLM 응답 캐시.
+ * - parse/<sha256>.json: 시나리오 텍스트 해시 → 파싱된 TestStep 목록
+ * - element/<sha256>.json: 스텝 텍스트 + 스냅샷 구조 해시 → 요소(selector, ref)
+ *
+ * 위치는 PLAYWRIGHT_E2E_LLM_CACHE(Jenkins가 <node root>/playwright-e2e/llm-cache 로 설정),
+ * 크기 상한은 PLAYWRIGHT_E2E_LLM_CACHE_MAX_MB. 둘 중 하나라도 없거나 상한이 0이면 캐시를 쓰지 않는다.
+ * 조회할 때마다 mtime을 갱신하고, prune()이 가장 오래 쓰이지 않은 항목부터 상한 이하로 지운다.
+ */
+export type CacheNamespace = "parse" | "element";
+
+export class LlmCache {
+  private constructor(private readonly dir: string, private readonly maxBytes: number) {}
+
+  static fromEnv(): LlmCache | null {
+    const dir = process.env.PLAYWRIGHT_E2E_LLM_CACHE;
+    const maxMb = Number(process.env.PLAYWRIGHT_E2E_LLM_CACHE_MAX_MB ?? "0");
+    if (!dir || !(maxMb > 0)) {
+      return null;
+    }
+    return new LlmCache(dir, maxMb * 1024 * 1024);
+  }
+
+  static key(...parts: string[]): string {
+    const hash = crypto.createHash("sha256");
+    for (const part of parts) {
+      // 길이를 함께 넣어 경계가 다른 입력이 같은 키가 되지 않도록 함
+      hash.update(`${Buffer.byteLength(part, "utf-8")}:`).update(part, "utf-8");
+    }
+    return hash.digest("hex");
+  }
+
+  async get<T>(ns: CacheNamespace, key: string): Promise<T | null> {
+    const file = this.file(ns, key);
+    try {
+      const value = JSON.parse(await fs.readFile(file, "utf-8")) as T;
+      const now = new Date();
+      await fs.utimes(file, now, now).catch(() => undefined);
+      return value;
+    } catch {
+      return null;
+    }
+  }
+
+  async set(ns: CacheNamespace, key: string, value: unknown): Promise<void> {
+    const file = this.file(ns, key);
+    const tmp = `${file}.tmp.${process.pid}`;
+    try {
+      await fs.mkdir(path.dirname(file), { recursive: true });
+      await fs.writeFile(tmp, JSON.stringify(value), "utf-8");
+      // 동시에 실행되는 빌드가 반쯤 쓰인 파일을 읽지 않도록 rename으로 교체
+      await fs.rename(tmp, file);
+    } catch (error) {
+      await fs.rm(tmp, { force: true }).catch(() => undefined);
+      console.warn("⚠️ LLM 캐시 저장 실패:", error);
+    }
+  }
+
+  async delete(ns: CacheNamespace, key: string): Promise<void> {
+    await fs.rm(this.file(ns, key), { force: true }).catch(() => undefined);
+  }
+
+  /** 전체 크기가 상한을 넘으면 가장 오래 쓰이지 않은 항목부터 삭제 */
+  async prune(): Promise<void> {
+    const entries: { file: string; size: number; mtime: number }[] = [];
+    for (const ns of ["parse", "element"] as CacheNamespace[]) {
+      const dir = path.join(this.dir, ns);
+      let names: string[];
+      try {
+        names = await fs.readdir(dir);
+      } catch {
+        continue;
+      }
+      for (const name of names) {
+        if (!name.endsWith(".json")) {
+          continue;
+        }
+        const file = path.join(dir, name);
+        const stat = await fs.stat(file).catch(() => null);
+        if (stat) {
+          entries.push({ file, size: stat.size, mtime: stat.mtimeMs });
+        }
+      }
+    }
+    let total = entries.reduce((sum, e) => sum + e.size, 0);
+    if (total <= this.maxBytes) {
+      return;
+    }
+    entries.sort((a, b) => a.mtime - b.mtime);
+    let removed = 0;
+    for (const entry of entries) {
+      if (total <= this.maxBytes) {
+        break;
+      }
+      await fs.rm(entry.file, { force: true }).catch(() => undefined);
+      total -= entry.size;
+      removed++;
+    }
+    console.log(`🧹 LLM 캐시 정리: ${removed}개 항목 삭제`);
+  }
+
+  private file(ns: CacheNamespace, key: string): string {
+    return path.join(this.dir, ns, `${key}.json`);
+  }
+}
+
+/**
+ * 스냅샷의 구조 해시: ref가 붙은 요소 줄(들여쓰기, 역할, 이름, ref)과 페이지 URL 경로만 사용.
+ * 시각, 카운터 같은 일반 텍스트 노드는 바뀌어도 같은 해시가 되고, 요소나 ref가 바뀌면 다른 해시가 된다.
+ * 캐시된 ref는 같은 구조에서만 재사용되므로 항상 현재 스냅샷에 존재한다.
+ */
+export function snapshotStructureHash(rawSnapshot: string): string {
+  const lines: string[] = [];
+  const urlMatch = rawSnapshot.match(/- Page URL: (.+)/);
+  if (urlMatch) {
+    lines.push(urlMatch[1].trim().replace(/[?#].*$/, ""));
+  }
+  for (const line of rawSnapshot.split("\n")) {
+    const refAt = line.indexOf("[ref=");
+    if (refAt < 0) {
+      continue;
+    }
+    const refEnd = line.indexOf("]", refAt);
+    lines.push(line.substring(0, refEnd < 0 ? line.length : refEnd + 1).trimEnd());
+  }
+  return LlmCache.key(...lines);
+}
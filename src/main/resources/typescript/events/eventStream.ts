@@ -0,0 +1,25 @@
+import * as fs from "fs";
+
+/**
+ * NDJSON 이벤트 스트림 (Jenkins 라이브 진행 표시용).
+ * PLAYWRIGHT_E2E_EVENTS 가 설정된 경우에만 이벤트를 한 줄씩 추가 기록한다.
+ * 프로토콜은 python/events.py 와 동일하다:
+ *   run_started {total}, scenario_started {index, title}, step_result {index, num, status, action},
+ *   screenshot_saved {index, name}, llm_call {index, ms, input_tokens, output_tokens},
+ *   tool_call {index, tool, ms, error}, scenario_finished {index, status, duration_ms},
+ *   run_finished {passed, failed}
+ */
+const eventsPath = process.env.PLAYWRIGHT_E2E_EVENTS;
+
+export function emitEvent(type: string, fields: Record<string, unknown> = {}): void {
+  if (!eventsPath) {
+    return;
+  }
+  const line = JSON.stringify({ type, ts: Date.now(), ...fields }) + "\n";
+  try {
+    // 한 번의 append 쓰기로 기록하여 줄이 섞이지 않도록 함
+    fs.appendFileSync(eventsPath, line, "utf-8");
+  } catch {
+    // 진행 상황 표시용이므로 기록 실패가 테스트를 멈추게 하지 않음
+  }
+}
@@ -7,6 +7,9 @@ import * as os from "os";
 import * as childProcess from "child_process";
 import { promisify } from "util";
 import { MCPClient } from "../mcp/mcpClient";
+import { emitEvent } from "../events/eventStream";
+import { LlmCache, snapshotStructureHash } from "../cache/llmCache";
+import { SnapshotCompactor, SnapshotView, budgetFromEnv, estimateTokens } from "./snapshotCompactor";
 
 const exec = promisify(childProcess.exec);
 dotenv.config();
@@ -147,6 +150,18 @@ async function saveScreenshot(
   }
 }
 
+// AI 요소 분석 결과 (cacheKey: 캐시에 저장된 키, cached: 캐시에서 읽은 결과인지)
+type ElementInfo = {
+  selector?: string;
+  ref?: string | null;
+  cacheKey?: string;
+  cached?: boolean;
+};
+
+// 요소 분석 프롬프트/모델이 바뀌면 올려서 이전 캐시 항목을 무효화
+const ELEMENT_CACHE_VERSION = "element-v2";
+const ELEMENT_MODEL = "claude-3-5-haiku-20241022";
+
 export class AdaptivePlaywrightExecutor {
   private mcpClient: MCPClient;
   private outputDir: string;
@@ -157,6 +172,10 @@ export class AdaptivePlaywrightExecutor {
   private browserContextId: string | null = null;
   private pageId: string | null = null;
   private buildNumber: string;
+  private llmCache: LlmCache | null = LlmCache.fromEnv();
+  // 요소 분석 대화: 첫 요청에 압축 스냅샷 전체, 같은 페이지의 이후 요청은 차분만 보냄
+  private snapshotCompactor = new SnapshotCompactor();
+  private elementConversation: Anthropic.MessageParam[] = [];
 
   constructor() {
     const jenkinsHome = process.env.JENKINS_HOME || process.cwd();
@@ -267,6 +286,9 @@ export class AdaptivePlaywrightExecutor {
 
     this.testReport.startTime = new Date().toISOString();
     this.testReport.totalSteps = steps.length;
+    // TS 실행기는 시나리오 파일 하나를 시나리오 1개로 보고
+    emitEvent("run_started", { total: 1 });
+    emitEvent("scenario_started", { index: 1, title: this.testReport.testName });
 
     for (let i = 0; i < steps.length; i++) {
       const step = steps[i];
@@ -355,6 +377,10 @@ export class AdaptivePlaywrightExecutor {
           );
           if (saved) {
             stepResult.screenshot = autoScreenshotPath;
+            emitEvent("screenshot_saved", {
+              index: 1,
+              name: path.basename(autoScreenshotPath),
+            });
           }
         }
 
@@ -400,6 +426,10 @@ export class AdaptivePlaywrightExecutor {
           );
           if (saved) {
             stepResult.screenshot = errorScreenshotPath;
+            emitEvent("screenshot_saved", {
+              index: 1,
+              name: path.basename(errorScreenshotPath),
+            });
           }
         } catch (screenshotError) {
           console.error("에러 발생 후 스크린샷 촬영 실패:", screenshotError);
@@ -413,6 +443,12 @@ export class AdaptivePlaywrightExecutor {
         new Date(stepResult.endTime).getTime() -
         new Date(stepResult.startTime).getTime();
       this.testReport.steps.push(stepResult);
+      emitEvent("step_result", {
+        index: 1,
+        num: i + 1,
+        status: stepResult.status === "success",
+        action: step.description,
+      });
 
       // 각 단계 사이에 대기
       await new Promise((resolve) => setTimeout(resolve, 1000));
@@ -422,6 +458,16 @@ export class AdaptivePlaywrightExecutor {
     this.testReport.duration =
       new Date(this.testReport.endTime).getTime() -
       new Date(this.testReport.startTime).getTime();
+    const scenarioPassed = this.testReport.failedSteps === 0;
+    emitEvent("scenario_finished", {
+      index: 1,
+      status: scenarioPassed,
+      duration_ms: this.testReport.duration,
+    });
+    emitEvent("run_finished", {
+      passed: scenarioPassed ? 1 : 0,
+      failed: scenarioPassed ? 0 : 1,
+    });
 
     // 최종 테스트 결과에 대한 AI 코멘트
     console.log("\n테스트 실행 완료, AI 분석 결과 생성 중...");
@@ -481,6 +527,9 @@ export class AdaptivePlaywrightExecutor {
       // MCP 클라이언트 연결 해제
       await this.mcpClient.disconnect();
 
+      // 크기 상한을 넘은 LLM 캐시 항목 정리
+      await this.llmCache?.prune();
+
       console.log("브라우저 및 MCP 클라이언트 정리 완료");
     } catch (error) {
       console.error("정리 과정에서 오류 발생:", error);
@@ -516,10 +565,7 @@ export class AdaptivePlaywrightExecutor {
   private async handleClick(
     step: TestStep,
     stepResult: StepResult,
-    preAnalyzedElementInfo: {
-      selector?: string;
-      ref?: string | null;
-    } | null = null
+    preAnalyzedElementInfo: ElementInfo | null = null
   ): Promise<void> {
     console.log(`🖱️ 클릭 시작: ${step.description}`);
 
@@ -604,6 +650,7 @@ export class AdaptivePlaywrightExecutor {
         return;
       } catch (error) {
         console.error(`❌ 클릭 시도 #${attempt + 1} 실패:`, error);
+        preAnalyzedElementInfo = await this.reanalyzeIfCached(step, preAnalyzedElementInfo);
 
         // 오류 응답에서 대화 상자 관련 내용 확인
         if (this.isDialogError(error)) {
@@ -871,10 +918,7 @@ export class AdaptivePlaywrightExecutor {
   private async handleFill(
     step: TestStep,
     stepResult: StepResult,
-    preAnalyzedElementInfo: {
-      selector?: string;
-      ref?: string | null;
-    } | null = null
+    preAnalyzedElementInfo: ElementInfo | null = null
   ): Promise<void> {
     console.log(`⌨️ 입력 시작: ${step.description}`);
 
@@ -932,6 +976,7 @@ export class AdaptivePlaywrightExecutor {
             return;
           } catch (error) {
             console.warn(`⚠️ ref 입력 실패: ${error}`);
+            preAnalyzedElementInfo = await this.reanalyzeIfCached(step, preAnalyzedElementInfo);
           }
         }
 
@@ -1143,46 +1188,129 @@ export class AdaptivePlaywrightExecutor {
     }
   }
 
+  // LLM 호출 시간/토큰을 이벤트 스트림으로 보고
+  private async createMessage(
+    params: Anthropic.MessageCreateParamsNonStreaming,
+    snapshot?: SnapshotView
+  ): Promise<Anthropic.Message> {
+    const startedAt = Date.now();
+    try {
+      const response = await this.anthropic.messages.create(params);
+      emitEvent("llm_call", {
+        index: 1,
+        ms: Date.now() - startedAt,
+        input_tokens: response.usage?.input_tokens,
+        output_tokens: response.usage?.output_tokens,
+        ...(snapshot && {
+          snapshot_mode: snapshot.mode,
+          snapshot_raw_tokens: snapshot.rawTokens,
+          snapshot_sent_tokens: snapshot.sentTokens,
+        }),
+      });
+      return response;
+    } catch (error) {
+      emitEvent("llm_call", { index: 1, ms: Date.now() - startedAt, error: true });
+      throw error;
+    }
+  }
+
+  // 캐시에서 읽은 요소 정보로 실패한 경우: 항목을 지우고 현재 스냅샷으로 LLM에게 다시 분석 요청
+  private async reanalyzeIfCached(
+    step: TestStep,
+    info: ElementInfo | null
+  ): Promise<ElementInfo | null> {
+    if (!info?.cached || !info.cacheKey) {
+      return info;
+    }
+    console.warn("⚠️ 캐시된 요소 정보로 실패, 캐시 항목 삭제 후 재분석");
+    await this.llmCache?.delete("element", info.cacheKey);
+    const snapshot = await this.getPageSnapshot();
+    return await this.getElementInfoFromAI(step, snapshot, false);
+  }
+
+  // 같은 스텝과 같은 구조의 페이지라면 이전 분석 결과를 재사용할 수 있도록 캐시 키 생성
+  private elementCacheKey(step: TestStep, snapshot: string): string | null {
+    try {
+      const rawSnapshot = JSON.parse(snapshot).rawSnapshot;
+      if (typeof rawSnapshot !== "string" || !rawSnapshot.includes("[ref=")) {
+        return null;
+      }
+      return LlmCache.key(
+        ELEMENT_CACHE_VERSION,
+        ELEMENT_MODEL,
+        step.action,
+        step.description,
+        step.target || "",
+        step.value || "",
+        snapshotStructureHash(rawSnapshot)
+      );
+    } catch {
+      return null;
+    }
+  }
+
   private async getElementInfoFromAI(
     step: TestStep,
-    snapshot: string
-  ): Promise<{ selector?: string; ref?: string | null } | null> {
+    snapshot: string,
+    useCache = true
+  ): Promise<ElementInfo | null> {
+    const cacheKey = this.llmCache ? this.elementCacheKey(step, snapshot) : null;
+    if (cacheKey && useCache) {
+      const cached = await this.llmCache!.get<ElementInfo>("element", cacheKey);
+      if (cached?.ref) {
+        console.log(`💾 캐시된 요소 분석 결과 사용: selector=${cached.selector}, ref=${cached.ref}`);
+        return { selector: cached.selector, ref: cached.ref, cacheKey, cached: true };
+      }
+    }
+    let view: SnapshotView | null = null;
     try {
       console.log("🧠 AI에게 스냅샷 분석 요청중...");
-      // console.log(snapshot);
 
-      const response = await this.anthropic.messages.create({
-        model: "claude-3-5-haiku-20241022",
-        // model: 'claude-3-haiku-20240307',
-        max_tokens: 500,
-        messages: [
-          {
-            role: "user",
-            content: `현재 웹 페이지 정보를 JSON 형식으로 제공합니다.
+      view = this.snapshotCompactor.next(this.rawSnapshotOf(snapshot), [
+        step.description,
+        step.target || "",
+        step.value || "",
+      ]);
+      if (view.mode === "full") {
+        this.elementConversation = [];
+      }
+      console.log(`📉 스냅샷 ${view.rawTokens} → ${view.sentTokens} 토큰 (${view.mode})`);
+
+      const request: Anthropic.MessageParam = {
+        role: "user",
+        content: `현재 웹 페이지의 스냅샷입니다. 요소당 한 줄이며 ref는 e5 같은 형식입니다.
+이전 요청과 같은 페이지라면 달라진 줄만 제공합니다 (+ 추가, - 삭제, @ after 위치). 나열되지 않은 요소는 이전과 같고 ref도 같습니다.
 
 - 실행할 작업: ${step.action}
 - 작업 설명: ${step.description}
 - 대상 요소 (지정된 selector): ${step.target || "(없음)"}
 ${step.value ? `- 입력할 값: ${step.value}` : ""}
 
-다음은 페이지 구조 정보입니다. elements 배열을 참고해 가장 적합한 요소를 찾아주세요:
+다음은 페이지 스냅샷입니다. 가장 적합한 요소를 찾아주세요:
 
-\`\`\`json
-${snapshot}
+\`\`\`
+${view.text}
 \`\`\`
 
 아래 형식에 따라 결과를 JSON으로만 응답해주세요:
 \`\`\`json
 {
   "selector": "가장 적합한 선택자 (img, link.. 등등)",
-  "ref": "요소 인덱스 기반 참조 ([ref=e5]라면 e5)",
+  "ref": "스냅샷에 표시된 요소의 ref (예: e5)",
   "confidence": 0.9,
   "reasoning": "이 요소를 선택한 이유"
 }
 \`\`\``,
-          },
-        ],
-      });
+      };
+      const response = await this.createMessage(
+        {
+          model: ELEMENT_MODEL,
+          max_tokens: 500,
+          messages: [...this.elementConversation, request],
+        },
+        view
+      );
+      this.rememberElementExchange(request, response);
 
       try {
         const content = response.content[0];
@@ -1208,10 +1336,16 @@ ${snapshot}
               );
             }
 
-            return {
+            const info: ElementInfo = {
               selector: parsed.selector || "",
-              ref: parsed.confidence >= 0.5 ? parsed.ref : null,
+              ref: parsed.confidence >= 0.5 ? this.snapshotCompactor.resolveRef(parsed.ref) : null,
             };
+            // 신뢰할 수 있는 ref를 얻은 경우에만 캐시
+            if (cacheKey && info.ref) {
+              await this.llmCache!.set("element", cacheKey, { selector: info.selector, ref: info.ref });
+              info.cacheKey = cacheKey;
+            }
+            return info;
           }
         }
       } catch (err) {
@@ -1221,16 +1355,48 @@ ${snapshot}
       return null;
     } catch (error) {
       console.error("❌ AI 요소 분석 실패:", error);
+      // 모델이 이번 스냅샷을 보지 못했으므로 다음 요청은 전체 스냅샷으로 새로 시작
+      if (view) {
+        this.elementConversation = [];
+        this.snapshotCompactor.forgetPage();
+      }
       return null;
     }
   }
 
+  // 대화가 예산의 4배를 넘으면 비우고 다음 요청을 전체 스냅샷으로 시작 (차분이 쌓여 전체보다 커지지 않도록)
+  private rememberElementExchange(request: Anthropic.MessageParam, response: Anthropic.Message): void {
+    const answer = response.content
+      .filter((c) => c.type === "text")
+      .map((c) => (c.type === "text" ? c.text : ""))
+      .join("\n");
+    this.elementConversation.push(request, { role: "assistant", content: answer || "{}" });
+    const budget = budgetFromEnv() || 16000;
+    const size = this.elementConversation.reduce(
+      (sum, m) => sum + estimateTokens(typeof m.content === "string" ? m.content : JSON.stringify(m.content)),
+      0
+    );
+    if (size > budget * 4) {
+      this.elementConversation = [];
+      this.snapshotCompactor.forgetPage();
+    }
+  }
+
+  private rawSnapshotOf(snapshot: string): string {
+    try {
+      const rawSnapshot = JSON.parse(snapshot).rawSnapshot;
+      return typeof rawSnapshot === "string" ? rawSnapshot : snapshot;
+    } catch {
+      return snapshot;
+    }
+  }
+
   private async getAIComment(
     step: TestStep,
     stepResult: StepResult
   ): Promise<string> {
     try {
-      const response = await this.anthropic.messages.create({
+      const response = await this.createMessage({
         model: "claude-3-5-sonnet-20241022",
         max_tokens: 2000,
         messages: [
@@ -1261,7 +1427,7 @@ ${snapshot}
 
   private async getFinalTestComment(): Promise<string> {
     try {
-      const response = await this.anthropic.messages.create({
+      const response = await this.createMessage({
         model: "claude-3-5-sonnet-20241022",
         max_tokens: 2000,
         messages: [
@@ -0,0 +1,236 @@
+/**
+ * LLM에 보내는 페이지 스냅샷의 압축/차분 (python/snapshots.py와 같은 규칙).
+ * - 가지치기: /url 속성, 이름 없는 이미지, 구분선, 표시용 노드 제거, 이름 없는 컨테이너(list, listitem, generic 등)는
+ *   줄 없이 자식만 올림, 긴 텍스트는 자름. 숨김 노드는 MCP 서버가 애초에 스냅샷에 넣지 않음.
+ * - 압축 형식: 노드당 한 줄 `<들여쓰기><ref> <role> "<name>" [속성]: <텍스트>`, 단계당 공백 한 칸.
+ * - ref는 스냅샷별 접두사 없이 표시 (s3e12 → e12): 바뀌지 않은 요소는 스냅샷이 바뀌어도 같은 ref.
+ *   resolveRef()가 모델이 돌려준 ref를 현재 스냅샷의 실제 ref로 변환.
+ * - 차분: 시나리오의 첫 스냅샷 이후 같은 페이지는 모델이 이미 본 것 대비 추가(+, 앞의 변하지 않은 줄 `@ after`)/삭제(-) 줄만 보냄.
+ *   URL이 바뀌었거나 차분이 전체보다 작지 않으면 전체를 보냄.
+ * - 토큰 예산: PLAYWRIGHT_E2E_SNAPSHOT_TOKEN_BUDGET(추정 토큰, 0 = 무제한)을 넘으면 텍스트 → 비상호작용 요소 → 뒤쪽 줄 순으로 제외.
+ *   hint(스텝 설명 등)에 나오는 단어를 포함한 줄은 마지막까지 남김.
+ */
+export const SNAPSHOT_BUDGET_ENV = "PLAYWRIGHT_E2E_SNAPSHOT_TOKEN_BUDGET";
+const DEFAULT_BUDGET = 4000;
+const MAX_TEXT = 80;
+
+const INTERACTIVE = new Set([
+  "button", "link", "textbox", "searchbox", "checkbox", "radio", "combobox", "listbox", "option",
+  "menuitem", "menuitemcheckbox", "menuitemradio", "tab", "switch", "slider", "spinbutton", "treeitem",
+]);
+const FLATTEN = new Set([
+  "generic", "group", "list", "listitem", "table", "rowgroup", "row", "cell", "gridcell", "paragraph",
+  "section", "article", "region", "banner", "contentinfo", "complementary", "navigation", "main", "form",
+  "document", "none", "presentation", "strong", "emphasis", "blockquote", "figure", "definition", "term",
+]);
+const DROP = new Set(["separator", "presentation", "none"]);
+
+interface Line {
+  depth: number;
+  text: string;
+  // 0: 상호작용 요소/제목, 1: 기타 ref 요소, 2: 텍스트
+  priority: number;
+}
+
+export interface SnapshotView {
+  text: string;
+  mode: "full" | "diff";
+  rawTokens: number;
+  sentTokens: number;
+}
+
+// 영문은 약 4글자당 1토큰, 한글 등 비ASCII 문자는 글자당 약 1토큰으로 추정
+export function estimateTokens(text: string): number {
+  let ascii = 0;
+  let other = 0;
+  for (const ch of text) {
+    if (ch.charCodeAt(0) < 128) ascii++;
+    else other++;
+  }
+  return Math.ceil(ascii / 4) + other;
+}
+
+export function budgetFromEnv(): number {
+  const value = parseInt(process.env[SNAPSHOT_BUDGET_ENV] ?? String(DEFAULT_BUDGET), 10);
+  return Number.isNaN(value) ? DEFAULT_BUDGET : Math.max(0, value);
+}
+
+export function normalizeRef(ref: string): string {
+  const match = ref.match(/^(f\d+)?s\d+(e\d+)$/);
+  return match ? `${match[1] ?? ""}${match[2]}` : ref;
+}
+
+function unquote(content: string): string {
+  // YAML이 ': ' 등을 포함한 줄을 따옴표로 감싼 경우
+  if (content.length >= 2 && content[0] === "'" && (content.endsWith("'") || content.endsWith("':"))) {
+    const colon = content.endsWith("':");
+    const inner = colon ? content.slice(1, -2) : content.slice(1, -1);
+    return inner.replace(/''/g, "'") + (colon ? ":" : "");
+  }
+  return content;
+}
+
+function cut(text: string): string {
+  return text.length > MAX_TEXT ? text.substring(0, MAX_TEXT) + "…" : text;
+}
+
+/** 스냅샷 YAML → 압축된 줄 목록과 (정규화 ref → 실제 ref) */
+export function compactLines(yamlText: string): { lines: Line[]; refs: Map<string, string> } {
+  const lines: Line[] = [];
+  const refs = new Map<string, string>();
+  // (원래 들여쓰기, 출력 깊이): 평탄화된 컨테이너의 자식은 부모의 출력 깊이를 물려받음
+  const stack: [number, number][] = [];
+  for (const raw of yamlText.split("\n")) {
+    const match = raw.match(/^(\s*)- (.*)$/);
+    if (!match) continue;
+    const indent = match[1].length;
+    const content = unquote(match[2].trim());
+    while (stack.length && stack[stack.length - 1][0] >= indent) stack.pop();
+    const depth = stack.length ? stack[stack.length - 1][1] + 1 : 0;
+    if (content.startsWith("/")) continue;
+
+    const nameMatch = content.match(/^([a-zA-Z]+)(?: "((?:[^"\\]|\\.)*)")?(.*)$/);
+    let role = nameMatch ? nameMatch[1] : content.replace(/:$/, "");
+    const name = nameMatch?.[2] ?? "";
+    let rest = nameMatch ? nameMatch[3] : "";
+    // 이름 뒤: [속성] [ref=..] 그리고 자식이 있으면 ':', 한 줄 텍스트면 ': 텍스트'
+    let text = "";
+    const textAt = rest.indexOf(": ");
+    if (textAt >= 0) {
+      text = rest.substring(textAt + 2);
+      rest = rest.substring(0, textAt);
+    }
+    const ref = rest.match(/\[ref=([^\]]+)\]/)?.[1] ?? null;
+    const attrs = [...rest.replace(/\s*\[ref=[^\]]+\]/g, "").matchAll(/\[([^\]=]+(?:=[^\]]*)?)\]/g)]
+      .map((m) => `[${m[1]}]`)
+      .join(" ");
+
+    if (DROP.has(role) || (role === "img" && !name) || (FLATTEN.has(role) && !name && !text && !ref)) {
+      stack.push([indent, depth - 1]);
+      continue;
+    }
+    if (FLATTEN.has(role) && !name && !ref) {
+      // 이름 없는 단락 등: 텍스트만 남김
+      role = "text";
+    }
+    stack.push([indent, depth]);
+
+    const parts: string[] = [];
+    if (ref) {
+      const short = normalizeRef(ref);
+      refs.set(short, ref);
+      parts.push(short);
+    }
+    parts.push(role);
+    if (name) parts.push(`"${cut(name)}"`);
+    if (attrs) parts.push(attrs);
+    const line = parts.join(" ") + (text ? `: ${cut(text)}` : "");
+    const priority =
+      INTERACTIVE.has(role) || ["heading", "dialog", "alertdialog", "alert"].includes(role) ? 0 : ref ? 1 : 2;
+    lines.push({ depth: Math.max(0, depth), text: line, priority });
+  }
+  return { lines, refs };
+}
+
+function render(lines: Line[]): string {
+  return lines.map((l) => " ".repeat(l.depth) + l.text).join("\n");
+}
+
+function fitBudget(lines: Line[], budget: number, hint: string[]): { kept: Line[]; omitted: number } {
+  if (budget <= 0 || estimateTokens(render(lines)) <= budget) {
+    return { kept: lines, omitted: 0 };
+  }
+  const relevant = (l: Line) => hint.some((word) => l.text.toLowerCase().includes(word));
+  let kept = lines;
+  for (const level of [2, 1]) {
+    kept = kept.filter((l) => l.priority < level || relevant(l));
+    if (estimateTokens(render(kept)) <= budget) break;
+  }
+  // 그래도 넘으면 관련 줄을 먼저 채우고 나머지는 앞에서부터
+  const chosen = new Set<Line>();
+  let used = 0;
+  for (const l of [...kept.filter(relevant), ...kept.filter((l) => !relevant(l))]) {
+    const cost = estimateTokens(" ".repeat(l.depth) + l.text) + 1;
+    if (used + cost > budget) continue;
+    chosen.add(l);
+    used += cost;
+  }
+  const fitted = kept.filter((l) => chosen.has(l));
+  return { kept: fitted, omitted: lines.length - fitted.length };
+}
+
+export class SnapshotCompactor {
+  private url: string | null = null;
+  private known: Line[] = [];
+  private refs = new Map<string, string>();
+
+  constructor(private readonly budget: number = budgetFromEnv()) {}
+
+  /** 모델이 보낸 정규화된 ref(e12)를 현재 스냅샷의 실제 ref로 변환 */
+  resolveRef(ref: string | null | undefined): string | null {
+    if (!ref) return null;
+    return this.refs.get(ref) ?? ref;
+  }
+
+  /** 다음 스냅샷은 전체를 보냄 (새 대화를 시작할 때) */
+  forgetPage(): void {
+    this.url = null;
+    this.known = [];
+  }
+
+  /**
+   * browser_snapshot 텍스트 → LLM에 보낼 압축(또는 차분) 형식.
+   * hint: 예산을 넘을 때 우선 남길 단어 (스텝 설명, 대상, 값)
+   */
+  next(rawSnapshot: string, hint: string[] = []): SnapshotView {
+    const block = rawSnapshot.match(/- Page Snapshot\n```yaml\n([\s\S]*?)\n```/);
+    const yamlText = block ? block[1] : rawSnapshot;
+    const url = rawSnapshot.match(/- Page URL: (.+)/)?.[1].trim() ?? null;
+    const { lines, refs } = compactLines(yamlText);
+    this.refs = refs;
+    const words = hint
+      .flatMap((h) => h.toLowerCase().split(/[\s'"“”‘’.,:()]+/))
+      .filter((w) => w.length >= 2);
+    const header = `- Page URL: ${url ?? "unknown"}\n`;
+    const rawTokens = estimateTokens(rawSnapshot);
+
+    if (this.known.length && url !== null && url === this.url) {
+      const known = new Set(this.known.map((l) => l.text));
+      const current = new Set(lines.map((l) => l.text));
+      const removed = this.known.filter((l) => !current.has(l.text));
+      const { kept: added, omitted } = fitBudget(lines.filter((l) => !known.has(l.text)), this.budget, words);
+      const shown = new Set(added.map((l) => l.text));
+      const diff = header + this.renderDiff(lines, known, shown, removed, omitted);
+      if (estimateTokens(diff) < estimateTokens(render(lines))) {
+        this.known = lines.filter((l) => known.has(l.text) || shown.has(l.text));
+        return { text: diff, mode: "diff", rawTokens, sentTokens: estimateTokens(diff) };
+      }
+    }
+    this.url = url;
+    const { kept, omitted } = fitBudget(lines, this.budget, words);
+    this.known = kept;
+    let text = header + "- Page Snapshot (compact: one line per element, refs as eN)\n" + render(kept);
+    if (omitted) text += `\n… ${omitted} lines omitted (token budget)`;
+    return { text, mode: "full", rawTokens, sentTokens: estimateTokens(text) };
+  }
+
+  private renderDiff(lines: Line[], known: Set<string>, shown: Set<string>, removed: Line[], omitted: number): string {
+    const out = ["- Page Snapshot diff (same page; elements not listed are unchanged and keep their refs)"];
+    let anchor: string | null = null;
+    let inBlock = false;
+    for (const l of lines) {
+      if (shown.has(l.text)) {
+        if (!inBlock && anchor !== null) out.push(`@ after ${anchor}`);
+        inBlock = true;
+        out.push("+" + " ".repeat(l.depth) + l.text);
+      } else {
+        inBlock = false;
+        if (known.has(l.text)) anchor = l.text;
+      }
+    }
+    for (const l of removed) out.push("-" + " ".repeat(l.depth) + l.text);
+    if (out.length === 1) out.push("(no changes)");
+    if (omitted) out.push(`… ${omitted} added lines omitted (token budget)`);
+    return out.join("\n");
+  }
+}
@@ -1,16 +1,28 @@
 import { Client } from "@modelcontextprotocol/sdk/client/index.js";
 import { StdioClientTransport } from "@modelcontextprotocol/sdk/client/stdio.js";
-import { spawn, exec as execCallback } from "child_process";
+import { exec as execCallback } from "child_process";
 import * as fs from "fs/promises";
 import * as path from "path";
-import { ChildProcess } from "child_process";
 import { promisify } from "util";
 import * as os from "os";
 import { existsSync } from "fs";
 import { execSync } from "child_process";
+import { emitEvent } from "../events/eventStream";
 
 const exec = promisify(execCallback);
 
+// MCP 서버 실행 명령: 설치된 @playwright/mcp의 cli.js를 node로 직접 실행하고,
+// 찾을 수 없으면 npx로 실행 (번들 배포본에는 node_modules/.bin 링크가 없음)
+function mcpServerCommand(): { command: string; args: string[] } {
+  try {
+    const packageJson = require.resolve("@playwright/mcp/package.json");
+    return { command: process.execPath, args: [path.join(path.dirname(packageJson), "cli.js")] };
+  } catch {
+    const npx = process.platform === "win32" ? "npx.cmd" : "npx";
+    return { command: npx, args: ["--no-install", "@playwright/mcp"] };
+  }
+}
+
 // 로그 레벨 정의
 enum LogLevel {
   NONE = 0,
@@ -286,7 +298,6 @@ export class MCPClient {
   private client: Client;
   private transport: StdioClientTransport | undefined;
   private toolCache: Record<string, any> = {}; // 도구 캐시
-  private mcpProcess: ChildProcess | null = null;
 
   constructor() {
     // 로그 디렉토리 생성
@@ -748,45 +759,20 @@ export class MCPClient {
       // 운영체제 감지 및 환경 설정
       await this.detectAndSetupEnvironment();
 
-      // npm 명령어 경로 (Windows와 다른 플랫폼 구분)
-      const npm = process.platform === "win32" ? "npx.cmd" : "npx";
-
-      // MCP 서버 시작
-      // 직접 child process를 생성
-      const proc = spawn(npm, ["--no-install", "@playwright/mcp"], {
-        stdio: ["pipe", "pipe", "pipe"],
-        shell: true,
-        env: { ...process.env },
-      });
-      this.mcpProcess = proc;
-
-      // stdout과 stderr 이벤트 리스너 추가
-      proc.stdout.on("data", (data) => {
-        log(LogLevel.DEBUG, "MCP Server stdout:", data.toString());
-      });
-
-      proc.stderr.on("data", (data) => {
-        log(LogLevel.WARN, "MCP Server stderr:", data.toString());
-      });
-
-      proc.on("error", (error) => {
-        log(LogLevel.ERROR, "MCP 서버 시작 실패:", error);
-      });
-
-      proc.on("close", (code) => {
-        log(LogLevel.INFO, `MCP 서버 프로세스가 코드 ${code}로 종료되었습니다`);
-      });
-
-      // 프로세스가 시작되기를 기다림
-      await new Promise((resolve) => setTimeout(resolve, 2000));
+      const server = mcpServerCommand();
 
+      // MCP 서버는 transport가 한 번만 실행 (미리 띄워 두고 기다리면 서버가 두 개 뜨고 2초를 잃음)
       this.transport = new StdioClientTransport({
-        command: npm,
-        args: ["--no-install", "@playwright/mcp"],
+        command: server.command,
+        args: server.args,
+        stderr: "pipe",
       });
 
       log(LogLevel.INFO, "Transport를 통해 MCP 서버에 연결 중...");
       await this.client.connect(this.transport);
+      this.transport.stderr?.on("data", (data) => {
+        log(LogLevel.WARN, "MCP Server stderr:", data.toString());
+      });
 
       console.log("MCP 서버에 성공적으로 연결되었습니다");
       log(LogLevel.INFO, "Playwright MCP 서버에 성공적으로 연결되었습니다");
@@ -857,6 +843,24 @@ export class MCPClient {
   }
 
   async executeAction(action: string, args: any): Promise<ToolResult> {
+    const startedAt = Date.now();
+    let failed = false;
+    try {
+      return await this.callTool(action, args);
+    } catch (error) {
+      failed = true;
+      throw error;
+    } finally {
+      emitEvent("tool_call", {
+        index: 1,
+        tool: action,
+        ms: Date.now() - startedAt,
+        error: failed,
+      });
+    }
+  }
+
+  private async callTool(action: string, args: any): Promise<ToolResult> {
     const mappedAction = mapToolName(action);
     const mappedArgs = mapToolArgs(action, args);
 
@@ -1086,13 +1090,10 @@ export class MCPClient {
       // 콘솔에 오류 표시
       console.error("연결 해제 중 오류 발생:", error);
 
-      if (this.mcpProcess) {
-        log(LogLevel.INFO, "MCP 서버 프로세스 종료 시도...");
-        this.mcpProcess.kill(); // soft kill
-        this.mcpProcess = null;
-        log(LogLevel.INFO, "브라우저 및 MCP 클라이언트 정리 완료");
-        console.log("브라우저 및 MCP 클라이언트 정리 완료");
-      }
+      // transport가 실행한 MCP 서버 프로세스도 함께 종료
+      await this.transport?.close().catch(() => {});
+      log(LogLevel.INFO, "브라우저 및 MCP 클라이언트 정리 완료");
+      console.log("브라우저 및 MCP 클라이언트 정리 완료");
     }
     process.exit(0); // 완전 종료
   }
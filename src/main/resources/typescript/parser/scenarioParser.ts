@@ -1,5 +1,6 @@
 import Anthropic from '@anthropic-ai/sdk';
 import * as dotenv from 'dotenv';
+import { LlmCache } from '../cache/llmCache';
 
 dotenv.config();
 
@@ -10,8 +11,13 @@ export interface TestStep {
   description: string;
 }
 
+// 파싱 프롬프트/모델이 바뀌면 올려서 이전 캐시 항목을 무효화
+const PARSE_CACHE_VERSION = 'parse-v1';
+const PARSE_MODEL = 'claude-3-5-haiku-20241022';
+
 export class ScenarioParser {
   private anthropic: Anthropic;
+  private cache: LlmCache | null = LlmCache.fromEnv();
 
   constructor() {
     this.anthropic = new Anthropic({
@@ -20,8 +26,16 @@ export class ScenarioParser {
   }
 
   async parseScenario(scenarioText: string): Promise<TestStep[]> {
+    // 같은 시나리오 텍스트는 이전 파싱 결과를 재사용
+    const cacheKey = LlmCache.key(PARSE_CACHE_VERSION, PARSE_MODEL, scenarioText);
+    const cached = this.cache ? await this.cache.get<TestStep[]>('parse', cacheKey) : null;
+    if (Array.isArray(cached)) {
+      console.log(`Using cached parse result (${cached.length} steps)`);
+      return cached;
+    }
+
     const response = await this.anthropic.messages.create({
-      model: 'claude-3-5-haiku-20241022', // 모델 이름 변경
+      model: PARSE_MODEL, // 모델 이름 변경
       max_tokens: 1000,
       messages: [
         {
@@ -48,6 +62,9 @@ JSON 배열 형식으로 응답해주세요.`,
       const content = response.content[0];
       if (content.type === 'text') {
         const steps = JSON.parse(content.text);
+        if (this.cache && Array.isArray(steps)) {
+          await this.cache.set('parse', cacheKey, steps);
+        }
         return steps;
       } else {
         throw new Error('Unexpected response type from Claude');
@@ -0,0 +1,95 @@
+package io.jenkins.plugins.playwright_e2e.actions;
+
+import hudson.AbortException;
+import hudson.model.FreeStyleBuild;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class BuildReportActionTest {
+    private static final String SCENARIO = "tests/e2e/scenario.json";
+
+    private FreeStyleBuild run;
+
+    @BeforeEach
+    void setUp(JenkinsRule j) throws Exception {
+        run = j.buildAndAssertSuccess(j.createFreeStyleProject());
+    }
+
+    @Test
+    void shardsShareOneActionPerScenarioFile() throws Exception {
+        BuildReportAction unsharded = BuildReportAction.start(run, SCENARIO, false);
+        BuildReportAction group = BuildReportAction.start(run, SCENARIO, true);
+        BuildReportAction other = BuildReportAction.start(run, "other.json", true);
+
+        assertSame(group, BuildReportAction.start(run, SCENARIO, true));
+        assertSame(group, BuildReportAction.recordShard(run, SCENARIO, 0, 3, "SUCCESS"));
+        assertEquals(BuildReportAction.RUNNING, unsharded.getStatus());
+        assertEquals(BuildReportAction.RUNNING, other.getStatus());
+        assertTrue(other.getShardStatuses().isEmpty());
+    }
+
+    @Test
+    void groupStaysRunningUntilEveryShardReported() throws Exception {
+        BuildReportAction group = BuildReportAction.recordShard(run, SCENARIO, 0, 3, "SUCCESS");
+        assertEquals(BuildReportAction.RUNNING, group.getStatus());
+        BuildReportAction.recordShard(run, SCENARIO, 1, 3, "FAIL");
+        assertEquals(BuildReportAction.RUNNING, group.getStatus());
+        BuildReportAction.recordShard(run, SCENARIO, 2, 3, "SUCCESS");
+        assertEquals("FAIL", group.getStatus());
+    }
+
+    @Test
+    void mergeWithScriptPathFinalizesItsGroup() throws Exception {
+        BuildReportAction group = recordShards(SCENARIO, 3);
+        BuildReportAction.recordShard(run, "other.json", 0, 2, "FAIL");
+
+        assertSame(group, BuildReportAction.recordMerge(run, SCENARIO, 3, true));
+        assertTrue(group.isMerged());
+        assertEquals("SUCCESS", group.getStatus());
+    }
+
+    @Test
+    void mergeWithoutScriptPathFinalizesTheOnlyGroup() throws Exception {
+        BuildReportAction group = recordShards(SCENARIO, 3);
+
+        assertSame(group, BuildReportAction.recordMerge(run, null, 3, true));
+        assertTrue(group.isMerged());
+        assertEquals("SUCCESS", group.getStatus());
+        assertEquals(1, run.getActions(BuildReportAction.class).size());
+    }
+
+    @Test
+    void mergeWithoutScriptPathRejectsSeveralGroups() throws Exception {
+        BuildReportAction group = recordShards(SCENARIO, 2);
+        recordShards("other.json", 2);
+
+        assertThrows(AbortException.class, () -> BuildReportAction.recordMerge(run, null, 2, true));
+        assertFalse(group.isMerged());
+    }
+
+    @Test
+    void mergeFailsWhenShardsAreMissing() throws Exception {
+        BuildReportAction.recordShard(run, SCENARIO, 0, 3, "SUCCESS");
+
+        BuildReportAction group = BuildReportAction.recordMerge(run, SCENARIO, 3, true);
+        assertTrue(group.isMerged());
+        assertEquals("FAIL", group.getStatus());
+    }
+
+    private BuildReportAction recordShards(String scriptPath, int shardCount) throws Exception {
+        BuildReportAction group = null;
+        for (int i = 0; i < shardCount; i++) {
+            group = BuildReportAction.recordShard(run, scriptPath, i, shardCount, "SUCCESS");
+        }
+        return group;
+    }
+}
@@ -0,0 +1,122 @@
+"""
+Offline tests of the replay fallback in main_logic._run_scenario.
+
+A recording that diverges partway through is replayed against a fake MCP
+session, and the LLM is the stub model (stub_model.py) driven by an
+LLM_STUB_SCRIPT, so neither a browser nor network access is needed. Run with the
+runner's toolchain (see README, "Python runner tests").
+"""
+import asyncio
+import json
+import os
+import sys
+import tempfile
+import unittest
+from types import SimpleNamespace
+
+sys.path.insert(0, os.path.join(os.path.dirname(__file__), "..", "..", "main", "resources", "python"))
+
+from langchain_core.tools import StructuredTool
+
+import main_logic
+from replay import load_recording, recording_path, save_recording, scenario_key
+from stub_model import StubChatModel
+
+SCENARIO = {"title": "Login", "steps": ["Open the login page", "Click the login button"]}
+
+RECORDED = [
+    {"name": "browser_navigate", "args": {"url": "http://localhost:8080/login"}},
+    {"name": "browser_click", "args": {"element": "Login button", "ref": "e1"}},
+    {"name": "browser_take_screenshot", "args": {}},
+]
+
+AGENT_CLICK = {"name": "browser_click", "args": {"element": "Login button", "ref": "e7"}}
+
+
+def _text(text: str):
+    return SimpleNamespace(type="text", text=text)
+
+
+class DivergingSession:
+    """Fake MCP session: every call succeeds except the click on the stale ref e1."""
+
+    def __init__(self):
+        self.calls = []
+
+    async def call_tool(self, name, args):
+        self.calls.append({"name": name, "args": args})
+        if name == "browser_click" and args.get("ref") == "e1":
+            return SimpleNamespace(isError=True, content=[_text("Ref e1 not found in the current page snapshot")])
+        return SimpleNamespace(isError=False, content=[_text("ok")])
+
+
+def _agent_tools(calls):
+    """The tools the agent gets once it takes over; they record what it does."""
+
+    async def browser_click(element: str, ref: str):
+        calls.append({"name": "browser_click", "args": {"element": element, "ref": ref}})
+        return "clicked", None
+
+    return [StructuredTool.from_function(
+        coroutine=browser_click, name="browser_click", description="Click an element",
+        response_format="content_and_artifact",
+    )]
+
+
+def _answer(status: bool) -> str:
+    steps = [
+        {"num": i + 1, "action": step, "status": status or i == 0, "duration": 0.0, "feedback": "stub", "fail": None}
+        for i, step in enumerate(SCENARIO["steps"])
+    ]
+    fail = None if status else [{"num": 2, "message": "로그인 버튼이 없음"}]
+    result = {"title": "", "status": status, "duration": 0.0, "feedback": "stub", "fail": fail, "steps": steps}
+    return "```json\n" + json.dumps(result, ensure_ascii=False) + "\n```"
+
+
+class ReplayFallbackTest(unittest.TestCase):
+
+    def setUp(self):
+        self.tmp = tempfile.TemporaryDirectory()
+        self.addCleanup(self.tmp.cleanup)
+        self.root = self.tmp.name
+        save_recording(self.root, SCENARIO, RECORDED, [{"num": 1, "action": SCENARIO["steps"][0]}])
+        self.addCleanup(os.environ.pop, "LLM_STUB_SCRIPT", None)
+
+    def _run(self, script):
+        path = os.path.join(self.root, "stub-script.json")
+        with open(path, "w", encoding="utf-8") as f:
+            json.dump(script, f)
+        os.environ["LLM_STUB_SCRIPT"] = path
+        session = DivergingSession()
+        agent_calls = []
+        _, result, _ = asyncio.run(main_logic._run_scenario(
+            StubChatModel.from_env(), _agent_tools(agent_calls), SCENARIO, 1,
+            os.path.join(self.root, "out"), self.root, session, replay=True,
+        ))
+        return result, session.calls, agent_calls
+
+    def test_agent_takes_over_at_the_divergent_call_and_keeps_the_replayed_prefix(self):
+        result, replayed, agent_calls = self._run([{"tool_calls": [AGENT_CLICK]}])
+
+        self.assertTrue(result.status)
+        # Replay stopped at the divergent click and never went on to the screenshot
+        self.assertEqual(replayed, RECORDED[:2])
+        self.assertEqual(agent_calls, [AGENT_CLICK])
+        # The new recording is the replayed prefix followed by what the agent did
+        recording = load_recording(self.root, SCENARIO)
+        self.assertIsNotNone(recording)
+        self.assertEqual(recording["calls"], RECORDED[:1] + [AGENT_CLICK])
+
+    def test_recording_is_marked_stale_when_the_fallback_fails(self):
+        result, replayed, agent_calls = self._run([{"tool_calls": [AGENT_CLICK]}, {"content": _answer(False)}])
+
+        self.assertFalse(result.status)
+        self.assertEqual(replayed, RECORDED[:2])
+        self.assertEqual(agent_calls, [AGENT_CLICK])
+        self.assertIsNone(load_recording(self.root, SCENARIO))
+        with open(recording_path(self.root, scenario_key(SCENARIO)), "r", encoding="utf-8") as f:
+            self.assertTrue(json.load(f)["stale"])
+
+
+if __name__ == "__main__":
+    unittest.main()
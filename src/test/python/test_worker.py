@@ -0,0 +1,87 @@
+"""
+Runs requests through worker.py as PythonWorkerPool does: a worker process
+serving the shipped test-core-logic.py handler over length-prefixed JSON.
+Only needs the standard library.
+"""
+import json
+import os
+import struct
+import subprocess
+import sys
+import tempfile
+import unittest
+
+PYTHON_DIR = os.path.join(os.path.dirname(__file__), "..", "..", "main", "resources", "python")
+HEADER = struct.Struct(">I")
+
+
+class Worker:
+
+    def __init__(self, handler):
+        self.process = subprocess.Popen(
+            [sys.executable, os.path.join(PYTHON_DIR, "worker.py"), handler],
+            stdin=subprocess.PIPE, stdout=subprocess.PIPE, stderr=subprocess.PIPE,
+        )
+        self.sequence = 0
+
+    def call(self, request):
+        self.sequence += 1
+        body = json.dumps(dict(request, id=self.sequence)).encode("utf-8")
+        self.process.stdin.write(HEADER.pack(len(body)) + body)
+        self.process.stdin.flush()
+        (length,) = HEADER.unpack(self.process.stdout.read(HEADER.size))
+        response = json.loads(self.process.stdout.read(length).decode("utf-8"))
+        assert response["id"] == self.sequence
+        return response
+
+    def close(self):
+        self.process.stdin.close()
+        self.process.wait(timeout=10)
+        self.process.stdout.close()
+        self.process.stderr.close()
+
+
+class WorkerTest(unittest.TestCase):
+
+    def _worker(self, handler):
+        worker = Worker(handler)
+        self.addCleanup(worker.close)
+        return worker
+
+    def test_serves_the_shipped_handler(self):
+        worker = self._worker(os.path.join(PYTHON_DIR, "test-core-logic.py"))
+
+        self.assertEqual(worker.call({"op": "ping"}), {"id": 1, "ok": True, "result": "pong"})
+        response = worker.call({"op": "process", "input": "로그인", "env": {"BUILD_NUMBER": "7"}})
+        self.assertTrue(response["ok"], response)
+        self.assertEqual(json.loads(response["result"]), {"build": "7", "input": "로그인", "length": 3})
+
+    def test_request_env_does_not_leak_into_the_next_request(self):
+        worker = self._worker(os.path.join(PYTHON_DIR, "test-core-logic.py"))
+
+        worker.call({"op": "process", "input": "a", "env": {"BUILD_NUMBER": "7"}})
+        response = worker.call({"op": "process", "input": "b"})
+        self.assertIsNone(json.loads(response["result"])["build"])
+
+    def test_legacy_script_runs_per_request_as_main(self):
+        with tempfile.NamedTemporaryFile("w", suffix=".py", delete=False) as f:
+            f.write("import sys\nprint(sys.argv[1].upper())\nprint('log line')\n")
+        self.addCleanup(os.remove, f.name)
+        worker = self._worker(f.name)
+
+        self.assertEqual(worker.call({"op": "process", "input": "abc"})["result"], "ABC")
+
+    def test_handler_error_is_reported_with_its_traceback(self):
+        with tempfile.NamedTemporaryFile("w", suffix=".py", delete=False) as f:
+            f.write("def process(input):\n    raise ValueError(input)\n")
+        self.addCleanup(os.remove, f.name)
+        worker = self._worker(f.name)
+
+        response = worker.call({"op": "process", "input": "bad"})
+        self.assertFalse(response["ok"])
+        self.assertEqual(response["error"], "ValueError: bad")
+        self.assertIn("Traceback", response["trace"])
+
+
+if __name__ == "__main__":
+    unittest.main()